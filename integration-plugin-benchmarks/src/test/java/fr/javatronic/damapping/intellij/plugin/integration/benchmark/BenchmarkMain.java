@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.benchmark;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkMain - Runs the benchmarks of this module with the GC profiler (allocation rate per operation) and writes
+ * the results as JSON, so that the results of two runs (ie. before and after a change) can be compared.
+ * <p>
+ * The first argument, if any, is a regular expression selecting the benchmarks to run (all by default). The result
+ * file is specified by the system property {@value #RESULT_FILE_PROPERTY}, it defaults to a timestamped file in the
+ * working directory. System properties prefixed with {@code damapping.benchmark.}, which specify the
+ * corpus (see {@link MapperCorpus}), are passed on to the forked JVMs.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class BenchmarkMain {
+  public static final String RESULT_FILE_PROPERTY = "damapping.benchmark.result";
+
+  private static final String BENCHMARK_PROPERTY_PREFIX = "damapping.benchmark.";
+
+  private BenchmarkMain() {
+    // prevents instantiation
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : BenchmarkMain.class.getPackage().getName() + ".*";
+    File resultFile = resultFile();
+
+    ChainedOptionsBuilder options = new OptionsBuilder()
+        .include(include)
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(resultFile.getAbsolutePath())
+        .jvmArgsAppend("-Djava.awt.headless=true");
+    for (String name : System.getProperties().stringPropertyNames()) {
+      if (name.startsWith(BENCHMARK_PROPERTY_PREFIX)) {
+        options.jvmArgsAppend("-D" + name + "=" + System.getProperty(name));
+      }
+    }
+
+    if (System.getProperty(CallTraceReplayBenchmark.TRACE_FILE_PROPERTY) == null) {
+      // nothing to replay
+      options.exclude(CallTraceReplayBenchmark.class.getName());
+    }
+
+    new Runner(options.build()).run();
+    System.out.println("Results written to " + resultFile.getAbsolutePath());
+  }
+
+  private static File resultFile() {
+    String path = System.getProperty(RESULT_FILE_PROPERTY);
+    if (path != null) {
+      return new File(path);
+    }
+    return new File("damapping-benchmark-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.benchmark;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.DAMappingPsiShortNamesCache;
+import fr.javatronic.damapping.intellij.plugin.integration.provider.DAMappingElementFinder;
+import fr.javatronic.damapping.intellij.plugin.integration.trace.CallTraceEntry;
+import fr.javatronic.damapping.intellij.plugin.integration.trace.CallTraceReader;
+import fr.javatronic.damapping.intellij.plugin.integration.trace.CallTraceRecorder;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiElementFinder;
+import com.intellij.psi.PsiPackage;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * CallTraceReplayBenchmark - Replays the calls to the DAMapping extension points recorded by
+ * {@link CallTraceRecorder} (see {@link CallTraceRecorder#TRACE_FILE_PROPERTY}) against the project of a
+ * {@link HeadlessFixture}.
+ * <p>
+ * The trace file is specified by the system property {@value #TRACE_FILE_PROPERTY}. The project is the corpus
+ * specified as described in {@link MapperCorpus}: a synthetic project or, to replay the calls against the project they
+ * were recorded on, a copy of its sources. Calls on a package which does not exist in the project are skipped. One
+ * operation replays the whole trace, as fast as possible (the time between calls is not reproduced); caches are warm
+ * after the first operation, as they are in the IDE.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CallTraceReplayBenchmark {
+  public static final String TRACE_FILE_PROPERTY = "damapping.benchmark.trace";
+
+  private HeadlessFixture fixture;
+  private DAMappingElementFinder elementFinder;
+  private DAMappingPsiShortNamesCache shortNamesCache;
+
+  private CallTraceEntry[] entries;
+  private GlobalSearchScope[] scopes;
+  private PsiPackage[] packages;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    String traceFile = System.getProperty(TRACE_FILE_PROPERTY);
+    if (traceFile == null) {
+      throw new IllegalStateException("System property " + TRACE_FILE_PROPERTY + " must be set");
+    }
+    List<CallTraceEntry> trace = CallTraceReader.readAll(new File(traceFile));
+
+    fixture = HeadlessFixture.create(MapperCorpus.fromSystemProperty());
+    final Project project = fixture.getFixture().getProject();
+    elementFinder = getElementFinder(project);
+    shortNamesCache = DAMappingPsiShortNamesCache.getInstance(project);
+
+    entries = trace.toArray(new CallTraceEntry[trace.size()]);
+    scopes = new GlobalSearchScope[entries.length];
+    packages = new PsiPackage[entries.length];
+    ApplicationManager.getApplication().runReadAction(new Runnable() {
+      @Override
+      public void run() {
+        JavaPsiFacade psiFacade = JavaPsiFacade.getInstance(project);
+        for (int i = 0; i < entries.length; i++) {
+          scopes[i] = entries[i].getScopeKind().toScope(project);
+          switch (entries[i].getOperation()) {
+            case GET_CLASSES:
+            case GET_CLASS_NAMES:
+              packages[i] = psiFacade.findPackage(entries[i].getArgument());
+              break;
+            default:
+              break;
+          }
+        }
+      }
+    });
+  }
+
+  private static DAMappingElementFinder getElementFinder(Project project) {
+    for (PsiElementFinder finder : Extensions.getExtensions(PsiElementFinder.EP_NAME, project)) {
+      if (finder instanceof DAMappingElementFinder) {
+        return (DAMappingElementFinder) finder;
+      }
+    }
+    throw new IllegalStateException("DAMappingElementFinder is not registered");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.dispose();
+  }
+
+  @Benchmark
+  public void replay(final Blackhole blackhole) {
+    ApplicationManager.getApplication().runReadAction(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < entries.length; i++) {
+          replay(i, blackhole);
+        }
+      }
+    });
+  }
+
+  private void replay(int i, Blackhole blackhole) {
+    CallTraceEntry entry = entries[i];
+    switch (entry.getOperation()) {
+      case FIND_CLASSES:
+        blackhole.consume(elementFinder.findClasses(entry.getArgument(), scopes[i]));
+        break;
+      case GET_CLASSES:
+        if (packages[i] != null) {
+          blackhole.consume(elementFinder.getClasses(packages[i], scopes[i]));
+        }
+        break;
+      case GET_CLASS_NAMES:
+        if (packages[i] != null) {
+          blackhole.consume(elementFinder.getClassNames(packages[i], scopes[i]));
+        }
+        break;
+      case GET_CLASSES_BY_NAME:
+        blackhole.consume(shortNamesCache.getClassesByName(entry.getArgument(), scopes[i]));
+        break;
+      default:
+        // other operations are not extension points called by IDEA with a name
+        break;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.benchmark;
+
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.intellij.openapi.util.Ref;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import com.intellij.util.ui.UIUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * HeadlessFixture - Headless light project fixture, the same as the one of the tests of the plugin, into which the
+ * files of a {@link MapperCorpus} are loaded.
+ * <p>
+ * Booting the fixture takes seconds: benchmarks create it once per fork, from a {@code @Setup(Level.Trial)} method.
+ * Creation and disposal are done on the event dispatch thread, as IDEA requires.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class HeadlessFixture {
+  @NotNull
+  private final CodeInsightTestFixture fixture;
+  @NotNull
+  private final List<PsiJavaFile> files;
+
+  private HeadlessFixture(@NotNull CodeInsightTestFixture fixture, @NotNull List<PsiJavaFile> files) {
+    this.fixture = fixture;
+    this.files = files;
+  }
+
+  @NotNull
+  public static HeadlessFixture create(@NotNull final MapperCorpus corpus) throws Exception {
+    final Ref<HeadlessFixture> res = Ref.create();
+    runOnEdt(new ThrowingRunnable() {
+      @Override
+      public void run() throws Exception {
+        IdeaTestFixtureFactory factory = IdeaTestFixtureFactory.getFixtureFactory();
+        TestFixtureBuilder<IdeaProjectTestFixture> builder =
+            factory.createLightFixtureBuilder(LightCodeInsightFixtureTestCase.JAVA_LATEST);
+        CodeInsightTestFixture fixture = factory.createCodeInsightFixture(builder.getFixture());
+        fixture.setUp();
+
+        fixture.addClass(SyntheticProjectGenerator.MAPPER_ANNOTATION_SOURCE);
+        List<PsiJavaFile> files = new ArrayList<PsiJavaFile>(corpus.size());
+        for (MapperCorpus.SourceFile sourceFile : corpus.getFiles()) {
+          PsiFile psiFile = fixture.addFileToProject(sourceFile.getPath(), sourceFile.getText());
+          if (psiFile instanceof PsiJavaFile) {
+            files.add((PsiJavaFile) psiFile);
+          }
+        }
+        res.set(new HeadlessFixture(fixture, files));
+      }
+    });
+    return res.get();
+  }
+
+  @NotNull
+  public CodeInsightTestFixture getFixture() {
+    return fixture;
+  }
+
+  @NotNull
+  public List<PsiJavaFile> getFiles() {
+    return files;
+  }
+
+  public void dispose() throws Exception {
+    runOnEdt(new ThrowingRunnable() {
+      @Override
+      public void run() throws Exception {
+        fixture.tearDown();
+      }
+    });
+  }
+
+  private static void runOnEdt(@NotNull final ThrowingRunnable runnable) throws Exception {
+    final Ref<Exception> exception = Ref.create();
+    UIUtil.invokeAndWaitIfNeeded(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          runnable.run();
+        } catch (Exception e) {
+          exception.set(e);
+        }
+      }
+    });
+    if (!exception.isNull()) {
+      throw exception.get();
+    }
+  }
+
+  private interface ThrowingRunnable {
+    void run() throws Exception;
+  }
+}
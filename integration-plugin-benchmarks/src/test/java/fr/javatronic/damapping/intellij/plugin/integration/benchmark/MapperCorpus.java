@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.benchmark;
+
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectGenerator;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectSpec;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticSourceFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * MapperCorpus - The source files loaded into the {@link HeadlessFixture} of the benchmarks.
+ * <p>
+ * The corpus is read from the directory specified by the system property {@value #CORPUS_DIR_PROPERTY} (every
+ * {@code .java} file of the directory and its subdirectories, with its path relative to this directory). When the
+ * property is not set, a corpus is generated by {@link SyntheticProjectGenerator} (see {@link #synthetic()}).
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class MapperCorpus {
+  public static final String CORPUS_DIR_PROPERTY = "damapping.benchmark.corpus";
+  public static final String SYNTHETIC_PROPERTY_PREFIX = "damapping.benchmark.synthetic.";
+
+  private static final int DEFAULT_MAPPER_COUNT = 1000;
+
+  @NotNull
+  private final String name;
+  @NotNull
+  private final List<SourceFile> files;
+
+  public MapperCorpus(@NotNull String name, @NotNull List<SourceFile> files) {
+    this.name = name;
+    this.files = Collections.unmodifiableList(new ArrayList<SourceFile>(files));
+  }
+
+  @NotNull
+  public static MapperCorpus fromSystemProperty() throws IOException {
+    String dir = System.getProperty(CORPUS_DIR_PROPERTY);
+    if (dir == null || dir.isEmpty()) {
+      return synthetic();
+    }
+    return fromDirectory(new File(dir));
+  }
+
+  @NotNull
+  public static MapperCorpus fromDirectory(@NotNull File dir) throws IOException {
+    if (!dir.isDirectory()) {
+      throw new IOException("Corpus directory " + dir + " does not exist");
+    }
+    List<SourceFile> files = new ArrayList<SourceFile>();
+    collect(dir, dir, files);
+    return new MapperCorpus(dir.getAbsolutePath(), files);
+  }
+
+  private static void collect(@NotNull File root, @NotNull File dir, @NotNull List<SourceFile> res) throws IOException {
+    File[] children = dir.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (File child : children) {
+      if (child.isDirectory()) {
+        collect(root, child, res);
+      }
+      else if (child.getName().endsWith(".java")) {
+        String path = FileUtil.toSystemIndependentName(FileUtil.getRelativePath(root, child));
+        res.add(new SourceFile(path, FileUtil.loadFile(child, "UTF-8")));
+      }
+    }
+  }
+
+  /**
+   * Synthetic corpus generated from the spec built from the system properties prefixed with
+   * {@value #SYNTHETIC_PROPERTY_PREFIX} ({@code mappers}, {@code methodsPerMapper}, {@code genericDepth},
+   * {@code imports}, {@code invalidRatio}, {@code mappersPerPackage} and {@code seed}), the default value of
+   * {@link SyntheticProjectSpec.Builder} being used for those which are not set.
+   */
+  @NotNull
+  public static MapperCorpus synthetic() {
+    SyntheticProjectSpec.Builder builder = SyntheticProjectSpec.builder();
+    builder.mappers(Integer.getInteger(SYNTHETIC_PROPERTY_PREFIX + "mappers", DEFAULT_MAPPER_COUNT));
+    SyntheticProjectSpec defaults = builder.build();
+    builder.methodsPerMapper(Integer.getInteger(SYNTHETIC_PROPERTY_PREFIX + "methodsPerMapper",
+        defaults.getMethodsPerMapper()))
+        .genericDepth(Integer.getInteger(SYNTHETIC_PROPERTY_PREFIX + "genericDepth", defaults.getGenericDepth()))
+        .imports(Integer.getInteger(SYNTHETIC_PROPERTY_PREFIX + "imports", defaults.getImportCount()))
+        .packageLayout(defaults.getPackageLayout(),
+            Integer.getInteger(SYNTHETIC_PROPERTY_PREFIX + "mappersPerPackage", defaults.getMappersPerPackage()))
+        .seed(Long.getLong(SYNTHETIC_PROPERTY_PREFIX + "seed", defaults.getSeed()));
+    String invalidRatio = System.getProperty(SYNTHETIC_PROPERTY_PREFIX + "invalidRatio");
+    if (invalidRatio != null) {
+      builder.invalidRatio(Double.parseDouble(invalidRatio));
+    }
+    return synthetic(builder.build());
+  }
+
+  @NotNull
+  public static MapperCorpus synthetic(@NotNull SyntheticProjectSpec spec) {
+    List<SourceFile> files = new ArrayList<SourceFile>(spec.getMapperCount());
+    for (SyntheticSourceFile syntheticFile : SyntheticProjectGenerator.generate(spec)) {
+      files.add(new SourceFile(syntheticFile.getPath(), syntheticFile.getText()));
+    }
+    return new MapperCorpus(spec.toString(), files);
+  }
+
+  @NotNull
+  public String getName() {
+    return name;
+  }
+
+  @NotNull
+  public List<SourceFile> getFiles() {
+    return files;
+  }
+
+  public int size() {
+    return files.size();
+  }
+
+  /**
+   * SourceFile - Path, relative to the source root of the fixture, and text of a file of the corpus.
+   */
+  public static final class SourceFile {
+    @NotNull
+    private final String path;
+    @NotNull
+    private final String text;
+
+    public SourceFile(@NotNull String path, @NotNull String text) {
+      this.path = path;
+      this.text = text;
+    }
+
+    @NotNull
+    public String getPath() {
+      return path;
+    }
+
+    @NotNull
+    public String getText() {
+      return text;
+    }
+
+    @Override
+    public String toString() {
+      return path;
+    }
+  }
+}
@@ -0,0 +1,305 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.benchmark;
+
+import fr.javatronic.damapping.annotation.Mapper;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiAnnotationUtil;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiContext;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.DAModifierExtractor;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.DAModifierExtractorImpl;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.DANameExtractor;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.DANameExtractorImpl;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.DATypeExtractor;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.DATypeExtractorImpl;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.PsiParsingServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * PsiParsingBenchmark - Throughput of the psiparsing package (parsing of a class annoted with @Mapper into a
+ * DASourceClass, name/type/modifier extraction and @Mapper annotation detection) on the classes of a
+ * {@link MapperCorpus} loaded into a {@link HeadlessFixture}.
+ * <p>
+ * The fixture is booted once per fork and the PSI elements to process are collected in the setup, so that only the
+ * extraction itself is measured. One operation processes every element of the corpus once, inside a single read
+ * action, as the plugin does.
+ * </p>
+ * <p>
+ * {@link #parse(FreshMapperClasses, Blackhole)} measures the parsing of classes which have never been parsed: the
+ * DAMethod of each method is cached in its PSI, so each invocation parses fresh copies of the classes annoted with
+ * &#64;Mapper created in a setup which is not measured. {@link #parseCached(Blackhole)} measures the parsing of the
+ * same classes over and over, served from this cache.
+ * </p>
+ * <p>
+ * {@link #isMapper()} measures the cached detection used by the plugin, while
+ * {@link #isAnnotatedWithMapper()} measures the resolve-based check it replaces.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PsiParsingBenchmark {
+  private HeadlessFixture fixture;
+
+  private PsiParsingServiceImpl parsingService;
+  private DANameExtractor nameExtractor;
+  private DATypeExtractor typeExtractor;
+  private DAModifierExtractor modifierExtractor;
+  private MapperDetector mapperDetector;
+
+  private PsiClass[] classes;
+  private PsiClass[] mapperClasses;
+  private PsiMethod[] methods;
+  private PsiContext[] methodContexts;
+  private PsiParameter[] parameters;
+  private PsiContext[] parameterContexts;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    fixture = HeadlessFixture.create(MapperCorpus.fromSystemProperty());
+
+    parsingService = new PsiParsingServiceImpl();
+    nameExtractor = new DANameExtractorImpl();
+    typeExtractor = new DATypeExtractorImpl(nameExtractor);
+    modifierExtractor = new DAModifierExtractorImpl();
+    mapperDetector = ServiceManager.getService(MapperDetector.class);
+
+    ApplicationManager.getApplication().runReadAction(new Runnable() {
+      @Override
+      public void run() {
+        collectElements();
+      }
+    });
+  }
+
+  private void collectElements() {
+    List<PsiClass> allClasses = new ArrayList<PsiClass>();
+    List<PsiClass> mappers = new ArrayList<PsiClass>();
+    List<PsiMethod> allMethods = new ArrayList<PsiMethod>();
+    List<PsiContext> allMethodContexts = new ArrayList<PsiContext>();
+    List<PsiParameter> allParameters = new ArrayList<PsiParameter>();
+    List<PsiContext> allParameterContexts = new ArrayList<PsiContext>();
+    for (PsiJavaFile psiJavaFile : fixture.getFiles()) {
+      for (PsiClass psiClass : psiJavaFile.getClasses()) {
+        allClasses.add(psiClass);
+        if (PsiAnnotationUtil.isAnnotatedWith(psiClass, Mapper.class)) {
+          mappers.add(psiClass);
+        }
+        PsiContext psiContext = new PsiContext(psiJavaFile.getImportList(),
+            nameExtractor.extractPackageName(psiClass));
+        for (PsiMethod psiMethod : psiClass.getMethods()) {
+          allMethods.add(psiMethod);
+          allMethodContexts.add(psiContext);
+          for (PsiParameter psiParameter : psiMethod.getParameterList().getParameters()) {
+            allParameters.add(psiParameter);
+            allParameterContexts.add(psiContext);
+          }
+        }
+      }
+    }
+    classes = allClasses.toArray(new PsiClass[allClasses.size()]);
+    mapperClasses = mappers.toArray(new PsiClass[mappers.size()]);
+    methods = allMethods.toArray(new PsiMethod[allMethods.size()]);
+    methodContexts = allMethodContexts.toArray(new PsiContext[allMethodContexts.size()]);
+    parameters = allParameters.toArray(new PsiParameter[allParameters.size()]);
+    parameterContexts = allParameterContexts.toArray(new PsiContext[allParameterContexts.size()]);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.dispose();
+  }
+
+  /**
+   * Fresh copies of the classes annoted with @Mapper of the corpus, created before each invocation of the benchmark
+   * so that none of them has ever been parsed.
+   */
+  @State(Scope.Thread)
+  public static class FreshMapperClasses {
+    private PsiClass[] classes;
+
+    @Setup(Level.Invocation)
+    public void copy(final PsiParsingBenchmark benchmark) {
+      runReadAction(new Runnable() {
+        @Override
+        public void run() {
+          classes = benchmark.copyMapperClasses();
+        }
+      });
+    }
+  }
+
+  private PsiClass[] copyMapperClasses() {
+    PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(fixture.getFixture().getProject());
+    PsiClass[] res = new PsiClass[mapperClasses.length];
+    for (int i = 0; i < mapperClasses.length; i++) {
+      PsiJavaFile psiJavaFile = (PsiJavaFile) mapperClasses[i].getContainingFile();
+      PsiJavaFile copy = (PsiJavaFile) psiFileFactory.createFileFromText(
+          psiJavaFile.getName(), JavaFileType.INSTANCE, psiJavaFile.getText()
+      );
+      for (PsiClass psiClass : copy.getClasses()) {
+        if (psiClass.getName() != null && psiClass.getName().equals(mapperClasses[i].getName())) {
+          res[i] = psiClass;
+        }
+      }
+    }
+    return res;
+  }
+
+  @Benchmark
+  public void parse(final FreshMapperClasses freshMapperClasses, final Blackhole blackhole) {
+    runReadAction(new Runnable() {
+      @Override
+      public void run() {
+        for (PsiClass mapperClass : freshMapperClasses.classes) {
+          blackhole.consume(parsingService.parse(mapperClass));
+        }
+      }
+    });
+  }
+
+  @Benchmark
+  public void parseCached(final Blackhole blackhole) {
+    runReadAction(new Runnable() {
+      @Override
+      public void run() {
+        for (PsiClass mapperClass : mapperClasses) {
+          blackhole.consume(parsingService.parse(mapperClass));
+        }
+      }
+    });
+  }
+
+  @Benchmark
+  public void qualifiedNames(final Blackhole blackhole) {
+    runReadAction(new Runnable() {
+      @Override
+      public void run() {
+        for (PsiClass psiClass : classes) {
+          blackhole.consume(nameExtractor.extractPackageName(psiClass));
+          blackhole.consume(nameExtractor.qualifiedName(psiClass));
+        }
+      }
+    });
+  }
+
+  @Benchmark
+  public void types(final Blackhole blackhole) {
+    runReadAction(new Runnable() {
+      @Override
+      public void run() {
+        for (PsiClass psiClass : classes) {
+          blackhole.consume(typeExtractor.forClassOrEnum(psiClass));
+        }
+        for (int i = 0; i < methods.length; i++) {
+          blackhole.consume(typeExtractor.forMethod(methods[i], methodContexts[i]));
+        }
+        for (int i = 0; i < parameters.length; i++) {
+          blackhole.consume(typeExtractor.forParameter(parameters[i], parameterContexts[i]));
+        }
+      }
+    });
+  }
+
+  @Benchmark
+  public void modifiers(final Blackhole blackhole) {
+    runReadAction(new Runnable() {
+      @Override
+      public void run() {
+        for (PsiClass psiClass : classes) {
+          blackhole.consume(modifierExtractor.extractModifiers(psiClass));
+        }
+        for (PsiMethod psiMethod : methods) {
+          blackhole.consume(modifierExtractor.extractModifiers(psiMethod));
+        }
+        for (PsiParameter psiParameter : parameters) {
+          blackhole.consume(modifierExtractor.extractModifiers(psiParameter));
+        }
+      }
+    });
+  }
+
+  @Benchmark
+  public int isMapper() {
+    return runReadAction(new Computable<Integer>() {
+      @Override
+      public Integer compute() {
+        int res = 0;
+        for (PsiClass psiClass : classes) {
+          if (mapperDetector.isMapper(psiClass)) {
+            res++;
+          }
+        }
+        return res;
+      }
+    });
+  }
+
+  @Benchmark
+  public int isAnnotatedWithMapper() {
+    return runReadAction(new Computable<Integer>() {
+      @Override
+      public Integer compute() {
+        int res = 0;
+        for (PsiClass psiClass : classes) {
+          if (PsiAnnotationUtil.isAnnotatedWith(psiClass, Mapper.class)) {
+            res++;
+          }
+        }
+        return res;
+      }
+    });
+  }
+
+  private static void runReadAction(Runnable runnable) {
+    ApplicationManager.getApplication().runReadAction(runnable);
+  }
+
+  private static int runReadAction(Computable<Integer> computable) {
+    return ApplicationManager.getApplication().runReadAction(computable);
+  }
+}
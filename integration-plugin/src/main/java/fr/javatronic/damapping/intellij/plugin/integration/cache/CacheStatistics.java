@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * CacheStatistics - Thread safe counters of the requests made to a cache and of the requests which could not be
+ * served from the cache (ie. misses).
+ * <p>
+ * Caches built on IDEA's {@link com.intellij.psi.util.CachedValue} do not tell whether a value was computed or not,
+ * so callers record every request with {@link #request()} and record a miss with {@link #miss()} from the
+ * value provider. Hits are deduced from these two counters. Caches which drop entries before they are outdated
+ * (ie. because they are full) record these entries with {@link #evict(long)}.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class CacheStatistics {
+  @NotNull
+  private final String name;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public CacheStatistics(@NotNull String name) {
+    this.name = name;
+  }
+
+  @NotNull
+  public String getName() {
+    return name;
+  }
+
+  public void request() {
+    requests.incrementAndGet();
+  }
+
+  public void miss() {
+    misses.incrementAndGet();
+  }
+
+  public void evict(long count) {
+    evictions.addAndGet(count);
+  }
+
+  public long getRequests() {
+    return requests.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getHits() {
+    // counters are read independently, make sure a concurrent miss does not produce a negative value
+    return Math.max(0, requests.get() - misses.get());
+  }
+
+  /**
+   * @return the ratio of hits over requests, between 0 and 1, or 0 if no request has been made yet
+   */
+  public double getHitRate() {
+    long requestCount = requests.get();
+    if (requestCount == 0) {
+      return 0;
+    }
+    return Math.min(1d, (double) getHits() / requestCount);
+  }
+
+  public void reset() {
+    requests.set(0);
+    misses.set(0);
+    evictions.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s cache: %d requests, %d hits, %d misses (hit rate %.1f%%), %d evictions",
+        name, getRequests(), getHits(), getMisses(), getHitRate() * 100, getEvictions()
+    );
+  }
+}
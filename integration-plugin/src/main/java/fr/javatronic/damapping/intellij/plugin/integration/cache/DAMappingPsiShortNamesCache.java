@@ -15,44 +15,78 @@
  */
 package fr.javatronic.damapping.intellij.plugin.integration.cache;
 
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.DAMappingSupportManager;
 import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.index.AbstractMapperClassLocationIndex;
 import fr.javatronic.damapping.intellij.plugin.integration.index.GeneratedClassSimpleNameIndex;
+import fr.javatronic.damapping.intellij.plugin.integration.index.GeneratedFieldNameIndex;
+import fr.javatronic.damapping.intellij.plugin.integration.index.GeneratedMethodNameIndex;
+import fr.javatronic.damapping.intellij.plugin.integration.index.MapperClassLocation;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MetricsRegistry;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
 
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiField;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiJavaFile;
-import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.PsiShortNamesCache;
+import com.intellij.util.CommonProcessors;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.HashSet;
 import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * DAMappingPsiShortNamesCache -
+ * DAMappingPsiShortNamesCache - Makes the classes generated by DAMapping known to IDEA by their simple name.
+ * <p>
+ * Methods and fields of the generated classes are found by name thanks to the {@link GeneratedMethodNameIndex} and
+ * the {@link GeneratedFieldNameIndex}: only the classes generated from a class annoted with @Mapper which have a
+ * member with the requested name are generated.
+ * </p>
+ * <p>
+ * This cache is dumb aware: while indexes are being rebuilt, class lookups are served from the
+ * {@link GeneratedClassSnapshot} of the last known generated classes instead of querying the DAMapping indexes and
+ * members of generated classes are not available.
+ * </p>
  *
  * @author Sébastien Lesaint
  */
-public class DAMappingPsiShortNamesCache extends PsiShortNamesCache {
+public class DAMappingPsiShortNamesCache extends PsiShortNamesCache implements DumbAware {
 
-  private static final PsiMethod[] NO_PSI_METHODS = new PsiMethod[0];
-  private static final PsiField[] NO_PSI_FIELDS = new PsiField[0];
-  private static final String[] NO_NAMES = new String[0];
 
   private final Project project;
+  private final MapperModificationTracker modificationTracker;
+  private volatile ClassNamesSnapshot classNamesSnapshot;
+
+  /**
+   * @return the instance of this cache registered for the specified project, {@code null} if there is none
+   */
+  @Nullable
+  public static DAMappingPsiShortNamesCache getInstance(@NotNull Project project) {
+    for (PsiShortNamesCache cache : Extensions.getExtensions(PsiShortNamesCache.EP_NAME, project)) {
+      if (cache instanceof DAMappingPsiShortNamesCache) {
+        return (DAMappingPsiShortNamesCache) cache;
+      }
+    }
+    return null;
+  }
 
   public DAMappingPsiShortNamesCache(Project project) {
     this.project = project;
+    this.modificationTracker = new MapperModificationTracker(project);
   }
 
   /**
@@ -61,23 +95,57 @@ public class DAMappingPsiShortNamesCache extends PsiShortNamesCache {
    * class generated by DAMapping. If so, it uses
    * {@link ParseAndGenerateManager#getGeneratedPsiClasses(com.intellij.psi.PsiClass, com.intellij.psi.search.GlobalSearchScope)}
    * to retrieve the PsiClass of the requested name.
+   * Lookups in a scope which can not contain any class annoted with @Mapper return immediately, so do lookups of a
+   * name which is not in the up to date {@link SortedNameTable} of the names of the generated classes.
    */
   @NotNull
   @Override
   public PsiClass[] getClassesByName(@NotNull @NonNls String name, @NotNull GlobalSearchScope scope) {
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    if (!DAMappingSupportManager.getInstance(project).canContainMappers(scope)) {
+      metricsRegistry.traceCall(Operation.GET_CLASSES_BY_NAME, name, scope, 0);
+      return PsiClass.EMPTY_ARRAY;
+    }
+
+    long start = metricsRegistry.start(Operation.GET_CLASSES_BY_NAME);
+    try {
+      return doGetClassesByName(name, scope);
+    } finally {
+      metricsRegistry.stop(Operation.GET_CLASSES_BY_NAME, start, name, scope);
+    }
+  }
+
+  @NotNull
+  private PsiClass[] doGetClassesByName(@NotNull String name, @NotNull GlobalSearchScope scope) {
+    if (DumbService.getInstance(project).isDumb()) {
+      return getSnapshot().findBySimpleName(name, scope);
+    }
+
+    ClassNamesSnapshot current = classNamesSnapshot;
+    if (current != null && current.modificationCount == modificationTracker.getModificationCount()
+        && !current.table.contains(name)) {
+      return PsiClass.EMPTY_ARRAY;
+    }
+
+    try {
+      return getClassesByNameFromIndex(name, scope);
+    } catch (IndexNotReadyException e) {
+      // dumb mode started after the check above
+      return getSnapshot().findBySimpleName(name, scope);
+    }
+  }
+
+  @NotNull
+  private PsiClass[] getClassesByNameFromIndex(@NotNull String name, @NotNull GlobalSearchScope scope) {
+    List<PsiClass> mapperClasses = AbstractMapperClassLocationIndex.findMapperClasses(
+        GeneratedClassSimpleNameIndex.NAME, name, project, scope
+    );
     ParseAndGenerateManager parseAndGenerateManager = ParseAndGenerateManager.getInstance(project);
-    Collection<VirtualFile> files = FileBasedIndex.getInstance()
-                                               .getContainingFiles(GeneratedClassSimpleNameIndex.NAME, name, scope);
-    for (VirtualFile file : files) {
-      PsiManager psiManager = PsiManager.getInstance(project);
-      PsiFile psiFile = psiManager.findFile(file);
-      if (psiFile instanceof PsiJavaFile) {
-        PsiClass psiClass = ((PsiJavaFile) psiFile).getClasses()[0];
-        List<PsiClass> generatedPsiClasses = parseAndGenerateManager.getGeneratedPsiClasses(psiClass, scope);
-        for (PsiClass generatedPsiClass : generatedPsiClasses) {
-          if (name.equals(generatedPsiClass.getName())) {
-            return new PsiClass[] {generatedPsiClass};
-          }
+    for (PsiClass mapperClass : mapperClasses) {
+      List<PsiClass> generatedPsiClasses = parseAndGenerateManager.getGeneratedPsiClasses(mapperClass, scope);
+      for (PsiClass generatedPsiClass : generatedPsiClasses) {
+        if (name.equals(generatedPsiClass.getName())) {
+          return new PsiClass[] {generatedPsiClass};
         }
       }
     }
@@ -89,70 +157,255 @@ public class DAMappingPsiShortNamesCache extends PsiShortNamesCache {
    * Returns an array of the names of all the classes/interfaces generated by DAMapping in the current project.
    * This method relies on the {@link GeneratedClassSimpleNameIndex} to nuild the collection of PsiClass name
    * efficiently.
+   * No name is returned when the project does not have DAMapping in its classpath.
+   * <p>
+   * Keys of the index are read once per modification of the project into a {@link SortedNameTable} shared by
+   * subsequent calls and by {@link #getClassesByName(String, GlobalSearchScope)}. The returned array is a copy of this
+   * table: callers are free to modify it.
+   * </p>
    */
   @NotNull
   @Override
   public String[] getAllClassNames() {
-    Collection<String> allKeys = FileBasedIndex.getInstance().getAllKeys(GeneratedClassSimpleNameIndex.NAME, project);
-    return allKeys.toArray(new String[allKeys.size()]);
+    SortedNameTable table = getNameTable();
+    if (table == null) {
+      Set<String> names = getSnapshot().getAllSimpleNames();
+      return names.toArray(new String[names.size()]);
+    }
+    return table.toArray();
   }
 
+  /**
+   * Adds the names of all the classes/interfaces generated by DAMapping to the specified set, straight from the
+   * table of these names (see {@link #getAllClassNames()}), without building any intermediate array.
+   */
   @Override
   public void getAllClassNames(@NotNull HashSet<String> dest) {
-    dest.addAll(Arrays.asList(getAllClassNames()));
+    SortedNameTable table = getNameTable();
+    if (table == null) {
+      dest.addAll(getSnapshot().getAllSimpleNames());
+    }
+    else {
+      table.addAllTo(dest);
+    }
+  }
+
+  /**
+   * @return the table of the names of the classes generated by DAMapping, {@code null} in dumb mode
+   */
+  @Nullable
+  private SortedNameTable getNameTable() {
+    if (!DAMappingSupportManager.getInstance(project).isActive()) {
+      return SortedNameTable.EMPTY;
+    }
+    if (DumbService.getInstance(project).isDumb()) {
+      return null;
+    }
+
+    long modificationCount = modificationTracker.getModificationCount();
+    ClassNamesSnapshot current = classNamesSnapshot;
+    if (current != null && current.modificationCount == modificationCount) {
+      return current.table;
+    }
+
+    final Set<String> names = new HashSet<String>();
+    try {
+      FileBasedIndex.getInstance().processAllKeys(GeneratedClassSimpleNameIndex.NAME, new Processor<String>() {
+        @Override
+        public boolean process(String name) {
+          names.add(name);
+          return true;
+        }
+      }, project
+      );
+    } catch (IndexNotReadyException e) {
+      // dumb mode started after the check above
+      return null;
+    }
+    SortedNameTable previousTable = current == null ? SortedNameTable.EMPTY : current.table;
+    ClassNamesSnapshot snapshot = new ClassNamesSnapshot(modificationCount, previousTable.withNames(names));
+    classNamesSnapshot = snapshot;
+    return snapshot.table;
+  }
+
+  @NotNull
+  private GeneratedClassSnapshot getSnapshot() {
+    return ParseAndGenerateManager.getInstance(project).getGeneratedClassSnapshot();
+  }
+
+  /**
+   * The table of the names of all the classes generated by DAMapping, valid as long as the modification count of the
+   * {@link MapperModificationTracker} does not change. A new table is built from the previous one (see
+   * {@link SortedNameTable#withNames(Set)}): most modifications of the project do not change the set of generated
+   * classes and the previous table is then reused as is.
+   */
+  private static final class ClassNamesSnapshot {
+    private final long modificationCount;
+    @NotNull
+    private final SortedNameTable table;
+
+    private ClassNamesSnapshot(long modificationCount, @NotNull SortedNameTable table) {
+      this.modificationCount = modificationCount;
+      this.table = table;
+    }
   }
 
   @NotNull
   @Override
   public PsiMethod[] getMethodsByName(@NonNls @NotNull String name, @NotNull GlobalSearchScope scope) {
-    return NO_PSI_METHODS;
+    CommonProcessors.CollectProcessor<PsiMethod> processor = new CommonProcessors.CollectProcessor<PsiMethod>();
+    processMethodsWithName(name, scope, processor);
+    return processor.toArray(PsiMethod.EMPTY_ARRAY);
   }
 
   @NotNull
   @Override
   public PsiMethod[] getMethodsByNameIfNotMoreThan(@NonNls @NotNull String name, @NotNull GlobalSearchScope scope,
                                                    int maxCount) {
-    return NO_PSI_METHODS;
+    CommonProcessors.CollectProcessor<PsiMethod> processor = new LimitedCollectProcessor<PsiMethod>(maxCount);
+    processMethodsWithName(name, scope, processor);
+    return processor.toArray(PsiMethod.EMPTY_ARRAY);
   }
 
   @NotNull
   @Override
   public PsiField[] getFieldsByNameIfNotMoreThan(@NonNls @NotNull String name, @NotNull GlobalSearchScope scope,
                                                  int maxCount) {
-    return NO_PSI_FIELDS;
+    CommonProcessors.CollectProcessor<PsiField> processor = new LimitedCollectProcessor<PsiField>(maxCount);
+    processFieldsWithName(name, scope, processor);
+    return processor.toArray(PsiField.EMPTY_ARRAY);
   }
 
+  /**
+   * Only the classes generated from the classes annoted with @Mapper which have a method with the specified name
+   * (according to the {@link GeneratedMethodNameIndex}) are generated.
+   */
   @Override
   public boolean processMethodsWithName(@NonNls @NotNull String name, @NotNull GlobalSearchScope scope,
                                         @NotNull Processor<PsiMethod> processor) {
-    return false;
+    for (PsiClass generatedPsiClass : findGeneratedClassesWithMember(GeneratedMethodNameIndex.NAME, name, scope)) {
+      for (PsiMethod psiMethod : generatedPsiClass.findMethodsByName(name, false)) {
+        if (!processor.process(psiMethod)) {
+          return false;
+        }
+      }
+    }
+    return true;
   }
 
   @NotNull
   @Override
   public String[] getAllMethodNames() {
-    return NO_NAMES;
+    HashSet<String> names = new HashSet<String>();
+    getAllMethodNames(names);
+    return names.toArray(new String[names.size()]);
   }
 
   @Override
   public void getAllMethodNames(@NotNull HashSet<String> set) {
-    // do nothing -- not supported
+    collectAllKeys(GeneratedMethodNameIndex.NAME, set);
   }
 
   @NotNull
   @Override
   public PsiField[] getFieldsByName(@NotNull @NonNls String name, @NotNull GlobalSearchScope scope) {
-    return NO_PSI_FIELDS;
+    CommonProcessors.CollectProcessor<PsiField> processor = new CommonProcessors.CollectProcessor<PsiField>();
+    processFieldsWithName(name, scope, processor);
+    return processor.toArray(PsiField.EMPTY_ARRAY);
+  }
+
+  /**
+   * Only the classes generated from the classes annoted with @Mapper which have a field with the specified name
+   * (according to the {@link GeneratedFieldNameIndex}) are generated.
+   */
+  private boolean processFieldsWithName(@NotNull String name, @NotNull GlobalSearchScope scope,
+                                        @NotNull Processor<PsiField> processor) {
+    for (PsiClass generatedPsiClass : findGeneratedClassesWithMember(GeneratedFieldNameIndex.NAME, name, scope)) {
+      PsiField psiField = generatedPsiClass.findFieldByName(name, false);
+      if (psiField != null && !processor.process(psiField)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @NotNull
   @Override
   public String[] getAllFieldNames() {
-    return NO_NAMES;
+    HashSet<String> names = new HashSet<String>();
+    getAllFieldNames(names);
+    return names.toArray(new String[names.size()]);
   }
 
   @Override
   public void getAllFieldNames(@NotNull HashSet<String> set) {
-    // do nothing -- not supported
+    collectAllKeys(GeneratedFieldNameIndex.NAME, set);
+  }
+
+  /**
+   * Retrieves the classes generated from the classes annoted with @Mapper indexed with the specified member name in
+   * the specified index. Members of generated classes are not available in dumb mode.
+   */
+  @NotNull
+  private List<PsiClass> findGeneratedClassesWithMember(@NotNull ID<String, List<MapperClassLocation>> indexId,
+                                                        @NotNull String name, @NotNull GlobalSearchScope scope) {
+    if (!DAMappingSupportManager.getInstance(project).canContainMappers(scope)
+        || DumbService.getInstance(project).isDumb()) {
+      return Collections.emptyList();
+    }
+
+    List<PsiClass> mapperClasses;
+    try {
+      mapperClasses = AbstractMapperClassLocationIndex.findMapperClasses(indexId, name, project, scope);
+    } catch (IndexNotReadyException e) {
+      // dumb mode started after the check above
+      return Collections.emptyList();
+    }
+    if (mapperClasses.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    ParseAndGenerateManager parseAndGenerateManager = ParseAndGenerateManager.getInstance(project);
+    List<PsiClass> res = new ArrayList<PsiClass>(mapperClasses.size());
+    for (PsiClass mapperClass : mapperClasses) {
+      res.addAll(parseAndGenerateManager.getGeneratedPsiClasses(mapperClass, scope));
+    }
+    return res;
+  }
+
+  private void collectAllKeys(@NotNull ID<String, List<MapperClassLocation>> indexId,
+                              @NotNull final HashSet<String> dest) {
+    if (!DAMappingSupportManager.getInstance(project).isActive() || DumbService.getInstance(project).isDumb()) {
+      return;
+    }
+
+    try {
+      FileBasedIndex.getInstance().processAllKeys(indexId, new Processor<String>() {
+        @Override
+        public boolean process(String name) {
+          dest.add(name);
+          return true;
+        }
+      }, project
+      );
+    } catch (IndexNotReadyException e) {
+      // dumb mode started after the check above, members of generated classes are not available
+    }
+  }
+
+  /**
+   * CollectProcessor which stops the iteration once the specified number of elements has been collected.
+   */
+  private static final class LimitedCollectProcessor<T> extends CommonProcessors.CollectProcessor<T> {
+    private final int maxCount;
+
+    private LimitedCollectProcessor(int maxCount) {
+      this.maxCount = maxCount;
+    }
+
+    @Override
+    public boolean process(T t) {
+      return super.process(t) && getResults().size() < maxCount;
+    }
   }
 }
@@ -0,0 +1,413 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.index.MapperClassLocation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * GeneratedClassSnapshot - Names of the classes last known to be generated from each class annoted with @Mapper,
+ * indexed by qualified name, simple name and package name, with the location of the class annoted with @Mapper they
+ * are generated from.
+ * <p>
+ * The DAMapping indexes can not be queried while IDEA is in dumb mode (ie. while indexes are being rebuilt). This
+ * snapshot allows the element finder and the short names cache to keep serving the generated classes known before
+ * dumb mode started, instead of blocking or failing with {@link com.intellij.openapi.project.IndexNotReadyException}.
+ * </p>
+ * <p>
+ * Only names and locations are stored, no PSI: a generated PsiClass is resolved on lookup, from the class annoted
+ * with @Mapper through the generation cache of {@link ParseAndGenerateManager}. Source files are referenced by URL so
+ * that the snapshot can be saved when the project is closed and loaded when it is opened again (see
+ * {@link #save(File)} and {@link #load(File)}): dumb mode right after a restart is served too. Stale entries (a
+ * class modified while the project was closed, ...) resolve to nothing and are replaced as soon as classes are
+ * generated again.
+ * </p>
+ * <p>
+ * Updates happen each time classes are generated from a class annoted with @Mapper and only touch the entries of this
+ * class, while reads are frequent and may happen from any thread: entries are stored in concurrent maps, writers are
+ * serialized. Entries of a source file are removed when the file is deleted, renamed or moved (see
+ * {@link #removeUnder(VirtualFile)}): they would otherwise keep being served under the old URL of the file.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class GeneratedClassSnapshot {
+  private static final int FORMAT_VERSION = 1;
+
+  @NotNull
+  private final Project project;
+  /**
+   * entries by URL of source file and qualified name of class annoted with @Mapper, guarded by {@code this}
+   */
+  private final Map<String, Map<String, List<Entry>>> bySourceFile = new HashMap<String, Map<String, List<Entry>>>();
+  private final ConcurrentMap<String, Set<Entry>> byQualifiedName = new ConcurrentHashMap<String, Set<Entry>>();
+  private final ConcurrentMap<String, Set<Entry>> bySimpleName = new ConcurrentHashMap<String, Set<Entry>>();
+  private final ConcurrentMap<String, Set<Entry>> byPackageName = new ConcurrentHashMap<String, Set<Entry>>();
+
+  public GeneratedClassSnapshot(@NotNull Project project) {
+    this.project = project;
+  }
+
+  /**
+   * Replaces the names of the classes generated from the class annoted with @Mapper at the specified location in the
+   * specified source file. An empty list removes the classes generated from this class, if there is any.
+   */
+  public synchronized void update(@NotNull VirtualFile sourceFile, @NotNull MapperClassLocation mapperLocation,
+                                  @NotNull List<String> generatedQualifiedNames) {
+    String sourceFileUrl = sourceFile.getUrl();
+    Map<String, List<Entry>> byMapper = bySourceFile.get(sourceFileUrl);
+    List<Entry> previous = byMapper == null ? null : byMapper.get(mapperLocation.getQualifiedName());
+    if (previous != null && hasSameClasses(previous, mapperLocation, generatedQualifiedNames)) {
+      return;
+    }
+    if (previous != null) {
+      removeEntries(previous);
+    }
+    if (generatedQualifiedNames.isEmpty()) {
+      if (byMapper != null) {
+        byMapper.remove(mapperLocation.getQualifiedName());
+        if (byMapper.isEmpty()) {
+          bySourceFile.remove(sourceFileUrl);
+        }
+      }
+      return;
+    }
+
+    List<Entry> entries = new ArrayList<Entry>(generatedQualifiedNames.size());
+    for (String qualifiedName : generatedQualifiedNames) {
+      Entry entry = new Entry(sourceFileUrl, mapperLocation, qualifiedName);
+      entries.add(entry);
+      addEntry(byQualifiedName, qualifiedName, entry);
+      addEntry(bySimpleName, entry.getSimpleName(), entry);
+      addEntry(byPackageName, entry.getPackageName(), entry);
+    }
+    if (byMapper == null) {
+      byMapper = new HashMap<String, List<Entry>>(2);
+      bySourceFile.put(sourceFileUrl, byMapper);
+    }
+    byMapper.put(mapperLocation.getQualifiedName(), entries);
+  }
+
+  /**
+   * Removes the classes generated from the specified source file or, if it is a directory, from any source file
+   * under it.
+   */
+  public synchronized void removeUnder(@NotNull VirtualFile fileOrDirectory) {
+    String url = fileOrDirectory.getUrl();
+    if (!fileOrDirectory.isDirectory()) {
+      remove(url);
+      return;
+    }
+
+    String urlPrefix = url + "/";
+    for (String sourceFileUrl : new ArrayList<String>(bySourceFile.keySet())) {
+      if (sourceFileUrl.startsWith(urlPrefix)) {
+        remove(sourceFileUrl);
+      }
+    }
+  }
+
+  private void remove(@NotNull String sourceFileUrl) {
+    Map<String, List<Entry>> byMapper = bySourceFile.remove(sourceFileUrl);
+    if (byMapper != null) {
+      for (List<Entry> entries : byMapper.values()) {
+        removeEntries(entries);
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    bySourceFile.clear();
+    byQualifiedName.clear();
+    bySimpleName.clear();
+    byPackageName.clear();
+  }
+
+  /**
+   * @return the number of source files from which classes are known
+   */
+  public synchronized int size() {
+    return bySourceFile.size();
+  }
+
+  @NotNull
+  public PsiClass[] findByQualifiedName(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
+    return resolve(byQualifiedName.get(qualifiedName), scope);
+  }
+
+  @NotNull
+  public PsiClass[] findBySimpleName(@NotNull String simpleName, @NotNull GlobalSearchScope scope) {
+    return resolve(bySimpleName.get(simpleName), scope);
+  }
+
+  @NotNull
+  public PsiClass[] findByPackageName(@NotNull String packageName, @NotNull GlobalSearchScope scope) {
+    return resolve(byPackageName.get(packageName), scope);
+  }
+
+  /**
+   * The simple names of the classes generated in the specified package from source files in the specified scope. No
+   * PsiClass is resolved.
+   */
+  @NotNull
+  public Set<String> getClassNames(@NotNull String packageName, @NotNull GlobalSearchScope scope) {
+    Set<Entry> entries = byPackageName.get(packageName);
+    if (entries == null || entries.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    Set<String> res = new HashSet<String>();
+    for (Entry entry : entries) {
+      if (findSourceFile(entry, scope) != null) {
+        res.add(entry.getSimpleName());
+      }
+    }
+    return res;
+  }
+
+  @NotNull
+  public Set<String> getAllSimpleNames() {
+    return Collections.unmodifiableSet(bySimpleName.keySet());
+  }
+
+  /**
+   * Saves the entries of the snapshot to the specified file.
+   */
+  public synchronized void save(@NotNull File file) throws IOException {
+    File parent = file.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Can not create directory " + parent);
+    }
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(countMappers());
+      for (Map<String, List<Entry>> byMapper : bySourceFile.values()) {
+        for (List<Entry> entries : byMapper.values()) {
+          Entry first = entries.get(0);
+          out.writeUTF(first.sourceFileUrl);
+          MapperClassLocation.EXTERNALIZER.save(out, first.mapperLocation);
+          out.writeInt(entries.size());
+          for (Entry entry : entries) {
+            out.writeUTF(entry.qualifiedName);
+          }
+        }
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Loads the entries saved to the specified file by {@link #save(File)}, if it exists, in place of the current
+   * entries of the snapshot.
+   *
+   * @return {@code false} if the file does not exist or was saved with another format
+   */
+  public synchronized boolean load(@NotNull File file) throws IOException {
+    if (!file.isFile()) {
+      return false;
+    }
+
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (in.readInt() != FORMAT_VERSION) {
+        return false;
+      }
+      clear();
+      int mapperCount = in.readInt();
+      for (int i = 0; i < mapperCount; i++) {
+        String sourceFileUrl = in.readUTF();
+        MapperClassLocation mapperLocation = MapperClassLocation.EXTERNALIZER.read(in);
+        int count = in.readInt();
+        List<String> qualifiedNames = new ArrayList<String>(count);
+        for (int j = 0; j < count; j++) {
+          qualifiedNames.add(in.readUTF());
+        }
+        VirtualFile sourceFile = VirtualFileManager.getInstance().findFileByUrl(sourceFileUrl);
+        if (sourceFile != null) {
+          update(sourceFile, mapperLocation, qualifiedNames);
+        }
+      }
+      return true;
+    } finally {
+      in.close();
+    }
+  }
+
+  private int countMappers() {
+    int res = 0;
+    for (Map<String, List<Entry>> byMapper : bySourceFile.values()) {
+      res += byMapper.size();
+    }
+    return res;
+  }
+
+  private void removeEntries(@NotNull List<Entry> entries) {
+    for (Entry entry : entries) {
+      removeEntry(byQualifiedName, entry.qualifiedName, entry);
+      removeEntry(bySimpleName, entry.getSimpleName(), entry);
+      removeEntry(byPackageName, entry.getPackageName(), entry);
+    }
+  }
+
+  private static void addEntry(@NotNull ConcurrentMap<String, Set<Entry>> map, @NotNull String key,
+                               @NotNull Entry entry) {
+    Set<Entry> entries = map.get(key);
+    if (entries == null) {
+      entries = Collections.newSetFromMap(new ConcurrentHashMap<Entry, Boolean>(2));
+      map.put(key, entries);
+    }
+    entries.add(entry);
+  }
+
+  private static void removeEntry(@NotNull ConcurrentMap<String, Set<Entry>> map, @NotNull String key,
+                                  @NotNull Entry entry) {
+    Set<Entry> entries = map.get(key);
+    if (entries != null && entries.remove(entry) && entries.isEmpty()) {
+      map.remove(key);
+    }
+  }
+
+  private static boolean hasSameClasses(@NotNull List<Entry> entries, @NotNull MapperClassLocation mapperLocation,
+                                        @NotNull List<String> generatedQualifiedNames) {
+    if (entries.size() != generatedQualifiedNames.size()) {
+      return false;
+    }
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (!entry.mapperLocation.equals(mapperLocation)
+          || !entry.qualifiedName.equals(generatedQualifiedNames.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Resolves the generated classes of the specified entries from the classes annoted with @Mapper they are generated
+   * from. Classes which can not be generated in dumb mode (ie. their generation is not cached and requires indexes)
+   * are skipped.
+   */
+  @NotNull
+  private PsiClass[] resolve(@Nullable Set<Entry> entries, @NotNull GlobalSearchScope scope) {
+    if (entries == null || entries.isEmpty()) {
+      return PsiClass.EMPTY_ARRAY;
+    }
+
+    List<PsiClass> res = new ArrayList<PsiClass>(entries.size());
+    for (Entry entry : entries) {
+      PsiClass psiClass = resolve(entry, scope);
+      if (psiClass != null) {
+        res.add(psiClass);
+      }
+    }
+    return res.toArray(new PsiClass[res.size()]);
+  }
+
+  @Nullable
+  private PsiClass resolve(@NotNull Entry entry, @NotNull GlobalSearchScope scope) {
+    VirtualFile sourceFile = findSourceFile(entry, scope);
+    if (sourceFile == null) {
+      return null;
+    }
+    PsiFile psiFile = PsiManager.getInstance(project).findFile(sourceFile);
+    if (psiFile == null) {
+      return null;
+    }
+    PsiClass mapperClass = entry.mapperLocation.findPsiClass(psiFile);
+    if (mapperClass == null) {
+      return null;
+    }
+
+    try {
+      for (PsiClass generatedClass : ParseAndGenerateManager.getInstance(project)
+                                                            .getGeneratedPsiClasses(mapperClass, scope)) {
+        if (entry.qualifiedName.equals(generatedClass.getQualifiedName())) {
+          return generatedClass;
+        }
+      }
+    } catch (IndexNotReadyException e) {
+      // generation is not cached and can not be done in dumb mode
+    }
+    return null;
+  }
+
+  @Nullable
+  private static VirtualFile findSourceFile(@NotNull Entry entry, @NotNull GlobalSearchScope scope) {
+    VirtualFile sourceFile = VirtualFileManager.getInstance().findFileByUrl(entry.sourceFileUrl);
+    if (sourceFile == null || !sourceFile.isValid() || !scope.contains(sourceFile)) {
+      return null;
+    }
+    return sourceFile;
+  }
+
+  private static final class Entry {
+    @NotNull
+    private final String sourceFileUrl;
+    @NotNull
+    private final MapperClassLocation mapperLocation;
+    @NotNull
+    private final String qualifiedName;
+
+    private Entry(@NotNull String sourceFileUrl, @NotNull MapperClassLocation mapperLocation,
+                  @NotNull String qualifiedName) {
+      this.sourceFileUrl = sourceFileUrl;
+      this.mapperLocation = mapperLocation;
+      this.qualifiedName = qualifiedName;
+    }
+
+    @NotNull
+    private String getSimpleName() {
+      return StringUtil.getShortName(qualifiedName);
+    }
+
+    @NotNull
+    private String getPackageName() {
+      return StringUtil.getPackageName(qualifiedName);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.DAMappingSupportManager;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.util.PsiModificationTracker;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * MapperModificationTracker - Modification tracker which changes when the set of classes annoted with @Mapper or the
+ * classes generated from them may have changed: any change to the structure of a class (the content of the DAMapping
+ * indexes changes accordingly) or any change to the roots of the project.
+ *
+ * @author Sébastien Lesaint
+ */
+public final class MapperModificationTracker implements ModificationTracker {
+  @NotNull
+  private final Project project;
+
+  public MapperModificationTracker(@NotNull Project project) {
+    this.project = project;
+  }
+
+  @Override
+  public long getModificationCount() {
+    return PsiModificationTracker.SERVICE.getInstance(project).getOutOfCodeBlockModificationCount()
+        + DAMappingSupportManager.getInstance(project).getModificationCount();
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.intellij.openapi.util.ModificationTracker;
+import org.jetbrains.annotations.NotNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * NegativeLookupCache - Bounded cache of the names which are known not to be the name of any class generated by
+ * DAMapping in the project.
+ * <p>
+ * Entries do not depend on the scope of the lookup: scopes are created on the fly by IDEA and most of them do not
+ * implement {@code equals}, entries keyed on them would never be hit again while keeping the scopes from being garbage
+ * collected. Callers must therefore only record names which can not be found in any scope of the project.
+ * </p>
+ * <p>
+ * All entries are dropped as soon as the modification count of the {@link ModificationTracker} specified at
+ * creation changes. To avoid caching a result computed against an outdated state, callers must read
+ * {@link #getModificationCount()} <strong>before</strong> doing the lookup and pass it to
+ * {@link #putMissing(String, long)}.
+ * </p>
+ * <p>
+ * When the maximum number of entries is reached, the cache is cleared: names looked up over and over come back
+ * quickly while the cache can not grow indefinitely.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class NegativeLookupCache {
+  @NotNull
+  private final ModificationTracker modificationTracker;
+  private final int maxSize;
+  @NotNull
+  private final CacheStatistics statistics;
+  private final ConcurrentMap<String, Boolean> entries = new ConcurrentHashMap<String, Boolean>();
+  private volatile long entriesModificationCount = -1;
+
+  public NegativeLookupCache(@NotNull ModificationTracker modificationTracker, int maxSize,
+                             @NotNull CacheStatistics statistics) {
+    checkArgument(maxSize > 0, "maxSize must be > 0");
+    this.modificationTracker = checkNotNull(modificationTracker);
+    this.maxSize = maxSize;
+    this.statistics = checkNotNull(statistics);
+  }
+
+  @NotNull
+  public CacheStatistics getStatistics() {
+    return statistics;
+  }
+
+  public long getModificationCount() {
+    return modificationTracker.getModificationCount();
+  }
+
+  /**
+   * Tells whether the specified name is known not to be the name of any class generated by DAMapping.
+   */
+  public boolean isKnownMissing(@NotNull String name) {
+    statistics.request();
+    checkModificationCount(modificationTracker.getModificationCount());
+    if (entries.containsKey(name)) {
+      return true;
+    }
+    statistics.miss();
+    return false;
+  }
+
+  /**
+   * Records that the specified name is not the name of any class generated by DAMapping.
+   *
+   * @param modificationCount the value of {@link #getModificationCount()} before the lookup was done, the result is
+   *                          not recorded if it has changed since
+   */
+  public void putMissing(@NotNull String name, long modificationCount) {
+    if (modificationCount != modificationTracker.getModificationCount()) {
+      return;
+    }
+
+    checkModificationCount(modificationCount);
+    int size = entries.size();
+    if (size >= maxSize) {
+      entries.clear();
+      statistics.evict(size);
+    }
+    entries.put(name, Boolean.TRUE);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  private void checkModificationCount(long modificationCount) {
+    if (entriesModificationCount == modificationCount) {
+      return;
+    }
+    synchronized (this) {
+      if (entriesModificationCount != modificationCount) {
+        entries.clear();
+        entriesModificationCount = modificationCount;
+      }
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * SortedNameTable - Immutable and compact table of names: a single array of distinct names in the natural order of
+ * String.
+ * <p>
+ * Looking up a name is a binary search, the table is never sorted again once built: when the set of names changes,
+ * {@link #withNames(Set)} keeps the names still present in place and merges the sorted new names into them.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class SortedNameTable {
+  public static final SortedNameTable EMPTY = new SortedNameTable(new String[0]);
+
+  @NotNull
+  private final String[] names;
+
+  private SortedNameTable(@NotNull String[] sortedNames) {
+    this.names = sortedNames;
+  }
+
+  @NotNull
+  public static SortedNameTable of(@NotNull Set<String> names) {
+    return EMPTY.withNames(names);
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  public boolean contains(@NotNull String name) {
+    return Arrays.binarySearch(names, name) >= 0;
+  }
+
+  /**
+   * @return a copy of the names in the table, sorted
+   */
+  @NotNull
+  public String[] toArray() {
+    return names.clone();
+  }
+
+  /**
+   * Adds all the names in the table to the specified collection.
+   */
+  public void addAllTo(@NotNull Collection<String> dest) {
+    for (String name : names) {
+      dest.add(name);
+    }
+  }
+
+  /**
+   * Returns a table of the specified names, built from this table: only the names which are not in this table are
+   * sorted, and this table itself is returned if it already contains exactly the specified names.
+   */
+  @NotNull
+  public SortedNameTable withNames(@NotNull Set<String> newNames) {
+    List<String> added = new ArrayList<String>();
+    for (String name : newNames) {
+      if (!contains(name)) {
+        added.add(name);
+      }
+    }
+    int kept = 0;
+    for (String name : names) {
+      if (newNames.contains(name)) {
+        kept++;
+      }
+    }
+    if (added.isEmpty() && kept == names.length) {
+      return this;
+    }
+
+    String[] sortedAdded = added.toArray(new String[added.size()]);
+    Arrays.sort(sortedAdded);
+    String[] res = new String[kept + sortedAdded.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < names.length || j < sortedAdded.length) {
+      if (i < names.length && !newNames.contains(names[i])) {
+        i++;
+      }
+      else if (j == sortedAdded.length || (i < names.length && names[i].compareTo(sortedAdded[j]) < 0)) {
+        res[k++] = names[i++];
+      }
+      else {
+        res[k++] = sortedAdded[j++];
+      }
+    }
+    return new SortedNameTable(res);
+  }
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.component.project;
+
+import fr.javatronic.damapping.annotation.Mapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootAdapter;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * DAMappingSupportManager - Project component which tells which modules of the project have DAMapping in their
+ * classpath and, from there, which {@link GlobalSearchScope} can contain classes annoted with @Mapper.
+ * <p>
+ * A module has DAMapping in its classpath when the class or the source file of
+ * {@link fr.javatronic.damapping.annotation.Mapper} can be found in the roots of the module, of its dependencies or
+ * of its libraries. Results are cached per module, along with the list of the modules which have DAMapping in their
+ * classpath, and these caches are dropped when the roots of the project change or when a file named like the class
+ * or the source file of @Mapper is created, moved or deleted (which happens when DAMapping is part of the sources of
+ * the project).
+ * </p>
+ * <p>
+ * The project is said to be active when at least one of its modules has DAMapping in its classpath. All DAMapping
+ * extensions must check {@link #isActive()} first and do nothing when the project is not active, so that the plugin
+ * has no overhead in projects which do not use DAMapping. Indexers are the exception: indexes are shared by all the
+ * open projects, they only rely on the content of the indexed file.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingSupportManager implements ProjectComponent, ModificationTracker {
+  private static final Logger LOGGER = Logger.getInstance(DAMappingSupportManager.class.getName());
+
+  private static final String MAPPER_PATH = Mapper.class.getName().replace('.', '/');
+  private static final String MAPPER_CLASS_FILE = MAPPER_PATH + ".class";
+  private static final String MAPPER_SOURCE_FILE = MAPPER_PATH + ".java";
+
+  private final Project project;
+  private final ConcurrentMap<Module, Boolean> moduleSupportCache = new ConcurrentHashMap<Module, Boolean>();
+  private final AtomicLong modificationCount = new AtomicLong();
+  /**
+   * modules which have DAMapping in their classpath, {@code null} until computed
+   */
+  private volatile List<Module> supportedModules;
+  private MessageBusConnection connection;
+
+  @NotNull
+  public static DAMappingSupportManager getInstance(@NotNull Project project) {
+    return project.getComponent(DAMappingSupportManager.class);
+  }
+
+  public DAMappingSupportManager(Project project) {
+    this.project = project;
+    LOGGER.debug("DAMappingSupportManager created");
+  }
+
+  /**
+   * Tells whether the specified scope can contain classes annoted with @Mapper, ie. whether it includes the content
+   * of any module which has DAMapping in its classpath.
+   * <p>
+   * This method is designed to be called from the hottest extension points of IDEA (element finder, short names
+   * cache, ...). Scopes are created on the fly by IDEA and most of them do not implement {@code equals}, so results
+   * are not cached per scope: only the modules which have DAMapping in their classpath, computed once until the roots
+   * of the project change, are tested against the scope.
+   * </p>
+   */
+  public boolean canContainMappers(@NotNull GlobalSearchScope scope) {
+    for (Module module : getSupportedModules()) {
+      if (scope.isSearchInModuleContent(module)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tells whether any module of the project has DAMapping in its classpath.
+   * <p>
+   * Once computed, the result is returned in constant time until the roots of the project change.
+   * </p>
+   */
+  public boolean isActive() {
+    return !getSupportedModules().isEmpty();
+  }
+
+  /**
+   * Tells whether the specified module has DAMapping in its classpath.
+   */
+  public boolean isSupported(@NotNull Module module) {
+    Boolean cached = moduleSupportCache.get(module);
+    if (cached != null) {
+      return cached;
+    }
+
+    boolean res = computeModuleSupport(module);
+    moduleSupportCache.put(module, res);
+    return res;
+  }
+
+  /**
+   * A counter incremented each time the cached support information is dropped, ie. each time the roots of the
+   * project change.
+   */
+  @Override
+  public long getModificationCount() {
+    return modificationCount.get();
+  }
+
+  @NotNull
+  private List<Module> getSupportedModules() {
+    List<Module> res = supportedModules;
+    if (res == null) {
+      res = computeSupportedModules();
+      supportedModules = res;
+    }
+    return res;
+  }
+
+  @NotNull
+  private List<Module> computeSupportedModules() {
+    List<Module> res = new ArrayList<Module>();
+    for (Module module : ModuleManager.getInstance(project).getModules()) {
+      if (isSupported(module)) {
+        res.add(module);
+      }
+    }
+    return res.isEmpty() ? Collections.<Module>emptyList() : Collections.unmodifiableList(res);
+  }
+
+  private static boolean computeModuleSupport(@NotNull Module module) {
+    OrderEnumerator orderEnumerator = OrderEnumerator.orderEntries(module).withoutSdk().recursively();
+    return containsFile(orderEnumerator.getClassesRoots(), MAPPER_CLASS_FILE)
+        || containsFile(orderEnumerator.getSourceRoots(), MAPPER_SOURCE_FILE);
+  }
+
+  private static boolean containsFile(@NotNull VirtualFile[] roots, @NotNull String relativePath) {
+    for (VirtualFile root : roots) {
+      if (root.isValid() && root.findFileByRelativePath(relativePath) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void clearCaches() {
+    moduleSupportCache.clear();
+    supportedModules = null;
+    modificationCount.incrementAndGet();
+  }
+
+  @Override
+  public void projectOpened() {
+    // do nothing
+  }
+
+  @Override
+  public void projectClosed() {
+    // do nothing
+  }
+
+  @Override
+  public void initComponent() {
+    connection = project.getMessageBus().connect();
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter() {
+      @Override
+      public void rootsChanged(ModuleRootEvent event) {
+        clearCaches();
+      }
+    }
+    );
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        if (isMapperFileEvent(events)) {
+          clearCaches();
+        }
+      }
+    }
+    );
+  }
+
+  private static boolean isMapperFileEvent(@NotNull List<? extends VFileEvent> events) {
+    for (VFileEvent event : events) {
+      String path = event.getPath();
+      if (path.endsWith(MAPPER_SOURCE_FILE) || path.endsWith(MAPPER_CLASS_FILE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void disposeComponent() {
+    if (connection != null) {
+      connection.disconnect();
+    }
+    clearCaches();
+  }
+
+  @NotNull
+  @Override
+  public String getComponentName() {
+    return this.getClass().getSimpleName();
+  }
+}
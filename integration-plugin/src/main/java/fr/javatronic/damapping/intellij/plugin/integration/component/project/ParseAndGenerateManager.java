@@ -15,10 +15,20 @@
  */
 package fr.javatronic.damapping.intellij.plugin.integration.component.project;
 
-import fr.javatronic.damapping.intellij.plugin.integration.provider.Common;
+import fr.javatronic.damapping.intellij.plugin.integration.cache.CacheStatistics;
+import fr.javatronic.damapping.intellij.plugin.integration.cache.GeneratedClassSnapshot;
+import fr.javatronic.damapping.intellij.plugin.integration.index.GeneratedMemberNames;
+import fr.javatronic.damapping.intellij.plugin.integration.index.MapperClassLocation;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MapperCostTracker;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MetricsRegistry;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
 import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiParsingService;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.CachedPsiParsingServiceImpl;
 import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.PsiParsingServiceImpl;
+import fr.javatronic.damapping.processor.model.DAName;
 import fr.javatronic.damapping.processor.model.DASourceClass;
+import fr.javatronic.damapping.processor.model.DAType;
 import fr.javatronic.damapping.processor.sourcegenerator.GeneratedFileDescriptor;
 import fr.javatronic.damapping.processor.sourcegenerator.GenerationContext;
 import fr.javatronic.damapping.processor.sourcegenerator.GenerationContextComputer;
@@ -31,6 +41,7 @@ import fr.javatronic.damapping.processor.validator.DASourceClassValidatorImpl;
 import fr.javatronic.damapping.processor.validator.ValidationError;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -40,10 +51,21 @@ import javax.annotation.Nonnull;
 import com.google.common.base.Optional;
 
 import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiFileFactory;
 import com.intellij.psi.PsiJavaFile;
@@ -52,6 +74,7 @@ import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.ParameterizedCachedValue;
 import com.intellij.psi.util.ParameterizedCachedValueProvider;
+import com.intellij.util.messages.MessageBusConnection;
 import org.codehaus.groovy.runtime.StringBufferWriter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -65,26 +88,41 @@ import org.jetbrains.annotations.Nullable;
 public class ParseAndGenerateManager implements ProjectComponent {
   private static final Logger LOGGER = Logger.getInstance(ParseAndGenerateManager.class.getName());
 
+  private final Project project;
   private final PsiParsingService parsingService;
   private final DASourceClassValidator sourceClassValidator;
   private final GenerationContextComputer generationContextComputer;
   private final SourceGenerationService sourceGenerationService;
+  private final CacheStatistics parseCacheStatistics = new CacheStatistics("DASourceClass parsing");
+  private final CacheStatistics generationCacheStatistics = new CacheStatistics("generated PsiClass");
+  private final GeneratedClassSnapshot generatedClassSnapshot;
+  private final MapperCostTracker mapperCostTracker = new MapperCostTracker();
+  private MessageBusConnection connection;
 
   @NotNull
   public static ParseAndGenerateManager getInstance(@NotNull Project project) {
     return project.getComponent(ParseAndGenerateManager.class);
   }
 
-  public ParseAndGenerateManager() {
-    this(new PsiParsingServiceImpl(), new DASourceClassValidatorImpl(), new GenerationContextComputerImpl(),
-        new SourceGenerationServiceImpl()
+  public ParseAndGenerateManager(Project project) {
+    this.project = project;
+    this.generatedClassSnapshot = new GeneratedClassSnapshot(project);
+    this.parsingService = new CachedPsiParsingServiceImpl(new PsiParsingServiceImpl(), parseCacheStatistics,
+        mapperCostTracker
     );
+    this.sourceClassValidator = new DASourceClassValidatorImpl();
+    this.generationContextComputer = new GenerationContextComputerImpl();
+    this.sourceGenerationService = new SourceGenerationServiceImpl();
+    LOGGER.debug("ParseAndGenerateManager created");
   }
 
-  public ParseAndGenerateManager(PsiParsingService parsingService,
+  public ParseAndGenerateManager(Project project,
+                                 PsiParsingService parsingService,
                                  DASourceClassValidator sourceClassValidator,
                                  GenerationContextComputer generationContextComputer,
                                  SourceGenerationService sourceGenerationService) {
+    this.project = project;
+    this.generatedClassSnapshot = new GeneratedClassSnapshot(project);
     this.parsingService = parsingService;
     this.sourceClassValidator = sourceClassValidator;
     this.generationContextComputer = generationContextComputer;
@@ -94,9 +132,58 @@ public class ParseAndGenerateManager implements ProjectComponent {
 
 
   private static final Key<ParameterizedCachedValue<List<PsiClass>, PsiClass>> DAMAPPING_GENERATED_CLASSES_KEY = Key.create("DAMAPPING_GENERATED_CLASSES");
+  private static final Key<SnapshotRecord> DAMAPPING_SNAPSHOT_RECORD_KEY = Key.create("DAMAPPING_SNAPSHOT_RECORD");
+  private static final Key<ParameterizedCachedValue<List<String>, PsiClass>> DAMAPPING_GENERATED_CLASS_NAMES_KEY = Key.create("DAMAPPING_GENERATED_CLASS_NAMES");
+  private static final Key<ParameterizedCachedValue<GeneratedMemberNames, PsiClass>> DAMAPPING_GENERATED_MEMBER_NAMES_KEY = Key.create("DAMAPPING_GENERATED_MEMBER_NAMES");
+  private static final Key<ParameterizedCachedValue<Optional<ValidationError>, PsiClass>> DAMAPPING_VALIDATION_ERROR_KEY = Key.create("DAMAPPING_VALIDATION_ERROR");
+
+  /**
+   * The service to use to parse a {@link PsiClass} into a {@link DASourceClass}. When the default constructor is
+   * used, the parsed {@link DASourceClass} is cached and shared by all consumers until the class is modified.
+   */
+  @NotNull
+  public PsiParsingService getParsingService() {
+    return parsingService;
+  }
+
+  @NotNull
+  public CacheStatistics getParseCacheStatistics() {
+    return parseCacheStatistics;
+  }
+
+  @NotNull
+  public CacheStatistics getGenerationCacheStatistics() {
+    return generationCacheStatistics;
+  }
+
+  /**
+   * The cost of each class annoted with @Mapper of the project: parsing (when the default constructor is used),
+   * generation of its classes and lookups of its generated classes.
+   */
+  @NotNull
+  public MapperCostTracker getMapperCostTracker() {
+    return mapperCostTracker;
+  }
+
+  /**
+   * The names of the last known classes generated from each class annoted with @Mapper, to be used when the DAMapping
+   * indexes can not be queried (ie. in dumb mode). It is saved when the project is closed and loaded when it is
+   * opened.
+   */
+  @NotNull
+  public GeneratedClassSnapshot getGeneratedClassSnapshot() {
+    return generatedClassSnapshot;
+  }
 
   @NotNull
   public List<PsiClass> getGeneratedPsiClasses(@NotNull PsiClass psiClass, @NotNull GlobalSearchScope scope) {
+    generationCacheStatistics.request();
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    if (metricsRegistry.isEnabled()) {
+      String qualifiedName = StringUtil.notNullize(psiClass.getQualifiedName());
+      mapperCostTracker.recordGenerationRequest(qualifiedName);
+      metricsRegistry.mapperProcessed(qualifiedName);
+    }
     CachedValuesManager manager = CachedValuesManager.getManager(scope.getProject());
 
 //    ParameterizedCachedValue<List<PsiClass>,PsiClass> value = manager.createParameterizedCachedValue(
@@ -107,10 +194,98 @@ public class ParseAndGenerateManager implements ProjectComponent {
     List<PsiClass> res = manager.getParameterizedCachedValue(psiClass,
         DAMAPPING_GENERATED_CLASSES_KEY, new GeneratedPsiClassCachedValueProvider(), false, psiClass
     );
+    updateSnapshot(psiClass, res);
     return res;
 
   }
 
+  /**
+   * Records the specified generated classes into the {@link GeneratedClassSnapshot}, outside of the computation of
+   * the cached value. The snapshot is only updated once per computed value and URL of the source file: a renamed or
+   * moved source file has its entries removed (see {@link #initComponent()}) and recorded again under its new URL.
+   */
+  private void updateSnapshot(@NotNull PsiClass psiClass, @NotNull List<PsiClass> generatedClasses) {
+    VirtualFile sourceFile = psiClass.getContainingFile().getVirtualFile();
+    if (sourceFile == null) {
+      return;
+    }
+    SnapshotRecord record = psiClass.getUserData(DAMAPPING_SNAPSHOT_RECORD_KEY);
+    String sourceFileUrl = sourceFile.getUrl();
+    if (record != null && record.generatedClasses == generatedClasses && record.sourceFileUrl.equals(sourceFileUrl)) {
+      return;
+    }
+    MapperClassLocation mapperLocation = MapperClassLocation.of(psiClass);
+    if (mapperLocation == null) {
+      return;
+    }
+
+    List<String> qualifiedNames = new ArrayList<String>(generatedClasses.size());
+    for (PsiClass generatedClass : generatedClasses) {
+      String qualifiedName = generatedClass.getQualifiedName();
+      if (qualifiedName != null) {
+        qualifiedNames.add(qualifiedName);
+      }
+    }
+    generatedClassSnapshot.update(sourceFile, mapperLocation, qualifiedNames);
+    psiClass.putUserData(DAMAPPING_SNAPSHOT_RECORD_KEY, new SnapshotRecord(generatedClasses, sourceFileUrl));
+  }
+
+  private static final class SnapshotRecord {
+    @NotNull
+    private final List<PsiClass> generatedClasses;
+    @NotNull
+    private final String sourceFileUrl;
+
+    private SnapshotRecord(@NotNull List<PsiClass> generatedClasses, @NotNull String sourceFileUrl) {
+      this.generatedClasses = generatedClasses;
+      this.sourceFileUrl = sourceFileUrl;
+    }
+  }
+
+  /**
+   * The qualified names of the classes generated from the specified class annoted with @Mapper.
+   * <p>
+   * Unlike {@link #getGeneratedPsiClasses(com.intellij.psi.PsiClass, com.intellij.psi.search.GlobalSearchScope)},
+   * the source of the generated classes is not written and no PSI is built: this method is cheap enough to be used
+   * from indexers and to answer requests which only need names.
+   * </p>
+   */
+  @NotNull
+  public List<String> getGeneratedClassQualifiedNames(@NotNull PsiClass psiClass) {
+    return CachedValuesManager.getManager(psiClass.getProject()).getParameterizedCachedValue(psiClass,
+        DAMAPPING_GENERATED_CLASS_NAMES_KEY, new GeneratedClassNamesCachedValueProvider(), false, psiClass
+    );
+  }
+
+  /**
+   * The names of the methods and fields of the classes generated from the specified class annoted with @Mapper.
+   * <p>
+   * The source of the generated classes is written but, unlike
+   * {@link #getGeneratedPsiClasses(com.intellij.psi.PsiClass, com.intellij.psi.search.GlobalSearchScope)}, no PSI is
+   * built: names are extracted with the Java lexer, which is cheap enough to be done from indexers.
+   * </p>
+   */
+  @NotNull
+  public GeneratedMemberNames getGeneratedMemberNames(@NotNull PsiClass psiClass) {
+    return CachedValuesManager.getManager(psiClass.getProject()).getParameterizedCachedValue(psiClass,
+        DAMAPPING_GENERATED_MEMBER_NAMES_KEY, new GeneratedMemberNamesCachedValueProvider(), false, psiClass
+    );
+  }
+
+  /**
+   * The error raised by the validation of the DASourceClass parsed from the specified class annoted with @Mapper, if
+   * any. The result of the validation is cached until the class is modified and shared by the generation of the
+   * classes and the DAMapping inspection.
+   *
+   * @return {@link Optional#absent()} if the class is valid or is not a class from which DAMapping generates classes
+   */
+  @NotNull
+  public Optional<ValidationError> getValidationError(@NotNull PsiClass psiClass) {
+    return CachedValuesManager.getManager(psiClass.getProject()).getParameterizedCachedValue(psiClass,
+        DAMAPPING_VALIDATION_ERROR_KEY, new ValidationErrorCachedValueProvider(), false, psiClass
+    );
+  }
+
   private Optional<PsiClass> getGeneratedPsiClass(GenerationContext generationContext, String key, Project project) {
     PsiClassWriterDelegate delegate = new PsiClassWriterDelegate(project);
     try {
@@ -127,39 +302,91 @@ public class ParseAndGenerateManager implements ProjectComponent {
 
   @NotNull
   private Optional<GenerationContext> computeGenerationContext(@NotNull PsiClass psiClass) {
-    if (!Common.hasMapperAnnotation(psiClass)) {
+    if (!ServiceManager.getService(MapperDetector.class).isMapper(psiClass)) {
       return Optional.absent();
     }
 
-    DASourceClass daSourceClass = parsingService.parse(psiClass);
-    try {
-      sourceClassValidator.validate(daSourceClass);
-    } catch (ValidationError validationError) {
-      LOGGER.debug(String.format("Failed to validate class %s", psiClass.getQualifiedName()), validationError);
+    Optional<ValidationError> validationError = getValidationError(psiClass);
+    if (validationError.isPresent()) {
+      LOGGER.debug(String.format("Failed to validate class %s", psiClass.getQualifiedName()), validationError.get());
       return Optional.absent();
     }
 
-    return Optional.of(generationContextComputer.compute(daSourceClass));
+    DASourceClass daSourceClass = parsingService.parse(psiClass);
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    long start = metricsRegistry.start(Operation.CONTEXT_COMPUTE);
+    try {
+      return Optional.of(generationContextComputer.compute(daSourceClass));
+    } finally {
+      metricsRegistry.stop(Operation.CONTEXT_COMPUTE, start);
+    }
   }
 
   @Override
   public void projectOpened() {
-    // do nothing
+    try {
+      generatedClassSnapshot.load(getSnapshotFile());
+    } catch (IOException e) {
+      LOGGER.warn("Failed to load snapshot of generated classes", e);
+    }
   }
 
   @Override
   public void projectClosed() {
-    // do nothing
+    try {
+      generatedClassSnapshot.save(getSnapshotFile());
+    } catch (IOException e) {
+      LOGGER.warn("Failed to save snapshot of generated classes", e);
+    }
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug(parseCacheStatistics.toString());
+      LOGGER.debug(generationCacheStatistics.toString());
+      LOGGER.debug(MetricsRegistry.getInstance().toString());
+    }
   }
 
   @Override
   public void initComponent() {
-    // do nothing
+    MetricsRegistry.getInstance().register(parseCacheStatistics);
+    MetricsRegistry.getInstance().register(generationCacheStatistics);
+    // classes generated from a deleted file are never generated again and those generated from a renamed or moved
+    // file are generated again under its new URL, they must be removed from the snapshot
+    connection = ApplicationManager.getApplication().getMessageBus().connect();
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void before(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          if (event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent || isRename(event)) {
+            // before the event, the file (or directory) is still at its old URL
+            generatedClassSnapshot.removeUnder(event.getFile());
+          }
+        }
+      }
+    }
+    );
+  }
+
+  private static boolean isRename(@NotNull VFileEvent event) {
+    return event instanceof VFilePropertyChangeEvent
+        && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName());
   }
 
   @Override
   public void disposeComponent() {
-    // do nothing
+    if (connection != null) {
+      connection.disconnect();
+    }
+    MetricsRegistry.getInstance().unregister(parseCacheStatistics);
+    MetricsRegistry.getInstance().unregister(generationCacheStatistics);
+    generatedClassSnapshot.clear();
+    mapperCostTracker.clear();
+  }
+
+  @NotNull
+  private File getSnapshotFile() {
+    return new File(PathManager.getSystemPath(),
+        "damapping" + File.separator + "snapshots" + File.separator + project.getLocationHash()
+    );
   }
 
   @NotNull
@@ -182,19 +409,156 @@ public class ParseAndGenerateManager implements ProjectComponent {
 
     @Override
     public void generateFile(@Nonnull GeneratedFileDescriptor descriptor) throws IOException {
+      MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+      long start = metricsRegistry.start(Operation.GENERATE);
       StringBuffer buffer = new StringBuffer();
-      descriptor.getSourceGenerator().writeFile(new BufferedWriter(new StringBufferWriter(buffer)));
+      try {
+        descriptor.getSourceGenerator().writeFile(new BufferedWriter(new StringBufferWriter(buffer)));
+      } finally {
+        metricsRegistry.stop(Operation.GENERATE, start);
+      }
       // ((PsiJavaFile) PsiFileFactory.getInstance(project).createFileFromText(sourceGenerator.fileName(context),
       // JavaFileType.INSTANCE, buffer.toString(), LocalTimeCounter     .currentTime(), false,
       // false)).getClasses()[0].getImplementsListTypes()
-      PsiJavaFile psiJavaFile = (PsiJavaFile) PsiFileFactory.getInstance(project)
-                                                            .createFileFromText(
-                                                                descriptor.getType().getSimpleName().getName(),
-                                                                JavaFileType.INSTANCE, buffer.toString()
-                                                            );
-      this.generatedPsiClass = psiJavaFile.getClasses()[0];
+      start = metricsRegistry.start(Operation.PSI_CREATION);
+      try {
+        PsiJavaFile psiJavaFile = (PsiJavaFile) PsiFileFactory.getInstance(project)
+                                                              .createFileFromText(
+                                                                  descriptor.getType().getSimpleName().getName(),
+                                                                  JavaFileType.INSTANCE, buffer.toString()
+                                                              );
+        this.generatedPsiClass = psiJavaFile.getClasses()[0];
+      } finally {
+        metricsRegistry.stop(Operation.PSI_CREATION, start);
+      }
+    }
+
+  }
+
+  /**
+   * SourceWriterDelegate which writes the source of the generated file to a buffer, without building its PSI.
+   */
+  private static class SourceTextWriterDelegate implements SourceWriterDelegate {
+    private final StringBuffer buffer = new StringBuffer();
+
+    private CharSequence getSource() {
+      return buffer;
     }
 
+    @Override
+    public void generateFile(@Nonnull GeneratedFileDescriptor descriptor) throws IOException {
+      MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+      long start = metricsRegistry.start(Operation.GENERATE);
+      try {
+        descriptor.getSourceGenerator().writeFile(new BufferedWriter(new StringBufferWriter(buffer)));
+      } finally {
+        metricsRegistry.stop(Operation.GENERATE, start);
+      }
+    }
+  }
+
+  /**
+   * SourceWriterDelegate which only records the type of the generated file, without writing its source.
+   */
+  private static class TypeRecorderWriterDelegate implements SourceWriterDelegate {
+    private DAType generatedType;
+
+    private DAType getGeneratedType() {
+      return generatedType;
+    }
+
+    @Override
+    public void generateFile(@Nonnull GeneratedFileDescriptor descriptor) throws IOException {
+      this.generatedType = descriptor.getType();
+    }
+  }
+
+  private class ValidationErrorCachedValueProvider
+      implements ParameterizedCachedValueProvider<Optional<ValidationError>, PsiClass> {
+    @Nullable
+    @Override
+    public CachedValueProvider.Result<Optional<ValidationError>> compute(PsiClass param) {
+      if (!ServiceManager.getService(MapperDetector.class).isMapper(param)) {
+        return CachedValueProvider.Result.create(Optional.<ValidationError>absent(), param);
+      }
+
+      DASourceClass daSourceClass = parsingService.parse(param);
+      MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+      long start = metricsRegistry.start(Operation.VALIDATE);
+      try {
+        sourceClassValidator.validate(daSourceClass);
+        return CachedValueProvider.Result.create(Optional.<ValidationError>absent(), param);
+      } catch (ValidationError validationError) {
+        return CachedValueProvider.Result.create(Optional.of(validationError), param);
+      } finally {
+        metricsRegistry.stop(Operation.VALIDATE, start);
+      }
+    }
+  }
+
+  private class GeneratedClassNamesCachedValueProvider
+      implements ParameterizedCachedValueProvider<List<String>, PsiClass> {
+    @Nullable
+    @Override
+    public CachedValueProvider.Result<List<String>> compute(PsiClass param) {
+      Optional<GenerationContext> generationContext = computeGenerationContext(param);
+      if (!generationContext.isPresent()) {
+        return CachedValueProvider.Result.create(Collections.<String>emptyList(), param);
+      }
+
+      Set<String> keys = generationContext.get().getDescriptorKeys();
+      List<String> res = new ArrayList<String>(keys.size());
+      for (String key : keys) {
+        TypeRecorderWriterDelegate delegate = new TypeRecorderWriterDelegate();
+        try {
+          sourceGenerationService.generate(generationContext.get(), key, delegate);
+        } catch (IOException e) {
+          LOGGER.error("Failed to compute name of generated class", e);
+        }
+        DAType generatedType = delegate.getGeneratedType();
+        if (generatedType != null) {
+          res.add(qualifiedName(generatedType, param));
+        }
+      }
+
+      return CachedValueProvider.Result.create(res, param);
+    }
+
+    private String qualifiedName(DAType generatedType, PsiClass psiClass) {
+      DAName qualifiedName = generatedType.getQualifiedName();
+      if (qualifiedName != null) {
+        return qualifiedName.getName();
+      }
+      // generated classes are in the same package as the class annoted with @Mapper
+      String packageName = StringUtil.getPackageName(StringUtil.notNullize(psiClass.getQualifiedName()));
+      return StringUtil.getQualifiedName(packageName, generatedType.getSimpleName().getName());
+    }
+  }
+
+  private class GeneratedMemberNamesCachedValueProvider
+      implements ParameterizedCachedValueProvider<GeneratedMemberNames, PsiClass> {
+    @Nullable
+    @Override
+    public CachedValueProvider.Result<GeneratedMemberNames> compute(PsiClass param) {
+      Optional<GenerationContext> generationContext = computeGenerationContext(param);
+      if (!generationContext.isPresent()) {
+        return CachedValueProvider.Result.create(GeneratedMemberNames.EMPTY, param);
+      }
+
+      Set<String> keys = generationContext.get().getDescriptorKeys();
+      List<CharSequence> sources = new ArrayList<CharSequence>(keys.size());
+      for (String key : keys) {
+        SourceTextWriterDelegate delegate = new SourceTextWriterDelegate();
+        try {
+          sourceGenerationService.generate(generationContext.get(), key, delegate);
+          sources.add(delegate.getSource());
+        } catch (IOException e) {
+          LOGGER.error("Failed to compute names of members of generated class", e);
+        }
+      }
+
+      return CachedValueProvider.Result.create(GeneratedMemberNames.of(sources), param);
+    }
   }
 
   private class GeneratedPsiClassCachedValueProvider
@@ -202,12 +566,15 @@ public class ParseAndGenerateManager implements ProjectComponent {
     @Nullable
     @Override
     public CachedValueProvider.Result<List<PsiClass>> compute(PsiClass param) {
+      generationCacheStatistics.miss();
       Optional<GenerationContext> generationContext = computeGenerationContext(param);
       if (!generationContext.isPresent()) {
         return CachedValueProvider.Result.create(Collections.<PsiClass>emptyList(), param);
       }
 
 
+      // parsing has been recorded separately, only the generation of the source and PSI of the classes is recorded
+      long start = System.nanoTime();
       Set<String> keys = generationContext.get().getDescriptorKeys();
       List<PsiClass> res = new ArrayList<PsiClass>(keys.size());
       for (String key : keys) {
@@ -216,6 +583,7 @@ public class ParseAndGenerateManager implements ProjectComponent {
           res.add(psiClass1.get());
         }
       }
+      mapperCostTracker.recordGeneration(StringUtil.notNullize(param.getQualifiedName()), System.nanoTime() - start);
 
       return CachedValueProvider.Result.create(res, param);
     }
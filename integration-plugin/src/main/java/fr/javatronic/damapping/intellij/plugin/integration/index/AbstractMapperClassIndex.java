@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import fr.javatronic.damapping.annotation.Mapper;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MetricsRegistry;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.intellij.util.text.CharArrayUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * AbstractMapperClassIndex - Base class of the indexes of classes annoted with @Mapper, keyed by a String and
+ * storing values of type {@code V}.
+ * <p>
+ * Files are not indexed (no PSI is built for them) when their text does not contain the simple name of the @Mapper
+ * annotation. Indexes are shared by all the open projects: whether a file is indexed must only depend on its content,
+ * never on the project it belongs to. Queries are the ones to check whether the project has DAMapping in its
+ * classpath (see
+ * {@link fr.javatronic.damapping.intellij.plugin.integration.component.project.DAMappingSupportManager#isActive()}).
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public abstract class AbstractMapperClassIndex<V> extends FileBasedIndexExtension<String, V> {
+  private static final String MAPPER_SIMPLE_NAME = Mapper.class.getSimpleName();
+
+  private static final FileBasedIndex.InputFilter JAVA_SOURCE_FILE_INPUT_FILTER = new FileBasedIndex.InputFilter() {
+    @Override
+    public boolean acceptInput(VirtualFile file) {
+      return file.getFileType() instanceof JavaFileType;
+    }
+  };
+
+  @NotNull
+  @Override
+  public DataIndexer<String, V, FileContent> getIndexer() {
+    return new DataIndexer<String, V, FileContent>() {
+      @NotNull
+      @Override
+      public Map<String, V> map(FileContent inputData) {
+        if (!mayContainMapper(inputData)) {
+          return Collections.emptyMap();
+        }
+
+        MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+        long start = metricsRegistry.start(Operation.INDEXER);
+        try {
+          PsiJavaFile psiJavaFile = (PsiJavaFile) inputData.getPsiFile();
+          Map<String, V> res = new HashMap<String, V>(psiJavaFile.getClasses().length);
+          for (PsiClass psiClass : psiJavaFile.getClasses()) {
+            if (filter(psiClass)) {
+              putEntries(res, getEntries(psiClass));
+            }
+          }
+          return res;
+        } finally {
+          metricsRegistry.stop(Operation.INDEXER, start);
+        }
+      }
+    };
+  }
+
+  /**
+   * Several classes of the same file may produce the same key: values are merged rather than overwritten so that
+   * none of these classes is lost.
+   */
+  private void putEntries(Map<String, V> res, Map<String, V> entries) {
+    for (Map.Entry<String, V> entry : entries.entrySet()) {
+      String key = entry.getKey();
+      if (res.containsKey(key)) {
+        res.put(key, merge(res.get(key), entry.getValue()));
+      }
+      else {
+        res.put(key, entry.getValue());
+      }
+    }
+  }
+
+  private static boolean mayContainMapper(FileContent inputData) {
+    return CharArrayUtil.indexOf(inputData.getContentAsText(), MAPPER_SIMPLE_NAME, 0) >= 0;
+  }
+
+  /**
+   * Allows filtering which class should be indexed. Typically, only PsiClass annoted with @Mapper.
+   */
+  protected abstract boolean filter(PsiClass psiClass);
+
+  /**
+   * Builds the Map of keys and values for the specified PsiClass (which has first been tested with
+   * {@link #filter(com.intellij.psi.PsiClass)} and returned {@code true}).
+   */
+  protected abstract Map<String, V> getEntries(PsiClass psiClass);
+
+  /**
+   * Merges the values produced for the same key by two classes of the same file.
+   */
+  protected abstract V merge(V existing, V value);
+
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return new EnumeratorStringDescriptor();
+  }
+
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return JAVA_SOURCE_FILE_INPUT_FILTER;
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * AbstractMapperClassLocationIndex - Base class of the indexes of classes annoted with @Mapper which store the
+ * {@link MapperClassLocation} of the classes with each key.
+ * <p>
+ * The value of a key is a list because several classes of the same file may produce the same key (eg. the name of a
+ * method common to the classes generated from two classes annoted with @Mapper).
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public abstract class AbstractMapperClassLocationIndex extends AbstractMapperClassIndex<List<MapperClassLocation>> {
+
+  /**
+   * Retrieves the classes annoted with @Mapper indexed with the specified key in the specified index, going straight
+   * to each class thanks to its {@link MapperClassLocation}.
+   */
+  @NotNull
+  public static List<PsiClass> findMapperClasses(@NotNull ID<String, List<MapperClassLocation>> indexId,
+                                                 @NotNull String key,
+                                                 @NotNull Project project, @NotNull GlobalSearchScope scope) {
+    final PsiManager psiManager = PsiManager.getInstance(project);
+    final List<PsiClass> res = new ArrayList<PsiClass>(1);
+    FileBasedIndex.getInstance().processValues(indexId, key, null,
+        new FileBasedIndex.ValueProcessor<List<MapperClassLocation>>() {
+          @Override
+          public boolean process(VirtualFile file, List<MapperClassLocation> value) {
+            PsiFile psiFile = psiManager.findFile(file);
+            if (psiFile != null) {
+              for (MapperClassLocation location : value) {
+                PsiClass psiClass = location.findPsiClass(psiFile);
+                if (psiClass != null) {
+                  res.add(psiClass);
+                }
+              }
+            }
+            return true;
+          }
+        }, scope
+    );
+    return res;
+  }
+
+  @Override
+  protected Map<String, List<MapperClassLocation>> getEntries(PsiClass psiClass) {
+    MapperClassLocation location = MapperClassLocation.of(psiClass);
+    if (location == null) {
+      return Collections.emptyMap();
+    }
+
+    Set<String> keys = getKeys(psiClass);
+    List<MapperClassLocation> locations = Collections.singletonList(location);
+    Map<String, List<MapperClassLocation>> res = new HashMap<String, List<MapperClassLocation>>(keys.size());
+    for (String key : keys) {
+      res.put(key, locations);
+    }
+    return res;
+  }
+
+  @Override
+  protected List<MapperClassLocation> merge(List<MapperClassLocation> existing, List<MapperClassLocation> value) {
+    List<MapperClassLocation> res = new ArrayList<MapperClassLocation>(existing.size() + value.size());
+    res.addAll(existing);
+    res.addAll(value);
+    return res;
+  }
+
+  /**
+   * Builds the Set of keys for the specified PsiClass (which has first been tested with
+   * {@link #filter(com.intellij.psi.PsiClass)} and returned {@code true}).
+   */
+  protected abstract Set<String> getKeys(PsiClass psiClass);
+
+  @Override
+  public DataExternalizer<List<MapperClassLocation>> getValueExternalizer() {
+    return MapperClassLocation.LIST_EXTERNALIZER;
+  }
+}
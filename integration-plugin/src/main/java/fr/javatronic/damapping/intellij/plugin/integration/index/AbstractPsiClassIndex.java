@@ -19,59 +19,32 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
-import com.intellij.ide.highlighter.JavaFileType;
-import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiJavaFile;
-import com.intellij.util.indexing.DataIndexer;
-import com.intellij.util.indexing.FileBasedIndex;
-import com.intellij.util.indexing.FileContent;
 import com.intellij.util.indexing.ScalarIndexExtension;
-import com.intellij.util.io.EnumeratorStringDescriptor;
-import com.intellij.util.io.KeyDescriptor;
-import org.jetbrains.annotations.NotNull;
+import com.intellij.util.io.DataExternalizer;
 
 /**
- * AbstractPsiClassIndex -
+ * AbstractPsiClassIndex - Base class of the indexes of classes annoted with @Mapper which only store keys.
  *
  * @author Sébastien Lesaint
  */
-public abstract class AbstractPsiClassIndex extends ScalarIndexExtension<String> {
+public abstract class AbstractPsiClassIndex extends AbstractMapperClassIndex<Void> {
 
-  private static final FileBasedIndex.InputFilter JAVA_SOURCE_FILE_INPUT_FILTER = new FileBasedIndex.InputFilter() {
-    @Override
-    public boolean acceptInput(VirtualFile file) {
-      return file.getFileType() instanceof JavaFileType;
+  @Override
+  protected Map<String, Void> getEntries(PsiClass psiClass) {
+    Set<String> keys = getKeys(psiClass);
+    Map<String, Void> res = new HashMap<String, Void>(keys.size());
+    for (String key : keys) {
+      res.put(key, null);
     }
-  };
+    return res;
+  }
 
-  @NotNull
   @Override
-  public DataIndexer<String, Void, FileContent> getIndexer() {
-    return new DataIndexer<String, Void, FileContent>() {
-      @NotNull
-      @Override
-      public Map<String, Void> map(FileContent inputData) {
-        PsiJavaFile psiJavaFile = (PsiJavaFile) inputData.getPsiFile();
-        Map<String, Void> res = new HashMap<String, Void>(psiJavaFile.getClasses().length);
-        for (PsiClass psiClass : psiJavaFile.getClasses()) {
-          if (filter(psiClass)) {
-            Set<String> keys = getKeys(psiClass);
-            for (String key : keys) {
-              res.put(key, null);
-            }
-          }
-        }
-        return res;
-      }
-    };
+  protected Void merge(Void existing, Void value) {
+    return null;
   }
 
-  /**
-   * Allows filtering which class should be indexed. Typically, only PsiClass annoted with @Mapper.
-   */
-  protected abstract boolean filter(PsiClass psiClass);
-
   /**
    * Builds the Set of keys for the specified PsiClass (which has first been tested with
    * {@link #filter(com.intellij.psi.PsiClass)} and returned {@code true}).
@@ -79,17 +52,7 @@ public abstract class AbstractPsiClassIndex extends ScalarIndexExtension<String>
   protected abstract Set<String> getKeys(PsiClass psiClass);
 
   @Override
-  public KeyDescriptor<String> getKeyDescriptor() {
-    return new EnumeratorStringDescriptor();
-  }
-
-  @Override
-  public FileBasedIndex.InputFilter getInputFilter() {
-    return JAVA_SOURCE_FILE_INPUT_FILTER;
-  }
-
-  @Override
-  public boolean dependsOnFileContent() {
-    return true;
+  public DataExternalizer<Void> getValueExternalizer() {
+    return ScalarIndexExtension.VOID_DATA_EXTERNALIZER;
   }
 }
@@ -15,11 +15,12 @@
  */
 package fr.javatronic.damapping.intellij.plugin.integration.index;
 
-import fr.javatronic.damapping.intellij.plugin.integration.provider.Common;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
 
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
+import com.intellij.openapi.components.ServiceManager;
 import com.intellij.psi.PsiClass;
 import com.intellij.util.indexing.ID;
 import org.jetbrains.annotations.NotNull;
@@ -27,6 +28,9 @@ import org.jetbrains.annotations.NotNull;
 /**
  * AnnotedClassQualifiedNameIndex - Index VirtualFile of classes annoted with @Mapper by their qualified name.
  * This index is a cheap and efficient way of discorering any class annoted with @Mapper in the current Project.
+ * Unlike the indexes of generated classes, classes annoted with @Mapper which are not valid mappers (no Guava
+ * Function, inner classes) are indexed too so that they can be reported by
+ * {@link fr.javatronic.damapping.intellij.plugin.integration.inspection.DAMappingIntegrationInspection}.
  *
  * @author Sébastien Lesaint
  */
@@ -39,18 +43,34 @@ public class AnnotedClassQualifiedNameIndex extends AbstractPsiClassIndex {
     return NAME;
   }
 
+  /**
+   * Every top-level class is accepted: looking for classes annoted with @Mapper (including inner classes) is the
+   * job of {@link #getKeys(PsiClass)}, a class without any produces no entry.
+   */
   @Override
   protected boolean filter(PsiClass psiClass) {
-    return Common.hasMapperAnnotation(psiClass);
+    return true;
   }
 
   @Override
   public int getVersion() {
-    return 0;
+    return 5;
   }
 
   @Override
   protected Set<String> getKeys(PsiClass psiClass) {
-    return Collections.singleton(psiClass.getQualifiedName());
+    Set<String> res = new HashSet<String>();
+    collectAnnotedClassNames(psiClass, ServiceManager.getService(MapperDetector.class), res);
+    return res;
+  }
+
+  private static void collectAnnotedClassNames(PsiClass psiClass, MapperDetector mapperDetector, Set<String> res) {
+    String qualifiedName = psiClass.getQualifiedName();
+    if (qualifiedName != null && mapperDetector.isAnnotedWithMapper(psiClass)) {
+      res.add(qualifiedName);
+    }
+    for (PsiClass innerClass : psiClass.getInnerClasses()) {
+      collectAnnotedClassNames(innerClass, mapperDetector, res);
+    }
   }
 }
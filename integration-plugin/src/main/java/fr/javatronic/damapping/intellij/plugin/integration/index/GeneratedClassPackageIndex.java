@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiClass;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * GeneratedClassPackageIndex - Index the simple names of the classes/interfaces generated from classes annoted with
+ * @Mapper by their package name.
+ * <p>
+ * This index allows listing the names of the classes generated by DAMapping in a package without building any PSI
+ * (see {@link fr.javatronic.damapping.intellij.plugin.integration.provider.DAMappingElementFinder}).
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class GeneratedClassPackageIndex extends AbstractMapperClassIndex<List<String>> {
+  public static final ID<String, List<String>> NAME = ID.create("GeneratedClassPackageIndex");
+
+  @NotNull
+  @Override
+  public ID<String, List<String>> getName() {
+    return NAME;
+  }
+
+  @Override
+  public int getVersion() {
+    return 2;
+  }
+
+  @Override
+  protected boolean filter(PsiClass psiClass) {
+    return ServiceManager.getService(MapperDetector.class).isMapper(psiClass);
+  }
+
+  @Override
+  protected Map<String, List<String>> getEntries(PsiClass psiClass) {
+    List<String> qualifiedNames = ParseAndGenerateManager.getInstance(psiClass.getProject())
+                                                         .getGeneratedClassQualifiedNames(psiClass);
+    Map<String, List<String>> res = new HashMap<String, List<String>>();
+    for (String qualifiedName : qualifiedNames) {
+      String packageName = StringUtil.getPackageName(qualifiedName);
+      List<String> simpleNames = res.get(packageName);
+      if (simpleNames == null) {
+        simpleNames = new ArrayList<String>(qualifiedNames.size());
+        res.put(packageName, simpleNames);
+      }
+      simpleNames.add(StringUtil.getShortName(qualifiedName));
+    }
+    return res;
+  }
+
+  @Override
+  protected List<String> merge(List<String> existing, List<String> value) {
+    List<String> res = new ArrayList<String>(existing.size() + value.size());
+    res.addAll(existing);
+    res.addAll(value);
+    return res;
+  }
+
+  @Override
+  public DataExternalizer<List<String>> getValueExternalizer() {
+    return StringListExternalizer.INSTANCE;
+  }
+
+  private static enum StringListExternalizer implements DataExternalizer<List<String>> {
+    INSTANCE;
+
+    @Override
+    public void save(DataOutput out, List<String> value) throws IOException {
+      out.writeInt(value.size());
+      for (String s : value) {
+        out.writeUTF(s);
+      }
+    }
+
+    @Override
+    public List<String> read(DataInput in) throws IOException {
+      int size = in.readInt();
+      List<String> res = new ArrayList<String>(size);
+      for (int i = 0; i < size; i++) {
+        res.add(in.readUTF());
+      }
+      return res;
+    }
+  }
+}
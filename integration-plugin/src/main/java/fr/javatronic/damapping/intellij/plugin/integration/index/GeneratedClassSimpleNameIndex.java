@@ -16,15 +16,16 @@
 package fr.javatronic.damapping.intellij.plugin.integration.index;
 
 import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
-import fr.javatronic.damapping.intellij.plugin.integration.provider.Common;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
 
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
 import com.google.common.base.Function;
 
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.indexing.ID;
 import org.jetbrains.annotations.NotNull;
 
@@ -34,46 +35,43 @@ import static com.google.common.collect.FluentIterable.from;
  * GeneratedClassSimpleNameIndex - Index VirtualFile of classes annoted with @Mapper by the simple name of the
  * generated classes/interfaces. This index is a cheap and efficient way of implementing
  * {@link fr.javatronic.damapping.intellij.plugin.integration.cache.DAMappingPsiShortNamesCache}.
+ * The value stored with each name is the {@link MapperClassLocation} of the class annoted with @Mapper.
  *
  * @author Sébastien Lesaint
  */
-public class GeneratedClassSimpleNameIndex extends AbstractPsiClassIndex {
-  public static final ID<String,Void> NAME = ID.create("GeneratedClassSimpleNameIndex");
+public class GeneratedClassSimpleNameIndex extends AbstractMapperClassLocationIndex {
+  public static final ID<String, List<MapperClassLocation>> NAME = ID.create("GeneratedClassSimpleNameIndex");
 
   @NotNull
   @Override
-  public ID<String, Void> getName() {
+  public ID<String, List<MapperClassLocation>> getName() {
     return NAME;
   }
 
   @Override
   public int getVersion() {
-    return 0;
+    return 5;
   }
 
   @Override
   protected boolean filter(PsiClass psiClass) {
-    return Common.hasMapperAnnotation(psiClass);
+    return ServiceManager.getService(MapperDetector.class).isMapper(psiClass);
   }
 
   @Override
   protected Set<String> getKeys(PsiClass psiClass) {
-    ParseAndGenerateManager parseAndGenerateManager = ParseAndGenerateManager
-        .getInstance(psiClass.getProject());
-
-    List<PsiClass> generatedPsiClasses = parseAndGenerateManager
-        .getGeneratedPsiClasses(psiClass, GlobalSearchScope.allScope(psiClass.getProject()));
-
-    return from(generatedPsiClasses).transform(PsiClassToName.INSTANCE).toImmutableSet();
+    List<String> qualifiedNames = ParseAndGenerateManager.getInstance(psiClass.getProject())
+                                                         .getGeneratedClassQualifiedNames(psiClass);
+    return from(qualifiedNames).transform(QualifiedNameToShortName.INSTANCE).toImmutableSet();
   }
 
-  private static enum PsiClassToName implements Function<PsiClass, String> {
+  private static enum QualifiedNameToShortName implements Function<String, String> {
     INSTANCE;
 
     @Nullable
     @Override
-    public String apply(@Nullable PsiClass psiClass) {
-      return psiClass.getName();
+    public String apply(@Nullable String qualifiedName) {
+      return StringUtil.getShortName(qualifiedName);
     }
   }
 }
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
+
+import java.util.List;
+import java.util.Set;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.psi.PsiClass;
+import com.intellij.util.indexing.ID;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * GeneratedFieldNameIndex - Index VirtualFile of classes annoted with @Mapper by the name of the fields of the
+ * generated classes/interfaces. This index allows
+ * {@link fr.javatronic.damapping.intellij.plugin.integration.cache.DAMappingPsiShortNamesCache} to find fields of
+ * generated classes by name without generating the classes of every @Mapper class.
+ * The value stored with each name is the {@link MapperClassLocation} of the class annoted with @Mapper.
+ * <p>
+ * Names are extracted from the source of the generated classes, no PSI is built (see {@link GeneratedMemberNames}).
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class GeneratedFieldNameIndex extends AbstractMapperClassLocationIndex {
+  public static final ID<String, List<MapperClassLocation>> NAME = ID.create("GeneratedFieldNameIndex");
+
+  @NotNull
+  @Override
+  public ID<String, List<MapperClassLocation>> getName() {
+    return NAME;
+  }
+
+  @Override
+  public int getVersion() {
+    return 3;
+  }
+
+  @Override
+  protected boolean filter(PsiClass psiClass) {
+    return ServiceManager.getService(MapperDetector.class).isMapper(psiClass);
+  }
+
+  @Override
+  protected Set<String> getKeys(PsiClass psiClass) {
+    return ParseAndGenerateManager.getInstance(psiClass.getProject())
+                                  .getGeneratedMemberNames(psiClass)
+                                  .getFieldNames();
+  }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import com.google.common.collect.ImmutableSet;
+
+import com.intellij.lang.java.lexer.JavaLexer;
+import com.intellij.pom.java.LanguageLevel;
+import com.intellij.psi.JavaTokenType;
+import com.intellij.psi.impl.source.tree.ElementType;
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * GeneratedMemberNames - The names of the methods and fields of the classes generated from a class annoted with
+ * @Mapper, extracted from the source of the generated classes with the Java lexer.
+ * <p>
+ * No PSI is built: these names are computed while indexing (see {@link GeneratedMethodNameIndex} and
+ * {@link GeneratedFieldNameIndex}), where creating a PSI file for each generated class is much too expensive.
+ * </p>
+ * <p>
+ * Only the members of the top-level class of each source are extracted (as
+ * {@link com.intellij.psi.PsiClass#getMethods()} and {@link com.intellij.psi.PsiClass#getFields()} would):
+ * constructors are ignored and enum constants are fields.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class GeneratedMemberNames {
+  public static final GeneratedMemberNames EMPTY = new GeneratedMemberNames(
+      ImmutableSet.<String>of(), ImmutableSet.<String>of()
+  );
+
+  @NotNull
+  private final Set<String> methodNames;
+  @NotNull
+  private final Set<String> fieldNames;
+
+  private GeneratedMemberNames(@NotNull Set<String> methodNames, @NotNull Set<String> fieldNames) {
+    this.methodNames = methodNames;
+    this.fieldNames = fieldNames;
+  }
+
+  @NotNull
+  public static GeneratedMemberNames of(@NotNull Collection<? extends CharSequence> sources) {
+    if (sources.isEmpty()) {
+      return EMPTY;
+    }
+
+    Set<String> methodNames = new HashSet<String>();
+    Set<String> fieldNames = new HashSet<String>();
+    for (CharSequence source : sources) {
+      new SourceScanner(source, methodNames, fieldNames).scan();
+    }
+    return new GeneratedMemberNames(ImmutableSet.copyOf(methodNames), ImmutableSet.copyOf(fieldNames));
+  }
+
+  @NotNull
+  public Set<String> getMethodNames() {
+    return methodNames;
+  }
+
+  @NotNull
+  public Set<String> getFieldNames() {
+    return fieldNames;
+  }
+
+  /**
+   * Walks the tokens of a source file, keeping track of the nesting of braces, parenthesis and type arguments to
+   * find the declarations of the body of the top-level class: an identifier followed by an opening parenthesis is a
+   * method (or a constructor), an identifier followed by {@code =}, {@code ,} or {@code ;} is a field.
+   */
+  private static final class SourceScanner {
+    private final CharSequence source;
+    private final Set<String> methodNames;
+    private final Set<String> fieldNames;
+    private final JavaLexer lexer = new JavaLexer(LanguageLevel.HIGHEST);
+
+    private String className;
+    private boolean isEnum;
+    private boolean inEnumConstants;
+    private int braceDepth;
+    private int parenDepth;
+    private int angleDepth;
+    /**
+     * set within the initializer of a field, until the end of its declaration
+     */
+    private boolean inInitializer;
+    /**
+     * set within a type header (extends/implements clauses), the throws clause and the default value of a method,
+     * until the opening brace of the body or the end of the declaration
+     */
+    private boolean inHeader;
+    private boolean inParameters;
+    private String candidate;
+    private IElementType previous;
+
+    private SourceScanner(CharSequence source, Set<String> methodNames, Set<String> fieldNames) {
+      this.source = source;
+      this.methodNames = methodNames;
+      this.fieldNames = fieldNames;
+    }
+
+    private void scan() {
+      lexer.start(source);
+      for (IElementType type = lexer.getTokenType(); type != null; lexer.advance(), type = lexer.getTokenType()) {
+        if (ElementType.JAVA_COMMENT_OR_WHITESPACE_BIT_SET.contains(type)) {
+          continue;
+        }
+        if (type == JavaTokenType.LBRACE) {
+          braceDepth++;
+          candidate = null;
+          inHeader = false;
+        }
+        else if (type == JavaTokenType.RBRACE) {
+          braceDepth--;
+        }
+        else if (braceDepth == 0) {
+          processTopLevelToken(type);
+        }
+        else if (braceDepth == 1) {
+          processClassBodyToken(type);
+        }
+        previous = type;
+      }
+    }
+
+    private void processTopLevelToken(IElementType type) {
+      if (className == null && type == JavaTokenType.IDENTIFIER && isTypeKeyword(previous)) {
+        className = tokenText();
+        isEnum = previous == JavaTokenType.ENUM_KEYWORD;
+        inEnumConstants = isEnum;
+      }
+    }
+
+    private void processClassBodyToken(IElementType type) {
+      if (inInitializer) {
+        processInitializerToken(type);
+        return;
+      }
+      if (parenDepth > 0) {
+        processParenthesizedToken(type);
+        return;
+      }
+      if (inHeader) {
+        if (type == JavaTokenType.SEMICOLON) {
+          inHeader = false;
+        }
+        return;
+      }
+      if (type == JavaTokenType.LT) {
+        angleDepth++;
+        return;
+      }
+      if (angleDepth > 0) {
+        if (type == JavaTokenType.GT) {
+          angleDepth--;
+        }
+        return;
+      }
+
+      if (type == JavaTokenType.IDENTIFIER) {
+        candidate = previous == JavaTokenType.AT || previous == JavaTokenType.DOT ? null : tokenText();
+        if (inEnumConstants && candidate != null) {
+          fieldNames.add(candidate);
+          candidate = null;
+        }
+      }
+      else if (type == JavaTokenType.LPARENTH) {
+        if (candidate != null && !candidate.equals(className)) {
+          methodNames.add(candidate);
+        }
+        inParameters = candidate != null;
+        parenDepth = 1;
+        candidate = null;
+      }
+      else if (type == JavaTokenType.EQ) {
+        addFieldCandidate();
+        inInitializer = true;
+      }
+      else if (type == JavaTokenType.COMMA) {
+        addFieldCandidate();
+      }
+      else if (type == JavaTokenType.SEMICOLON) {
+        addFieldCandidate();
+        inEnumConstants = false;
+      }
+      else if (isTypeKeyword(type) || type == JavaTokenType.THROWS_KEYWORD) {
+        inHeader = true;
+        candidate = null;
+      }
+    }
+
+    private void processInitializerToken(IElementType type) {
+      if (type == JavaTokenType.LPARENTH) {
+        parenDepth++;
+      }
+      else if (type == JavaTokenType.RPARENTH) {
+        parenDepth--;
+      }
+      else if (type == JavaTokenType.LT) {
+        angleDepth++;
+      }
+      else if (type == JavaTokenType.GT && angleDepth > 0) {
+        angleDepth--;
+      }
+      else if (type == JavaTokenType.SEMICOLON
+          || (type == JavaTokenType.COMMA && parenDepth == 0 && angleDepth == 0)) {
+        // a comma outside of parenthesis and type arguments starts the declaration of another field
+        inInitializer = false;
+        parenDepth = 0;
+        angleDepth = 0;
+      }
+    }
+
+    private void processParenthesizedToken(IElementType type) {
+      if (type == JavaTokenType.LPARENTH) {
+        parenDepth++;
+      }
+      else if (type == JavaTokenType.RPARENTH) {
+        parenDepth--;
+        if (parenDepth == 0 && inParameters) {
+          // skip the throws clause or default value, up to the body or the end of the declaration
+          inHeader = true;
+          inParameters = false;
+        }
+      }
+    }
+
+    private void addFieldCandidate() {
+      if (candidate != null && !inEnumConstants) {
+        fieldNames.add(candidate);
+      }
+      candidate = null;
+    }
+
+    private String tokenText() {
+      return source.subSequence(lexer.getTokenStart(), lexer.getTokenEnd()).toString();
+    }
+
+    private static boolean isTypeKeyword(IElementType type) {
+      return type == JavaTokenType.CLASS_KEYWORD || type == JavaTokenType.INTERFACE_KEYWORD
+          || type == JavaTokenType.ENUM_KEYWORD;
+    }
+  }
+}
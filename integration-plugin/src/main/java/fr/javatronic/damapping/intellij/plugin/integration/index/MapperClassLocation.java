@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiIdentifier;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.io.DataExternalizer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * MapperClassLocation - Value stored in DAMapping indexes to locate a class annoted with @Mapper within its file: its
+ * qualified name and the text offset of its name identifier.
+ * <p>
+ * A file may contain several top-level classes: the location allows going straight to the right {@link PsiClass}
+ * instead of scanning the classes of the file.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class MapperClassLocation {
+  public static final DataExternalizer<MapperClassLocation> EXTERNALIZER = new MapperClassLocationExternalizer();
+  public static final DataExternalizer<List<MapperClassLocation>> LIST_EXTERNALIZER =
+      new MapperClassLocationListExternalizer();
+
+  @NotNull
+  private final String qualifiedName;
+  private final int nameIdentifierOffset;
+
+  public MapperClassLocation(@NotNull String qualifiedName, int nameIdentifierOffset) {
+    this.qualifiedName = checkNotNull(qualifiedName);
+    this.nameIdentifierOffset = nameIdentifierOffset;
+  }
+
+  /**
+   * @return the location of the specified PsiClass or {@code null} if it is anonymous or local
+   */
+  @Nullable
+  public static MapperClassLocation of(@NotNull PsiClass psiClass) {
+    String qualifiedName = psiClass.getQualifiedName();
+    PsiIdentifier nameIdentifier = psiClass.getNameIdentifier();
+    if (qualifiedName == null || nameIdentifier == null) {
+      return null;
+    }
+    return new MapperClassLocation(qualifiedName, nameIdentifier.getTextOffset());
+  }
+
+  @NotNull
+  public String getQualifiedName() {
+    return qualifiedName;
+  }
+
+  public int getNameIdentifierOffset() {
+    return nameIdentifierOffset;
+  }
+
+  /**
+   * Retrieves the class at this location in the specified file, falling back to a lookup by qualified name among the
+   * top-level classes of the file when the offset is outdated (ie. the file has been modified but not yet
+   * re-indexed).
+   */
+  @Nullable
+  public PsiClass findPsiClass(@NotNull PsiFile psiFile) {
+    PsiElement element = psiFile.findElementAt(nameIdentifierOffset);
+    if (element instanceof PsiIdentifier) {
+      PsiClass psiClass = PsiTreeUtil.getParentOfType(element, PsiClass.class);
+      if (psiClass != null && element == psiClass.getNameIdentifier()
+          && qualifiedName.equals(psiClass.getQualifiedName())) {
+        return psiClass;
+      }
+    }
+
+    if (psiFile instanceof PsiJavaFile) {
+      for (PsiClass psiClass : ((PsiJavaFile) psiFile).getClasses()) {
+        if (qualifiedName.equals(psiClass.getQualifiedName())) {
+          return psiClass;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    MapperClassLocation that = (MapperClassLocation) o;
+    return nameIdentifierOffset == that.nameIdentifierOffset && qualifiedName.equals(that.qualifiedName);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * qualifiedName.hashCode() + nameIdentifierOffset;
+  }
+
+  @Override
+  public String toString() {
+    return "MapperClassLocation{" + qualifiedName + "@" + nameIdentifierOffset + "}";
+  }
+
+  private static class MapperClassLocationExternalizer implements DataExternalizer<MapperClassLocation> {
+    @Override
+    public void save(DataOutput out, MapperClassLocation value) throws IOException {
+      out.writeUTF(value.qualifiedName);
+      out.writeInt(value.nameIdentifierOffset);
+    }
+
+    @Override
+    public MapperClassLocation read(DataInput in) throws IOException {
+      return new MapperClassLocation(in.readUTF(), in.readInt());
+    }
+  }
+
+  private static class MapperClassLocationListExternalizer implements DataExternalizer<List<MapperClassLocation>> {
+    @Override
+    public void save(DataOutput out, List<MapperClassLocation> value) throws IOException {
+      out.writeInt(value.size());
+      for (MapperClassLocation location : value) {
+        EXTERNALIZER.save(out, location);
+      }
+    }
+
+    @Override
+    public List<MapperClassLocation> read(DataInput in) throws IOException {
+      int size = in.readInt();
+      List<MapperClassLocation> res = new ArrayList<MapperClassLocation>(size);
+      for (int i = 0; i < size; i++) {
+        res.add(EXTERNALIZER.read(in));
+      }
+      return res;
+    }
+  }
+}
@@ -15,16 +15,50 @@
  */
 package fr.javatronic.damapping.intellij.plugin.integration.inspection;
 
+import fr.javatronic.damapping.annotation.Mapper;
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.DAMappingSupportManager;
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
+import fr.javatronic.damapping.processor.validator.ValidationError;
+
+import com.google.common.base.Optional;
+
+import com.intellij.codeInsight.AnnotationUtil;
 import com.intellij.codeInsight.daemon.GroupNames;
 import com.intellij.codeInspection.BaseJavaLocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiEnumConstant;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiModifierList;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * DAMappingIntegrationInspection -
+ * DAMappingIntegrationInspection - Reports the classes annoted with @Mapper from which DAMapping can not generate any
+ * class: missing Guava Function interface, inner classes, enums with more than one value, missing @MapperFactoryMethod
+ * and any other error raised by the validation of the class.
+ * <p>
+ * The validation of a class is not done by the inspection, the result cached by {@link ParseAndGenerateManager} for the
+ * generation of the classes is used instead. In batch mode, only the files listed by {@link MapperFiles} are visited
+ * and the classes of all these files are validated in parallel first.
+ * </p>
  *
  * @author Sébastien Lesaint
  */
 public class DAMappingIntegrationInspection extends BaseJavaLocalInspectionTool {
+    private static final String MAPPER_FACTORY_METHOD_ANNOTATION =
+        "fr.javatronic.damapping.annotation.MapperFactoryMethod";
 
     @NotNull
     @Override
@@ -48,4 +82,154 @@ public class DAMappingIntegrationInspection extends BaseJavaLocalInspectionTool
     public boolean isEnabledByDefault() {
         return true;
     }
+
+    /**
+     * Files of a project which does not have DAMapping in its classpath are not visited at all, neither are files
+     * without any class annoted with @Mapper in batch mode.
+     */
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        Project project = holder.getProject();
+        if (!DAMappingSupportManager.getInstance(project).isActive()) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+        if (!isOnTheFly) {
+            MapperFiles mapperFiles = MapperFiles.getInstance(project);
+            if (!mapperFiles.contains(holder.getFile().getVirtualFile())) {
+                return PsiElementVisitor.EMPTY_VISITOR;
+            }
+            mapperFiles.validateAll();
+        }
+
+        final MapperDetector mapperDetector = ServiceManager.getService(MapperDetector.class);
+        final ParseAndGenerateManager parseAndGenerateManager = ParseAndGenerateManager.getInstance(project);
+        return new JavaElementVisitor() {
+            @Override
+            public void visitClass(PsiClass aClass) {
+                if (mapperDetector.isAnnotedWithMapper(aClass)) {
+                    checkMapperClass(aClass, holder, mapperDetector, parseAndGenerateManager);
+                }
+            }
+        };
+    }
+
+    private static void checkMapperClass(@NotNull PsiClass psiClass, @NotNull ProblemsHolder holder,
+                                         @NotNull MapperDetector mapperDetector,
+                                         @NotNull ParseAndGenerateManager parseAndGenerateManager) {
+        PsiElement element = getProblemElement(psiClass);
+        if (psiClass.getContainingClass() != null) {
+            holder.registerProblem(element, "Inner class can not be annoted with @Mapper");
+            return;
+        }
+        if (!mapperDetector.isMapper(psiClass)) {
+            holder.registerProblem(element, "Class annoted with @Mapper must implement Guava's Function interface");
+            return;
+        }
+        if (checkEnumValues(psiClass, holder)) {
+            return;
+        }
+        if (checkMapperFactoryMethod(psiClass, holder, element)) {
+            return;
+        }
+
+        Optional<ValidationError> validationError = parseAndGenerateManager.getValidationError(psiClass);
+        if (validationError.isPresent()) {
+            holder.registerProblem(element, String.valueOf(validationError.get().getMessage()));
+        }
+    }
+
+    /**
+     * @return {@code true} if a problem has been reported
+     */
+    private static boolean checkEnumValues(@NotNull PsiClass psiClass, @NotNull ProblemsHolder holder) {
+        if (!psiClass.isEnum()) {
+            return false;
+        }
+        boolean first = true;
+        boolean reported = false;
+        for (PsiField psiField : psiClass.getFields()) {
+            if (!(psiField instanceof PsiEnumConstant)) {
+                continue;
+            }
+            if (first) {
+                first = false;
+                continue;
+            }
+            holder.registerProblem(psiField.getNameIdentifier(), "Enum annoted with @Mapper must have only one value");
+            reported = true;
+        }
+        return reported;
+    }
+
+    /**
+     * A class annoted with @Mapper which can not be instantiated with a no-argument constructor must have a
+     * constructor or a static method annoted with @MapperFactoryMethod. The check is only done when
+     * {@code @MapperFactoryMethod} can be found in the classpath of the class: versions of DAMapping which do not have
+     * this annotation generate a factory from the constructors of the class.
+     *
+     * @return {@code true} if a problem has been reported
+     */
+    private static boolean checkMapperFactoryMethod(@NotNull PsiClass psiClass, @NotNull ProblemsHolder holder,
+                                                    @NotNull PsiElement element) {
+        if (psiClass.isEnum() || psiClass.isInterface()) {
+            return false;
+        }
+        PsiMethod[] constructors = psiClass.getConstructors();
+        if (constructors.length == 0) {
+            // default constructor
+            return false;
+        }
+        for (PsiMethod constructor : constructors) {
+            if (constructor.getParameterList().getParametersCount() == 0
+                && !constructor.hasModifierProperty(PsiModifier.PRIVATE)) {
+                return false;
+            }
+        }
+        if (!isMapperFactoryMethodAvailable(psiClass)) {
+            return false;
+        }
+        for (PsiMethod psiMethod : psiClass.getMethods()) {
+            if (AnnotationUtil.isAnnotated(psiMethod, MAPPER_FACTORY_METHOD_ANNOTATION, false)) {
+                return false;
+            }
+        }
+        holder.registerProblem(element, "Class annoted with @Mapper without a no-argument constructor must have a "
+            + "constructor or a static method annoted with @MapperFactoryMethod");
+        return true;
+    }
+
+    private static boolean isMapperFactoryMethodAvailable(@NotNull PsiClass psiClass) {
+        return JavaPsiFacade.getInstance(psiClass.getProject())
+                            .findClass(MAPPER_FACTORY_METHOD_ANNOTATION, psiClass.getResolveScope()) != null;
+    }
+
+    /**
+     * Problems are reported on the @Mapper annotation if it can be found, on the name of the class otherwise.
+     */
+    @NotNull
+    private static PsiElement getProblemElement(@NotNull PsiClass psiClass) {
+        PsiAnnotation mapperAnnotation = findMapperAnnotation(psiClass);
+        if (mapperAnnotation != null) {
+            return mapperAnnotation;
+        }
+        PsiElement nameIdentifier = psiClass.getNameIdentifier();
+        return nameIdentifier == null ? psiClass : nameIdentifier;
+    }
+
+    @Nullable
+    private static PsiAnnotation findMapperAnnotation(@NotNull PsiClass psiClass) {
+        PsiModifierList modifierList = psiClass.getModifierList();
+        if (modifierList == null) {
+            return null;
+        }
+        for (PsiAnnotation psiAnnotation : modifierList.getAnnotations()) {
+            PsiJavaCodeReferenceElement referenceElement = psiAnnotation.getNameReferenceElement();
+            if (referenceElement != null
+                && Mapper.class.getSimpleName().equals(referenceElement.getReferenceName())) {
+                return psiAnnotation;
+            }
+        }
+        return null;
+    }
 }
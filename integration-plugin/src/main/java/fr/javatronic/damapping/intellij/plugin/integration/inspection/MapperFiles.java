@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.inspection;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.MapperModificationTracker;
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.index.AnnotedClassQualifiedNameIndex;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.ParameterizedCachedValue;
+import com.intellij.psi.util.ParameterizedCachedValueProvider;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * MapperFiles - The files of a project which contain a class annoted with @Mapper, read from the
+ * {@link AnnotedClassQualifiedNameIndex}.
+ * <p>
+ * Used by {@link DAMappingIntegrationInspection} in batch mode ("Inspect Code") to skip all other files and to
+ * validate the classes annoted with @Mapper of all these files in parallel while they are inspected one by one. The
+ * instance is cached on the project until a class annoted with @Mapper may have been added or removed.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+final class MapperFiles {
+  private static final Key<ParameterizedCachedValue<MapperFiles, Project>> DAMAPPING_MAPPER_FILES_KEY = Key.create("DAMAPPING_MAPPER_FILES");
+
+  @NotNull
+  private final Project project;
+  @NotNull
+  private final Set<VirtualFile> files;
+  private final AtomicBoolean validated = new AtomicBoolean(false);
+
+  private MapperFiles(@NotNull Project project, @NotNull Set<VirtualFile> files) {
+    this.project = project;
+    this.files = files;
+  }
+
+  @NotNull
+  static MapperFiles getInstance(@NotNull Project project) {
+    return CachedValuesManager.getManager(project).getParameterizedCachedValue(project,
+        DAMAPPING_MAPPER_FILES_KEY, new MapperFilesCachedValueProvider(), false, project
+    );
+  }
+
+  boolean contains(@Nullable VirtualFile file) {
+    return file != null && files.contains(file);
+  }
+
+  int size() {
+    return files.size();
+  }
+
+  /**
+   * Starts validating the classes annoted with @Mapper of all the files in parallel, the first time this method is
+   * called. Validation results are cached by
+   * {@link ParseAndGenerateManager#getValidationError(com.intellij.psi.PsiClass)} so that inspecting a file which has
+   * already been validated does not validate anything.
+   * <p>
+   * This method is called while a read action is held (ie. while building the visitor of a file): it does not wait for
+   * the validation. The parallel pass runs on a pooled thread, outside of any read action, and each worker takes its
+   * own read action: waiting for workers while holding a read action would deadlock as soon as a write action is
+   * pending. Files inspected before the pass reaches them are validated by the inspection itself.
+   * </p>
+   */
+  void validateAll() {
+    if (files.isEmpty() || !validated.compareAndSet(false, true)) {
+      return;
+    }
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    if (indicator == null) {
+      // validation will happen file by file while inspecting
+      return;
+    }
+
+    final List<VirtualFile> fileList = new ArrayList<VirtualFile>(files);
+    ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          validateConcurrently(fileList, indicator);
+        } catch (ProcessCanceledException e) {
+          // inspection canceled, remaining files are not validated
+        }
+      }
+    });
+  }
+
+  private void validateConcurrently(@NotNull List<VirtualFile> fileList, @NotNull ProgressIndicator indicator) {
+    final PsiManager psiManager = PsiManager.getInstance(project);
+    final ParseAndGenerateManager parseAndGenerateManager = ParseAndGenerateManager.getInstance(project);
+    final MapperDetector mapperDetector = ServiceManager.getService(MapperDetector.class);
+    JobLauncher.getJobLauncher().invokeConcurrentlyUnderProgress(fileList, indicator, false,
+        new Processor<VirtualFile>() {
+          @Override
+          public boolean process(final VirtualFile file) {
+            if (project.isDisposed()) {
+              return false;
+            }
+            ApplicationManager.getApplication().runReadAction(new Runnable() {
+              @Override
+              public void run() {
+                validate(file, psiManager, mapperDetector, parseAndGenerateManager);
+              }
+            });
+            return true;
+          }
+        }
+    );
+  }
+
+  private static void validate(@NotNull VirtualFile file, @NotNull PsiManager psiManager,
+                               @NotNull MapperDetector mapperDetector,
+                               @NotNull ParseAndGenerateManager parseAndGenerateManager) {
+    if (!file.isValid()) {
+      return;
+    }
+    PsiFile psiFile = psiManager.findFile(file);
+    if (!(psiFile instanceof PsiJavaFile)) {
+      return;
+    }
+    for (PsiClass psiClass : ((PsiJavaFile) psiFile).getClasses()) {
+      if (mapperDetector.isMapper(psiClass)) {
+        parseAndGenerateManager.getValidationError(psiClass);
+      }
+    }
+  }
+
+  private static class MapperFilesCachedValueProvider implements ParameterizedCachedValueProvider<MapperFiles, Project> {
+    @Nullable
+    @Override
+    public CachedValueProvider.Result<MapperFiles> compute(Project param) {
+      GlobalSearchScope scope = GlobalSearchScope.projectScope(param);
+      FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+      Collection<String> qualifiedNames = fileBasedIndex.getAllKeys(AnnotedClassQualifiedNameIndex.NAME, param);
+      final Set<VirtualFile> files = new HashSet<VirtualFile>();
+      for (String qualifiedName : qualifiedNames) {
+        fileBasedIndex.processValues(AnnotedClassQualifiedNameIndex.NAME, qualifiedName, null,
+            new FileBasedIndex.ValueProcessor<Void>() {
+              @Override
+              public boolean process(VirtualFile file, Void value) {
+                files.add(file);
+                return true;
+              }
+            }, scope
+        );
+      }
+      return CachedValueProvider.Result.create(new MapperFiles(param, files), new MapperModificationTracker(param));
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * LatencyHistogram - Lock-free histogram of durations in nanoseconds.
+ * <p>
+ * Durations are counted in buckets of powers of 2 (bucket {@code i} holds durations in {@code [2^(i-1), 2^i[}), so
+ * recording a duration is a handful of atomic increments and percentiles are approximated by the upper bound of the
+ * bucket they fall into.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class LatencyHistogram {
+  /**
+   * 2^40 ns is about 18 minutes, longer durations are counted in the last bucket
+   */
+  static final int BUCKET_COUNT = 41;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  public void record(long nanos) {
+    long duration = Math.max(0, nanos);
+    buckets.incrementAndGet(bucketOf(duration));
+    count.incrementAndGet();
+    totalNanos.addAndGet(duration);
+    long max = maxNanos.get();
+    while (duration > max && !maxNanos.compareAndSet(max, duration)) {
+      max = maxNanos.get();
+    }
+  }
+
+  static int bucketOf(long nanos) {
+    return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Counters are read one by one, the snapshot may therefor be slightly inconsistent if durations are recorded
+   * concurrently.
+   */
+  @NotNull
+  public Snapshot snapshot() {
+    long[] bucketValues = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      bucketValues[i] = buckets.get(i);
+    }
+    return new Snapshot(count.get(), totalNanos.get(), maxNanos.get(), bucketValues);
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    totalNanos.set(0);
+    maxNanos.set(0);
+  }
+
+  /**
+   * Snapshot - Immutable copy of the counters of a {@link LatencyHistogram}.
+   */
+  public static final class Snapshot {
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] buckets;
+
+    private Snapshot(long count, long totalNanos, long maxNanos, long[] buckets) {
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.buckets = buckets;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    public long getMeanNanos() {
+      return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * @param percentile a value between 0 and 1
+     *
+     * @return the upper bound of the bucket in which the specified percentile of the durations falls, capped by the
+     * longest duration recorded, 0 if no duration has been recorded
+     */
+    public long getPercentileNanos(double percentile) {
+      long total = 0;
+      for (long bucket : buckets) {
+        total += bucket;
+      }
+      if (total == 0) {
+        return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(percentile * total));
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= rank) {
+          return Math.min(maxNanos, i == 0 ? 0 : (1L << i) - 1);
+        }
+      }
+      return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d calls, total %d ms, mean %d us, p50 %d us, p99 %d us, max %d us",
+          count, totalNanos / 1000000, getMeanNanos() / 1000, getPercentileNanos(0.5d) / 1000,
+          getPercentileNanos(0.99d) / 1000, maxNanos / 1000
+      );
+    }
+  }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * MapperCostTracker - Cost of each class annoted with @Mapper of a project: time spent parsing it and generating its
+ * classes, requests to the generated classes and how many of them were served from the cache, lookups of its
+ * generated classes.
+ * <p>
+ * Classes are identified by their qualified name only, no PSI is kept. Recording is lock-free once the entry of a
+ * class exists and nothing is recorded when {@link MetricsRegistry#isEnabled()} is {@code false}.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class MapperCostTracker {
+  private static final Comparator<MapperCost> MOST_EXPENSIVE_FIRST = new Comparator<MapperCost>() {
+    @Override
+    public int compare(MapperCost o1, MapperCost o2) {
+      long cost1 = o1.getTotalNanos();
+      long cost2 = o2.getTotalNanos();
+      return cost1 < cost2 ? 1 : (cost1 == cost2 ? o1.getQualifiedName().compareTo(o2.getQualifiedName()) : -1);
+    }
+  };
+
+  private final ConcurrentMap<String, Counters> entries = new ConcurrentHashMap<String, Counters>();
+
+  public void recordParse(@NotNull String qualifiedName, long nanos) {
+    if (MetricsRegistry.getInstance().isEnabled()) {
+      Counters counters = getCounters(qualifiedName);
+      counters.parseCount.incrementAndGet();
+      counters.parseNanos.addAndGet(nanos);
+    }
+  }
+
+  /**
+   * Records a request for the generated classes of the specified class, whether they are served from the cache or
+   * not.
+   */
+  public void recordGenerationRequest(@NotNull String qualifiedName) {
+    if (MetricsRegistry.getInstance().isEnabled()) {
+      getCounters(qualifiedName).requests.incrementAndGet();
+    }
+  }
+
+  /**
+   * Records the generation of the classes of the specified class, ie. a request which could not be served from the
+   * cache.
+   */
+  public void recordGeneration(@NotNull String qualifiedName, long nanos) {
+    if (MetricsRegistry.getInstance().isEnabled()) {
+      Counters counters = getCounters(qualifiedName);
+      counters.generationCount.incrementAndGet();
+      counters.generationNanos.addAndGet(nanos);
+    }
+  }
+
+  public void recordLookup(@NotNull String qualifiedName) {
+    if (MetricsRegistry.getInstance().isEnabled()) {
+      getCounters(qualifiedName).lookups.incrementAndGet();
+    }
+  }
+
+  @NotNull
+  private Counters getCounters(@NotNull String qualifiedName) {
+    Counters counters = entries.get(qualifiedName);
+    if (counters == null) {
+      Counters newCounters = new Counters();
+      counters = entries.putIfAbsent(qualifiedName, newCounters);
+      if (counters == null) {
+        counters = newCounters;
+      }
+    }
+    return counters;
+  }
+
+  /**
+   * @return the costs of at most {@code maxCount} classes, the most expensive one first
+   */
+  @NotNull
+  public List<MapperCost> getMostExpensive(int maxCount) {
+    List<MapperCost> res = new ArrayList<MapperCost>(entries.size());
+    for (Map.Entry<String, Counters> entry : entries.entrySet()) {
+      res.add(entry.getValue().toMapperCost(entry.getKey()));
+    }
+    Collections.sort(res, MOST_EXPENSIVE_FIRST);
+    return res.size() <= maxCount ? res : new ArrayList<MapperCost>(res.subList(0, maxCount));
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  private static final class Counters {
+    private final AtomicLong parseCount = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong generationCount = new AtomicLong();
+    private final AtomicLong generationNanos = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    private MapperCost toMapperCost(String qualifiedName) {
+      return new MapperCost(qualifiedName, parseCount.get(), parseNanos.get(), generationCount.get(),
+          generationNanos.get(), requests.get(), lookups.get()
+      );
+    }
+  }
+
+  /**
+   * MapperCost - Immutable copy of the cost of a class annoted with @Mapper.
+   */
+  public static final class MapperCost {
+    @NotNull
+    private final String qualifiedName;
+    private final long parseCount;
+    private final long parseNanos;
+    private final long generationCount;
+    private final long generationNanos;
+    private final long requests;
+    private final long lookups;
+
+    public MapperCost(@NotNull String qualifiedName, long parseCount, long parseNanos, long generationCount,
+                      long generationNanos, long requests, long lookups) {
+      this.qualifiedName = qualifiedName;
+      this.parseCount = parseCount;
+      this.parseNanos = parseNanos;
+      this.generationCount = generationCount;
+      this.generationNanos = generationNanos;
+      this.requests = requests;
+      this.lookups = lookups;
+    }
+
+    @NotNull
+    public String getQualifiedName() {
+      return qualifiedName;
+    }
+
+    public long getParseCount() {
+      return parseCount;
+    }
+
+    public long getParseNanos() {
+      return parseNanos;
+    }
+
+    public long getGenerationCount() {
+      return generationCount;
+    }
+
+    public long getGenerationNanos() {
+      return generationNanos;
+    }
+
+    public long getRequests() {
+      return requests;
+    }
+
+    public long getLookups() {
+      return lookups;
+    }
+
+    public long getTotalNanos() {
+      return parseNanos + generationNanos;
+    }
+
+    /**
+     * @return the ratio of requests for the generated classes served from the cache, between 0 and 1, 0 if there was
+     * no request
+     */
+    public double getCacheHitRate() {
+      if (requests == 0) {
+        return 0;
+      }
+      // counters are read independently, a generation may have been recorded before its request
+      return Math.max(0d, (double) (requests - generationCount) / requests);
+    }
+  }
+}
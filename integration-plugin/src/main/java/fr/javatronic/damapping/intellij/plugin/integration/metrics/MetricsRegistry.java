@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.CacheStatistics;
+import fr.javatronic.damapping.intellij.plugin.integration.trace.CallTraceRecorder;
+import fr.javatronic.damapping.intellij.plugin.integration.trace.ScopeKind;
+
+import java.awt.EventQueue;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * MetricsRegistry - Registry of the time spent by DAMapping in each {@link Operation} and of the statistics of the
+ * caches of DAMapping.
+ * <p>
+ * The registry is lock-free: one {@link LatencyHistogram} is created per Operation upfront, so timing an operation
+ * is a call to {@link System#nanoTime()} before and after the operation and a few atomic increments. When the
+ * registry is disabled, only a volatile read is done. Nothing is recorded when DAMapping is idle.
+ * </p>
+ * <p>
+ * Calls to extension points which exceed a latency budget are recorded by the {@link SlowOperationWatchdog} of the
+ * registry.
+ * </p>
+ * <p>
+ * When the system property {@value CallTraceRecorder#TRACE_FILE_PROPERTY} is set, every call to an extension point
+ * is also recorded by a {@link CallTraceRecorder}.
+ * </p>
+ * <pre>
+ *   long start = MetricsRegistry.getInstance().start(Operation.PARSE);
+ *   try {
+ *     // timed operation
+ *   } finally {
+ *     MetricsRegistry.getInstance().stop(Operation.PARSE, start);
+ *   }
+ * </pre>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class MetricsRegistry {
+  /**
+   * Value returned by {@link #start()} when the registry is disabled. {@link System#nanoTime()} can return any long
+   * value but will not return this one in practice.
+   */
+  private static final long NOT_TIMED = Long.MIN_VALUE;
+
+  private static final Operation[] OPERATIONS = Operation.values();
+  // must be created after the other constants
+  private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+  private final LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+  private final SlowOperationWatchdog watchdog = new SlowOperationWatchdog();
+  private final List<CacheStatistics> cacheStatistics = new CopyOnWriteArrayList<CacheStatistics>();
+  private final AtomicLong startNanos = new AtomicLong(System.nanoTime());
+  private volatile boolean enabled = !Boolean.getBoolean("damapping.metrics.disabled");
+  @Nullable
+  private final CallTraceRecorder traceRecorder = CallTraceRecorder.fromSystemProperty();
+
+  @NotNull
+  public static MetricsRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  MetricsRegistry() {
+    for (int i = 0; i < histograms.length; i++) {
+      histograms[i] = new LatencyHistogram();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * @return the value to pass to {@link #stop(Operation, long)} once the timed operation is done
+   */
+  public long start(@NotNull Operation operation) {
+    if (!enabled) {
+      return NOT_TIMED;
+    }
+    watchdog.operationStarted(operation);
+    return System.nanoTime();
+  }
+
+  /**
+   * @return the duration of the operation in nanoseconds, {@code -1} if the registry was disabled when the operation
+   * started
+   */
+  public long stop(@NotNull Operation operation, long start) {
+    if (start == NOT_TIMED) {
+      return -1;
+    }
+    long nanos = System.nanoTime() - start;
+    histograms[operation.ordinal()].record(nanos);
+    watchdog.operationEnded(operation, nanos);
+    return nanos;
+  }
+
+  /**
+   * Same as {@link #stop(Operation, long)} for a call to an extension point, which is also recorded in the call trace
+   * when recording is enabled.
+   *
+   * @param argument the name looked up by the call
+   */
+  public long stop(@NotNull Operation operation, long start, @NotNull String argument,
+                   @NotNull GlobalSearchScope scope) {
+    long nanos = stop(operation, start);
+    traceCall(operation, argument, scope, nanos);
+    return nanos;
+  }
+
+  /**
+   * Records a call to an extension point in the call trace, when recording is enabled. Calls which are not timed
+   * (ie. calls rejected before any lookup) are recorded with a duration of 0.
+   */
+  public void traceCall(@NotNull Operation operation, @NotNull String argument, @NotNull GlobalSearchScope scope,
+                        long nanos) {
+    if (traceRecorder != null) {
+      traceRecorder.record(operation, argument, ScopeKind.of(scope), nanos, EventQueue.isDispatchThread());
+    }
+  }
+
+  public boolean isTracing() {
+    return traceRecorder != null;
+  }
+
+  /**
+   * Tells the {@link SlowOperationWatchdog} which class annoted with @Mapper is being processed by the current
+   * thread.
+   */
+  public void mapperProcessed(@NotNull String qualifiedName) {
+    if (enabled) {
+      watchdog.mapperProcessed(qualifiedName);
+    }
+  }
+
+  @NotNull
+  public SlowOperationWatchdog getWatchdog() {
+    return watchdog;
+  }
+
+  @NotNull
+  public LatencyHistogram getHistogram(@NotNull Operation operation) {
+    return histograms[operation.ordinal()];
+  }
+
+  /**
+   * Snapshots of the histogram of every Operation, in the order of declaration of the Operations.
+   */
+  @NotNull
+  public Map<Operation, LatencyHistogram.Snapshot> snapshot() {
+    Map<Operation, LatencyHistogram.Snapshot> res = new EnumMap<Operation, LatencyHistogram.Snapshot>(Operation.class);
+    for (Operation operation : OPERATIONS) {
+      res.put(operation, histograms[operation.ordinal()].snapshot());
+    }
+    return res;
+  }
+
+  /**
+   * Registers the statistics of a cache so that they are listed by {@link #getCacheStatistics()}. Statistics are
+   * registered once, when the cache is created.
+   */
+  public void register(@NotNull CacheStatistics statistics) {
+    cacheStatistics.add(statistics);
+  }
+
+  public void unregister(@NotNull CacheStatistics statistics) {
+    cacheStatistics.remove(statistics);
+  }
+
+  @NotNull
+  public List<CacheStatistics> getCacheStatistics() {
+    return Collections.unmodifiableList(cacheStatistics);
+  }
+
+  /**
+   * @return the time elapsed since the creation of the registry or the last call to {@link #reset()}
+   */
+  public long getElapsedNanos() {
+    return System.nanoTime() - startNanos.get();
+  }
+
+  public void reset() {
+    for (LatencyHistogram histogram : histograms) {
+      histogram.reset();
+    }
+    for (CacheStatistics statistics : cacheStatistics) {
+      statistics.reset();
+    }
+    startNanos.set(System.nanoTime());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("DAMapping metrics:");
+    for (Map.Entry<Operation, LatencyHistogram.Snapshot> entry : snapshot().entrySet()) {
+      if (entry.getValue().getCount() > 0) {
+        builder.append("\n  ").append(entry.getKey().getDisplayName()).append(": ").append(entry.getValue());
+      }
+    }
+    for (CacheStatistics statistics : cacheStatistics) {
+      builder.append("\n  ").append(statistics);
+    }
+    return builder.toString();
+  }
+}
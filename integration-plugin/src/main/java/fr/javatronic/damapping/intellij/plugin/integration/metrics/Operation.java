@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Operation - The operations of DAMapping timed by the {@link MetricsRegistry}: the stages of the pipeline which
+ * turns a class annoted with @Mapper into the PsiClass of the generated classes and the IDEA extension points through
+ * which this pipeline is triggered.
+ *
+ * @author Sébastien Lesaint
+ */
+public enum Operation {
+  PARSE(Kind.STAGE, "parse"),
+  VALIDATE(Kind.STAGE, "validate"),
+  CONTEXT_COMPUTE(Kind.STAGE, "context compute"),
+  GENERATE(Kind.STAGE, "generate"),
+  PSI_CREATION(Kind.STAGE, "PSI creation"),
+  FIND_CLASSES(Kind.EXTENSION_POINT, "ElementFinder.findClasses"),
+  GET_CLASSES(Kind.EXTENSION_POINT, "ElementFinder.getClasses"),
+  GET_CLASS_NAMES(Kind.EXTENSION_POINT, "ElementFinder.getClassNames"),
+  GET_CLASSES_BY_NAME(Kind.EXTENSION_POINT, "ShortNamesCache.getClassesByName"),
+  INDEXER(Kind.EXTENSION_POINT, "indexer");
+
+  public static enum Kind {
+    /**
+     * a step of the parsing and generation of the classes of a class annoted with @Mapper, stages do not overlap
+     */
+    STAGE,
+    /**
+     * a call from IDEA, its time includes the time of any stage it triggers
+     */
+    EXTENSION_POINT
+  }
+
+  @NotNull
+  private final Kind kind;
+  @NotNull
+  private final String displayName;
+
+  private Operation(@NotNull Kind kind, @NotNull String displayName) {
+    this.kind = kind;
+    this.displayName = displayName;
+  }
+
+  @NotNull
+  public Kind getKind() {
+    return kind;
+  }
+
+  @NotNull
+  public String getDisplayName() {
+    return displayName;
+  }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * SlowOperationRecord - Immutable description of a call to a DAMapping extension point which exceeded the latency
+ * budget of the {@link SlowOperationWatchdog}.
+ * <p>
+ * Only names are recorded (qualified name of the class annoted with @Mapper, name of the thread), never any PSI
+ * element, so that records can be kept indefinitely without leaking anything.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class SlowOperationRecord {
+  private final long timestamp;
+  @NotNull
+  private final Operation extensionPoint;
+  private final long durationNanos;
+  @Nullable
+  private final String mapperQualifiedName;
+  @NotNull
+  private final String threadName;
+  private final boolean dispatchThread;
+  @NotNull
+  private final Map<Operation, Long> operationNanos;
+
+  public SlowOperationRecord(long timestamp, @NotNull Operation extensionPoint, long durationNanos,
+                             @Nullable String mapperQualifiedName, @NotNull String threadName,
+                             boolean dispatchThread, @NotNull Map<Operation, Long> operationNanos) {
+    this.timestamp = timestamp;
+    this.extensionPoint = extensionPoint;
+    this.durationNanos = durationNanos;
+    this.mapperQualifiedName = mapperQualifiedName;
+    this.threadName = threadName;
+    this.dispatchThread = dispatchThread;
+    this.operationNanos = operationNanos.isEmpty()
+        ? Collections.<Operation, Long>emptyMap()
+        : Collections.unmodifiableMap(new EnumMap<Operation, Long>(operationNanos));
+  }
+
+  /**
+   * @return the time at which the call ended, in milliseconds since the epoch
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  @NotNull
+  public Operation getExtensionPoint() {
+    return extensionPoint;
+  }
+
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  /**
+   * @return the qualified name of the last class annoted with @Mapper processed during the call, {@code null} if
+   * none was
+   */
+  @Nullable
+  public String getMapperQualifiedName() {
+    return mapperQualifiedName;
+  }
+
+  @NotNull
+  public String getThreadName() {
+    return threadName;
+  }
+
+  /**
+   * @return {@code true} if the call was made from the event dispatch thread, ie. it froze the UI
+   */
+  public boolean isDispatchThread() {
+    return dispatchThread;
+  }
+
+  /**
+   * @return the time spent in each operation (stages and nested extension points) during the call
+   */
+  @NotNull
+  public Map<Operation, Long> getOperationNanos() {
+    return operationNanos;
+  }
+
+  void appendJson(@NotNull StringBuilder builder) {
+    builder.append("{\"timestamp\":").append(timestamp)
+           .append(",\"extensionPoint\":");
+    appendJsonString(builder, extensionPoint.getDisplayName());
+    builder.append(",\"durationNanos\":").append(durationNanos)
+           .append(",\"mapper\":");
+    if (mapperQualifiedName == null) {
+      builder.append("null");
+    }
+    else {
+      appendJsonString(builder, mapperQualifiedName);
+    }
+    builder.append(",\"thread\":");
+    appendJsonString(builder, threadName);
+    builder.append(",\"edt\":").append(dispatchThread)
+           .append(",\"operationNanos\":{");
+    boolean first = true;
+    for (Map.Entry<Operation, Long> entry : operationNanos.entrySet()) {
+      if (!first) {
+        builder.append(',');
+      }
+      first = false;
+      appendJsonString(builder, entry.getKey().getDisplayName());
+      builder.append(':').append(entry.getValue());
+    }
+    builder.append("}}");
+  }
+
+  static void appendJsonString(@NotNull StringBuilder builder, @NotNull String value) {
+    builder.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            builder.append(String.format("\\u%04x", (int) c));
+          }
+          else {
+            builder.append(c);
+          }
+      }
+    }
+    builder.append('"');
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    appendJson(builder);
+    return builder.toString();
+  }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * SlowOperationWatchdog - Records the calls to DAMapping extension points which take longer than a latency budget
+ * into a bounded ring buffer, which can be exported as JSON.
+ * <p>
+ * The watchdog is fed by the {@link MetricsRegistry}: the outermost extension point called on a thread opens a call,
+ * the time of every operation (stage or nested extension point) done on the same thread until it returns is added to
+ * this call. When the call exceeds the threshold, a {@link SlowOperationRecord} is stored with these timings, the
+ * name of the thread, whether it is the event dispatch thread and the last class annoted with @Mapper processed.
+ * Older records are overwritten once the buffer is full.
+ * </p>
+ * <p>
+ * The threshold defaults to {@value #DEFAULT_THRESHOLD_MS} ms and can be set with the system property
+ * {@code damapping.watchdog.thresholdMs} or {@link #setThresholdMillis(long)}.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class SlowOperationWatchdog {
+  public static final long DEFAULT_THRESHOLD_MS = 50;
+  private static final int DEFAULT_CAPACITY = 256;
+  private static final Operation[] OPERATIONS = Operation.values();
+
+  private final AtomicReferenceArray<SlowOperationRecord> records;
+  private final AtomicLong recordCount = new AtomicLong();
+  private volatile long thresholdNanos;
+  private final ThreadLocal<Call> currentCall = new ThreadLocal<Call>() {
+    @Override
+    protected Call initialValue() {
+      return new Call();
+    }
+  };
+
+  SlowOperationWatchdog() {
+    this(DEFAULT_CAPACITY, Long.getLong("damapping.watchdog.thresholdMs", DEFAULT_THRESHOLD_MS));
+  }
+
+  SlowOperationWatchdog(int capacity, long thresholdMillis) {
+    this.records = new AtomicReferenceArray<SlowOperationRecord>(capacity);
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+  }
+
+  public long getThresholdMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+  }
+
+  public void setThresholdMillis(long thresholdMillis) {
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+  }
+
+  /**
+   * Called by the {@link MetricsRegistry} when any timed operation starts on the current thread.
+   */
+  void operationStarted(@NotNull Operation operation) {
+    if (operation.getKind() != Operation.Kind.EXTENSION_POINT) {
+      return;
+    }
+    Call call = currentCall.get();
+    if (call.depth == 0) {
+      call.reset();
+    }
+    call.depth++;
+  }
+
+  /**
+   * Called by the {@link MetricsRegistry} when any timed operation ends on the current thread.
+   */
+  void operationEnded(@NotNull Operation operation, long nanos) {
+    Call call = currentCall.get();
+    if (call.depth == 0) {
+      // stage done outside of any extension point (ie. from an action or the augment provider)
+      return;
+    }
+    if (operation.getKind() == Operation.Kind.EXTENSION_POINT) {
+      call.depth--;
+      if (call.depth == 0) {
+        if (nanos >= thresholdNanos) {
+          record(operation, nanos, call);
+        }
+        return;
+      }
+    }
+    call.operationNanos[operation.ordinal()] += nanos;
+  }
+
+  /**
+   * Records the qualified name of the class annoted with @Mapper being processed by the current call, if any.
+   */
+  void mapperProcessed(@NotNull String qualifiedName) {
+    Call call = currentCall.get();
+    if (call.depth > 0) {
+      call.mapperQualifiedName = qualifiedName;
+    }
+  }
+
+  private void record(@NotNull Operation extensionPoint, long nanos, @NotNull Call call) {
+    Map<Operation, Long> operationNanos = new EnumMap<Operation, Long>(Operation.class);
+    for (Operation operation : OPERATIONS) {
+      long value = call.operationNanos[operation.ordinal()];
+      if (value > 0) {
+        operationNanos.put(operation, value);
+      }
+    }
+    SlowOperationRecord record = new SlowOperationRecord(System.currentTimeMillis(), extensionPoint, nanos,
+        call.mapperQualifiedName, Thread.currentThread().getName(), EventQueue.isDispatchThread(), operationNanos
+    );
+    long index = recordCount.getAndIncrement();
+    records.set((int) (index % records.length()), record);
+  }
+
+  /**
+   * @return the total number of slow calls recorded, including those which have been overwritten since
+   */
+  public long getRecordCount() {
+    return recordCount.get();
+  }
+
+  /**
+   * @return the records still in the buffer, the oldest one first
+   */
+  @NotNull
+  public List<SlowOperationRecord> getRecords() {
+    long count = recordCount.get();
+    int capacity = records.length();
+    long first = Math.max(0, count - capacity);
+    List<SlowOperationRecord> res = new ArrayList<SlowOperationRecord>((int) (count - first));
+    for (long i = first; i < count; i++) {
+      SlowOperationRecord record = records.get((int) (i % capacity));
+      // slot may not be written yet by a concurrent record()
+      if (record != null) {
+        res.add(record);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * @return the records still in the buffer as a JSON array, the oldest one first
+   */
+  @NotNull
+  public String toJson() {
+    StringBuilder builder = new StringBuilder("[");
+    boolean first = true;
+    for (SlowOperationRecord record : getRecords()) {
+      if (!first) {
+        builder.append(",\n");
+      }
+      first = false;
+      record.appendJson(builder);
+    }
+    return builder.append("]").toString();
+  }
+
+  public void clear() {
+    for (int i = 0; i < records.length(); i++) {
+      records.set(i, null);
+    }
+    recordCount.set(0);
+  }
+
+  /**
+   * State of the outermost extension point call of a thread, only accessed from this thread.
+   */
+  private static final class Call {
+    private int depth;
+    private final long[] operationNanos = new long[OPERATIONS.length];
+    @Nullable
+    private String mapperQualifiedName;
+
+    private void reset() {
+      for (int i = 0; i < operationNanos.length; i++) {
+        operationNanos[i] = 0;
+      }
+      mapperQualifiedName = null;
+    }
+  }
+}
@@ -15,25 +15,36 @@
  */
 package fr.javatronic.damapping.intellij.plugin.integration.provider;
 
+import fr.javatronic.damapping.intellij.plugin.integration.cache.CacheStatistics;
+import fr.javatronic.damapping.intellij.plugin.integration.cache.GeneratedClassSnapshot;
+import fr.javatronic.damapping.intellij.plugin.integration.cache.MapperModificationTracker;
+import fr.javatronic.damapping.intellij.plugin.integration.cache.NegativeLookupCache;
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.DAMappingSupportManager;
 import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
-import fr.javatronic.damapping.intellij.plugin.integration.index.AnnotedClassQualifiedNameIndex;
+import fr.javatronic.damapping.intellij.plugin.integration.index.AbstractMapperClassLocationIndex;
+import fr.javatronic.damapping.intellij.plugin.integration.index.GeneratedClassPackageIndex;
 import fr.javatronic.damapping.intellij.plugin.integration.index.GeneratedClassQualifiedNameIndex;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MetricsRegistry;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
 
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import com.google.common.collect.Lists;
 
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElementFinder;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiJavaFile;
-import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiPackage;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.Processor;
@@ -45,31 +56,52 @@ import org.jetbrains.annotations.Nullable;
  * DAMappingElementFinder - IDEA extension responsible for making interfaces generated by the DAMapping annotation
  * processor visible to IDEA even though the annotation processor hasn't run thus providing feedback to the user
  * that her usage of generated interfaces is valid or not.
+ * <p>
+ * This finder is dumb aware: while indexes are being rebuilt, lookups are served from the
+ * {@link GeneratedClassSnapshot} of the last known generated classes instead of querying the DAMapping indexes.
+ * </p>
  *
  * @author Sébastien Lesaint
  */
-public class DAMappingElementFinder extends PsiElementFinder {
-  private static final Logger LOGGER = Logger.getInstance(DAMappingAugmentProvider.class.getName());
+public class DAMappingElementFinder extends PsiElementFinder implements DumbAware {
+  private static final Logger LOGGER = Logger.getInstance(DAMappingElementFinder.class.getName());
+
+  /**
+   * JDK and library classes are looked up over and over while highlighting, this is enough to remember all of them
+   * for a large file
+   */
+  private static final int NEGATIVE_LOOKUP_CACHE_SIZE = 5000;
 
   private final Project project;
+  private final NegativeLookupCache negativeLookupCache;
 
   public DAMappingElementFinder(Project project) {
     this.project = project;
+    final CacheStatistics negativeLookupStatistics = new CacheStatistics("DAMappingElementFinder negative lookup");
+    this.negativeLookupCache = new NegativeLookupCache(new MapperModificationTracker(project),
+        NEGATIVE_LOOKUP_CACHE_SIZE, negativeLookupStatistics
+    );
+    MetricsRegistry.getInstance().register(negativeLookupStatistics);
+    Disposer.register(project, new Disposable() {
+      @Override
+      public void dispose() {
+        MetricsRegistry.getInstance().unregister(negativeLookupStatistics);
+      }
+    });
     LOGGER.debug("DAMappingElementFinder created");
   }
 
-  // TODO no processing if project is dumb or plugin is not enabled on project
-//  final Project project = element.getProject();
-//  if (DumbService.getInstance(project).isDumb()) {
-//    LOGGER.debug("Index rebuilding in progress");
-//    return Collections.emptyList();
-//  }
+  /**
+   * Statistics of the cache of qualified names which are known not to be the name of a class generated by DAMapping.
+   */
+  @NotNull
+  public CacheStatistics getNegativeLookupStatistics() {
+    return negativeLookupCache.getStatistics();
+  }
 
   @Nullable
   @Override
-  public PsiClass findClass(@NotNull String qualifiedName,
-                            final @NotNull GlobalSearchScope scope) {    // FIXME : ignore methods call if scope is
-    // not project (or even a module with activated DAMapping support ?)
+  public PsiClass findClass(@NotNull String qualifiedName, final @NotNull GlobalSearchScope scope) {
     PsiClass[] classes = findClasses(qualifiedName, scope);
     if (classes.length > 0) {
       return classes[0];
@@ -81,17 +113,80 @@ public class DAMappingElementFinder extends PsiElementFinder {
   @NotNull
   @Override
   public PsiClass[] findClasses(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
-    Collection<VirtualFile> virtualFiles = FileBasedIndex.getInstance().getContainingFiles(
-        GeneratedClassQualifiedNameIndex.NAME, qualifiedName, scope
-    );
-    if (virtualFiles.isEmpty()) {
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    if (!canContainMappers(scope)) {
+      metricsRegistry.traceCall(Operation.FIND_CLASSES, qualifiedName, scope, 0);
+      return PsiClass.EMPTY_ARRAY;
+    }
+
+    long start = metricsRegistry.start(Operation.FIND_CLASSES);
+    try {
+      return doFindClasses(qualifiedName, scope);
+    } finally {
+      metricsRegistry.stop(Operation.FIND_CLASSES, start, qualifiedName, scope);
+    }
+  }
+
+  @NotNull
+  private PsiClass[] doFindClasses(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
+    if (DumbService.getInstance(project).isDumb()) {
+      return getSnapshot().findByQualifiedName(qualifiedName, scope);
+    }
+
+    try {
+      return findClassesFromIndexIfNotKnownMissing(qualifiedName, scope);
+    } catch (IndexNotReadyException e) {
+      // dumb mode started after the check above
+      return getSnapshot().findByQualifiedName(qualifiedName, scope);
+    }
+  }
+
+  /**
+   * Most lookups are for classes which are not generated by DAMapping (JDK, libraries, classes of the project, ...).
+   * These lookups are remembered until any class of the project or the roots of the project change, so that a name
+   * is looked up in the DAMapping index only once.
+   * <p>
+   * The negative lookup cache does not depend on the scope of the lookup: a name is only remembered when it is not
+   * the name of a generated class in the whole project, not when the generated class exists but is out of the
+   * specified scope.
+   * </p>
+   */
+  @NotNull
+  private PsiClass[] findClassesFromIndexIfNotKnownMissing(@NotNull String qualifiedName,
+                                                           @NotNull GlobalSearchScope scope) {
+    long modificationCount = negativeLookupCache.getModificationCount();
+    if (negativeLookupCache.isKnownMissing(qualifiedName)) {
       return PsiClass.EMPTY_ARRAY;
     }
 
-    for (VirtualFile virtualFile : virtualFiles) {
-      List<PsiClass> generatedClasses = getGeneratedClasses(virtualFile, scope);
+    PsiClass[] res = findClassesFromIndex(qualifiedName, scope);
+    if (res.length == 0 && isMissingFromProject(qualifiedName)) {
+      negativeLookupCache.putMissing(qualifiedName, modificationCount);
+    }
+    return res;
+  }
+
+  private boolean isMissingFromProject(@NotNull String qualifiedName) {
+    return FileBasedIndex.getInstance()
+                         .getValues(GeneratedClassQualifiedNameIndex.NAME, qualifiedName,
+                             GlobalSearchScope.allScope(project)
+                         ).isEmpty();
+  }
+
+  @NotNull
+  private PsiClass[] findClassesFromIndex(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
+    List<PsiClass> mapperClasses = AbstractMapperClassLocationIndex.findMapperClasses(
+        GeneratedClassQualifiedNameIndex.NAME, qualifiedName, project, scope
+    );
+    ParseAndGenerateManager parseAndGenerateManager = ParseAndGenerateManager.getInstance(project);
+    for (PsiClass mapperClass : mapperClasses) {
+      List<PsiClass> generatedClasses = parseAndGenerateManager.getGeneratedPsiClasses(mapperClass, scope);
       for (PsiClass generatedClass : generatedClasses) {
         if (qualifiedName.equals(generatedClass.getQualifiedName())) {
+          if (MetricsRegistry.getInstance().isEnabled()) {
+            parseAndGenerateManager.getMapperCostTracker()
+                                   .recordLookup(StringUtil.notNullize(mapperClass.getQualifiedName()));
+          }
           return new PsiClass[] { generatedClass };
         }
       }
@@ -100,17 +195,17 @@ public class DAMappingElementFinder extends PsiElementFinder {
   }
 
   /**
-   * Retrieves the PsiClass for classes generated by DAMapping for the specific {@link VirtualFile}, if there is any,
-   * and return them as a List.
+   * Lookups in scopes which can not contain any class annoted with @Mapper (libraries, JDK, modules without DAMapping
+   * in their classpath, ...) and lookups in projects which do not use DAMapping at all are ignored without querying
+   * any index.
    */
+  private boolean canContainMappers(@NotNull GlobalSearchScope scope) {
+    return DAMappingSupportManager.getInstance(project).canContainMappers(scope);
+  }
+
   @NotNull
-  private List<PsiClass> getGeneratedClasses(VirtualFile virtualFile, GlobalSearchScope scope) {
-    PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
-    if (psiFile instanceof PsiJavaFile) {
-      return ParseAndGenerateManager.getInstance(project)
-                                    .getGeneratedPsiClasses(((PsiJavaFile) psiFile).getClasses()[0], scope);
-    }
-    return Collections.emptyList();
+  private GeneratedClassSnapshot getSnapshot() {
+    return ParseAndGenerateManager.getInstance(project).getGeneratedClassSnapshot();
   }
 
   @Nullable
@@ -126,39 +221,105 @@ public class DAMappingElementFinder extends PsiElementFinder {
   }
 
   /**
-   * To find all classes generated by DAMapping in a specific package, we look up classes annoted with DAMApping in that
-   * specific package using the index of AnnotedClassesQualifiedNames.
+   * To find all classes generated by DAMapping in a specific package, we look up the simple names of the classes
+   * generated in that specific package using the GeneratedClassPackageIndex and then retrieve each of them by its
+   * qualified name.
    */
   @NotNull
   @Override
   public PsiClass[] getClasses(@NotNull PsiPackage psiPackage, @NotNull GlobalSearchScope scope) {
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    if (!canContainMappers(scope)) {
+      metricsRegistry.traceCall(Operation.GET_CLASSES, psiPackage.getQualifiedName(), scope, 0);
+      return PsiClass.EMPTY_ARRAY;
+    }
+
+    long start = metricsRegistry.start(Operation.GET_CLASSES);
+    try {
+      return doGetClasses(psiPackage, scope);
+    } finally {
+      metricsRegistry.stop(Operation.GET_CLASSES, start, psiPackage.getQualifiedName(), scope);
+    }
+  }
+
+  @NotNull
+  private PsiClass[] doGetClasses(@NotNull PsiPackage psiPackage, @NotNull GlobalSearchScope scope) {
+    if (DumbService.getInstance(project).isDumb()) {
+      return getSnapshot().findByPackageName(psiPackage.getQualifiedName(), scope);
+    }
+
+    try {
+      return getClassesFromIndex(psiPackage, scope);
+    } catch (IndexNotReadyException e) {
+      // dumb mode started after the check above
+      return getSnapshot().findByPackageName(psiPackage.getQualifiedName(), scope);
+    }
+  }
+
+  @NotNull
+  private PsiClass[] getClassesFromIndex(@NotNull PsiPackage psiPackage, @NotNull GlobalSearchScope scope) {
     String packageName = psiPackage.getQualifiedName();
-    Collection<String> qualifiedNames = FileBasedIndex.getInstance().getAllKeys(
-        AnnotedClassQualifiedNameIndex.NAME, project
-    );
     List<PsiClass> res = Lists.newArrayList();
-    for (String qualifiedName : qualifiedNames) {
-      if (qualifiedName.startsWith(packageName)) {
-        Collection<VirtualFile> virtualFiles = FileBasedIndex.getInstance()
-                                                             .getContainingFiles(
-                                                                 AnnotedClassQualifiedNameIndex.NAME,
-                                                                 qualifiedName, scope
-                                                             );
-        for (VirtualFile virtualFile : virtualFiles) {
-          List<PsiClass> generatedClasses = getGeneratedClasses(virtualFile, scope);
-          res.addAll(generatedClasses);
-        }
-      }
+    for (String simpleName : getClassNamesFromIndex(packageName, scope)) {
+      res.addAll(Arrays.asList(findClassesFromIndex(StringUtil.getQualifiedName(packageName, simpleName), scope)));
     }
     return res.toArray(new PsiClass[res.size()]);
   }
 
-
+  /**
+   * The names of the classes generated by DAMapping in a specific package are read from the
+   * GeneratedClassPackageIndex: no PsiClass is generated.
+   */
   @NotNull
   @Override
   public Set<String> getClassNames(@NotNull PsiPackage psiPackage, @NotNull GlobalSearchScope scope) {
-    return super.getClassNames(psiPackage, scope
-    ); // super method uses getClasses(PsiPackage, GlobalSearchScope) in a way that suits us
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    if (!canContainMappers(scope)) {
+      metricsRegistry.traceCall(Operation.GET_CLASS_NAMES, psiPackage.getQualifiedName(), scope, 0);
+      return Collections.emptySet();
+    }
+
+    long start = metricsRegistry.start(Operation.GET_CLASS_NAMES);
+    try {
+      return doGetClassNames(psiPackage, scope);
+    } finally {
+      metricsRegistry.stop(Operation.GET_CLASS_NAMES, start, psiPackage.getQualifiedName(), scope);
+    }
+  }
+
+  @NotNull
+  private Set<String> doGetClassNames(@NotNull PsiPackage psiPackage, @NotNull GlobalSearchScope scope) {
+    if (DumbService.getInstance(project).isDumb()) {
+      return getSnapshotClassNames(psiPackage, scope);
+    }
+
+    try {
+      return getClassNamesFromIndex(psiPackage.getQualifiedName(), scope);
+    } catch (IndexNotReadyException e) {
+      // dumb mode started after the check above
+      return getSnapshotClassNames(psiPackage, scope);
+    }
+  }
+
+  @NotNull
+  private Set<String> getClassNamesFromIndex(@NotNull String packageName, @NotNull GlobalSearchScope scope) {
+    List<List<String>> values = FileBasedIndex.getInstance().getValues(GeneratedClassPackageIndex.NAME, packageName,
+        scope
+    );
+    if (values.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    Set<String> res = new HashSet<String>();
+    for (List<String> simpleNames : values) {
+      res.addAll(simpleNames);
+    }
+    return res;
+  }
+
+  @NotNull
+  private Set<String> getSnapshotClassNames(@NotNull PsiPackage psiPackage, @NotNull GlobalSearchScope scope) {
+    return getSnapshot().getClassNames(psiPackage.getQualifiedName(), scope);
   }
 
   @Override
@@ -168,11 +329,17 @@ public class DAMappingElementFinder extends PsiElementFinder {
     ); // don't know what's that method for, use supermethod for now
   }
 
+  /**
+   * Only the requested class is generated, if {@code className} is the name of a class generated by DAMapping in
+   * the specified package.
+   */
   @NotNull
   @Override
   public PsiClass[] getClasses(@Nullable String className, @NotNull PsiPackage psiPackage,
                                @NotNull GlobalSearchScope scope) {
-    return super.getClasses(className, psiPackage, scope
-    ); // super method uses getClasses(PsiPackage, GlobalSearchScope) in a way that suits us
+    if (className == null) {
+      return getClasses(psiPackage, scope);
+    }
+    return findClasses(StringUtil.getQualifiedName(psiPackage.getQualifiedName(), className), scope);
   }
 }
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.intellij.psi.PsiClass;
+import org.jetbrains.annotations.NotNull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * MapperDetection - The result of the detection of a class annoted with @Mapper by {@link MapperDetector} which
+ * tells why the class has been detected.
+ *
+ * @author Sébastien Lesaint
+ */
+public final class MapperDetection {
+  public static enum Reason {
+    /**
+     * annotation {@code @Mapper} with the single class import of {@link fr.javatronic.damapping.annotation.Mapper}
+     */
+    MAPPER_ANNOTATION_IMPORT(true),
+    /**
+     * annotation {@code @Mapper} with the on demand import of the package of
+     * {@link fr.javatronic.damapping.annotation.Mapper}
+     */
+    MAPPER_ANNOTATION_ON_DEMAND_IMPORT(true),
+    /**
+     * annotation {@code @fr.javatronic.damapping.annotation.Mapper}
+     */
+    MAPPER_ANNOTATION_QUALIFIED(true),
+    /**
+     * single class import of Guava's Function
+     */
+    FUNCTION_IMPORT(false),
+    /**
+     * interface {@code Function} implemented with the on demand import of the package of Guava's Function
+     */
+    FUNCTION_ON_DEMAND_IMPORT(false),
+    /**
+     * interface {@code com.google.common.base.Function} implemented
+     */
+    FUNCTION_QUALIFIED(false);
+
+    private final boolean mapperAnnotation;
+
+    private Reason(boolean mapperAnnotation) {
+      this.mapperAnnotation = mapperAnnotation;
+    }
+
+    public boolean isMapperAnnotation() {
+      return mapperAnnotation;
+    }
+  }
+
+  @NotNull
+  private final PsiClass psiClass;
+  @NotNull
+  private final Set<Reason> reasons;
+
+  public MapperDetection(@NotNull PsiClass psiClass, @NotNull EnumSet<Reason> reasons) {
+    this.psiClass = checkNotNull(psiClass);
+    this.reasons = Collections.unmodifiableSet(EnumSet.copyOf(reasons));
+  }
+
+  @NotNull
+  public PsiClass getPsiClass() {
+    return psiClass;
+  }
+
+  @NotNull
+  public Set<Reason> getReasons() {
+    return reasons;
+  }
+
+  public boolean hasMapperAnnotation() {
+    for (Reason reason : reasons) {
+      if (reason.isMapperAnnotation()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean hasFunction() {
+    for (Reason reason : reasons) {
+      if (!reason.isMapperAnnotation()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return {@code true} if the class is annoted with @Mapper and relies on Guava's Function, ie. if DAMapping
+   * generates classes from it
+   */
+  public boolean isMapper() {
+    return hasMapperAnnotation() && hasFunction();
+  }
+
+  @Override
+  public String toString() {
+    return "MapperDetection{" + psiClass.getName() + ", reasons=" + reasons + "}";
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing;
+
+import java.util.List;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * MapperDetector - Application service which tells which classes of a PsiJavaFile are classes annoted with
+ * {@link fr.javatronic.damapping.annotation.Mapper} for which DAMapping generates classes.
+ * <p>
+ * Detection is done on the short names of the annotations and of the implemented interfaces first and then relies
+ * on the imports of the file, it never resolves any reference. The result is computed once per modification of the
+ * file.
+ * </p>
+ * <p>
+ * Use {@code ServiceManager.getService(MapperDetector.class)} to retrieve the instance.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public interface MapperDetector {
+  /**
+   * Detects the top level classes of the specified file which are annoted with @Mapper.
+   *
+   * @return a List of {@link MapperDetection}, one for each class annoted with @Mapper (whether it is an actual
+   * mapper or not, see {@link MapperDetection#isMapper()}), an empty List if there is none
+   */
+  @NotNull
+  List<MapperDetection> detect(@NotNull PsiJavaFile psiJavaFile);
+
+  /**
+   * Tells whether the specified class is annoted with @Mapper and implements Guava's Function interface.
+   */
+  boolean isMapper(@NotNull PsiClass psiClass);
+
+  /**
+   * Tells whether the specified class is annoted with @Mapper, whether it implements Guava's Function or not and
+   * whether it is a top level class or not (inner classes can not be annoted with @Mapper but must be reported).
+   */
+  boolean isAnnotedWithMapper(@NotNull PsiClass psiClass);
+}
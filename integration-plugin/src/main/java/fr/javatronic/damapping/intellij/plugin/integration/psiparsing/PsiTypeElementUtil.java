@@ -15,19 +15,16 @@
  */
 package fr.javatronic.damapping.intellij.plugin.integration.psiparsing;
 
-import java.util.Arrays;
-import javax.annotation.Nullable;
-import com.google.common.base.Function;
 import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
 
+import com.intellij.psi.PsiArrayType;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiIdentifier;
 import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiPrimitiveType;
+import com.intellij.psi.PsiType;
 import com.intellij.psi.PsiTypeElement;
-
-import static com.google.common.collect.FluentIterable.from;
+import com.intellij.psi.PsiWildcardType;
 
 /**
  * PsiTypeElementUtil -
@@ -35,79 +32,103 @@ import static com.google.common.collect.FluentIterable.from;
  * @author Sébastien Lesaint
  */
 public final class PsiTypeElementUtil {
-  private static final Predicate<PsiElement> EXTENDS_PSIELEMENT_TEXT_PREDICATE = Predicates.compose(
-      Predicates.equalTo("extends"), PsiElementToText.INSTANCE
-  );
-  private static final Predicate<PsiElement> WILDCARD_PSIELEMENT_TEXT_PREDICATE = Predicates.compose(
-      Predicates.equalTo("?"), PsiElementToText.INSTANCE
-  );
-  private static final Predicate<PsiElement> VOID_PSIELEMENT_TEXT_PREDICATE = Predicates.compose(
-      Predicates.equalTo("void"), PsiElementToText.INSTANCE
-  );
 
   private PsiTypeElementUtil() {
     // prevents instanciation
   }
 
+  /**
+   * Computes the shape of the specified PsiTypeElement in a single pass, relying on the {@link PsiType} of the
+   * PsiTypeElement rather than on the text of its children.
+   * <p>
+   * The type of a varargs parameter ({@code String... values}) is a {@link com.intellij.psi.PsiEllipsisType}, a
+   * {@link PsiArrayType}: varargs are classified as {@link PsiTypeShape.Kind#ARRAY} with one more array dimension,
+   * which is how javac sees the type of the parameter ({@code String[]}). The former text based implementation did not
+   * consider varargs as arrays.
+   * </p>
+   */
+  public static PsiTypeShape classify(PsiTypeElement psiTypeElement) {
+    PsiType type = psiTypeElement.getType();
+    if (type instanceof PsiWildcardType) {
+      PsiWildcardType wildcardType = (PsiWildcardType) type;
+      if (!wildcardType.isBounded()) {
+        return new PsiTypeShape(psiTypeElement, PsiTypeShape.Kind.WILDCARD, 0, PsiTypeShape.Bound.NONE, null, null, null);
+      }
+      return new PsiTypeShape(psiTypeElement, PsiTypeShape.Kind.WILDCARD, 0,
+          wildcardType.isExtends() ? PsiTypeShape.Bound.EXTENDS : PsiTypeShape.Bound.SUPER,
+          findBoundTypeElement(psiTypeElement), null, null
+      );
+    }
+
+    PsiTypeShape.Kind kind;
+    int arrayDepth = 0;
+    if (type instanceof PsiArrayType) {
+      kind = PsiTypeShape.Kind.ARRAY;
+      arrayDepth = type.getArrayDimensions();
+    }
+    else if (PsiType.VOID.equals(type)) {
+      kind = PsiTypeShape.Kind.VOID;
+    }
+    else if (type instanceof PsiPrimitiveType) {
+      kind = PsiTypeShape.Kind.PRIMITIVE;
+    }
+    else {
+      kind = PsiTypeShape.Kind.DECLARED;
+    }
+
+    PsiJavaCodeReferenceElement referenceElement = psiTypeElement.getInnermostComponentReferenceElement();
+    PsiIdentifier identifier = referenceElement == null ? null : getIdentifier(referenceElement);
+    return new PsiTypeShape(psiTypeElement, kind, arrayDepth, PsiTypeShape.Bound.NONE, null, referenceElement,
+        identifier
+    );
+  }
+
+  private static PsiTypeElement findBoundTypeElement(PsiTypeElement wildcardTypeElement) {
+    for (PsiElement child = wildcardTypeElement.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof PsiTypeElement) {
+        return (PsiTypeElement) child;
+      }
+    }
+    return null;
+  }
+
+  private static PsiIdentifier getIdentifier(PsiJavaCodeReferenceElement referenceElement) {
+    PsiElement referenceNameElement = referenceElement.getReferenceNameElement();
+    if (referenceNameElement instanceof PsiIdentifier) {
+      return (PsiIdentifier) referenceNameElement;
+    }
+    return null;
+  }
+
   public static Optional<PsiIdentifier> getPsiIdentifier(PsiTypeElement psiTypeElement) {
     PsiJavaCodeReferenceElement referenceElement = psiTypeElement.getInnermostComponentReferenceElement();
     if (referenceElement == null) { // type natif, so very unlkely, will be boxed
       return Optional.absent();
     }
-    return from(Arrays.asList(referenceElement.getChildren())).filter(PsiIdentifier.class).first();
+    return Optional.fromNullable(getIdentifier(referenceElement));
   }
 
   public static Optional<PsiIdentifier> getPsiIdentifier(PsiJavaCodeReferenceElement nameReferenceElement) {
-    return from(Arrays.asList(nameReferenceElement.getChildren())).filter(PsiIdentifier.class).first();
+    return Optional.fromNullable(getIdentifier(nameReferenceElement));
   }
 
   public static boolean isVoid(PsiTypeElement psiTypeElement) {
-    PsiElement[] children = psiTypeElement.getChildren();
-    return children.length >= 1 && "void".equals(children[0].getText());
+    return PsiType.VOID.equals(psiTypeElement.getType());
   }
 
   public static boolean isWildcard(PsiTypeElement psiTypeElement) {
-    PsiElement[] children = psiTypeElement.getChildren();
-    return children.length >= 1 && "?".equals(children[0].getText());
+    return psiTypeElement.getType() instanceof PsiWildcardType;
   }
 
   public static boolean isExtendsWildcard(PsiTypeElement psiTypeElement) {
-    return isWildcard(psiTypeElement)
-        && psiTypeElement.getChildren().length >= 3
-        && "extends".equals(psiTypeElement.getChildren()[2].getText());
+    PsiType type = psiTypeElement.getType();
+    return type instanceof PsiWildcardType && ((PsiWildcardType) type).isExtends();
   }
 
+  /**
+   * @return {@code true} if the specified PsiTypeElement is an array, including the type of a varargs parameter
+   */
   public static boolean isArray(PsiTypeElement psiTypeElement) {
-    PsiElement[] children = psiTypeElement.getChildren();
-    if (children.length == 3) {
-      return isArray(children, 0);
-    }
-    if (children.length == 4) {
-      return isArray(children, 1);
-    }
-    return false;
-  }
-
-  private static boolean isArray(PsiElement[] children, int offset) {
-    return "[".equals(children[offset + 1].getText())
-        && "]".equals(children[offset + 2].getText());
-  }
-
-  private static enum PsiElementToText implements Function<PsiElement, String> {
-    INSTANCE;
-
-    @Nullable
-    @Override
-    public String apply(@Nullable PsiElement psiElement) {
-      if (psiElement == null) {
-        return null;
-      }
-      return psiElement.getText();
-    }
-
-//    @Override
-//    public String apply(@Nullable PsiElement psiElement) {
-//      return psiElement != null && "extends".equals(psiElement.getText());
-//    }
+    return psiTypeElement.getType() instanceof PsiArrayType;
   }
 }
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.intellij.psi.PsiIdentifier;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiTypeElement;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * PsiTypeShape - Immutable description of the shape of a {@link PsiTypeElement} computed once by
+ * {@link PsiTypeElementUtil#classify(com.intellij.psi.PsiTypeElement)}, so that extracting a DAType from a
+ * PsiTypeElement does not require to look at the children of the PsiTypeElement over and over.
+ *
+ * @author Sébastien Lesaint
+ */
+public final class PsiTypeShape {
+  public static enum Kind {
+    DECLARED, ARRAY, WILDCARD, VOID, PRIMITIVE
+  }
+
+  public static enum Bound {
+    NONE, EXTENDS, SUPER
+  }
+
+  @Nonnull
+  private final PsiTypeElement typeElement;
+  @Nonnull
+  private final Kind kind;
+  private final int arrayDepth;
+  @Nonnull
+  private final Bound bound;
+  @Nullable
+  private final PsiTypeElement boundTypeElement;
+  @Nullable
+  private final PsiJavaCodeReferenceElement referenceElement;
+  @Nullable
+  private final PsiIdentifier identifier;
+
+  PsiTypeShape(@Nonnull PsiTypeElement typeElement, @Nonnull Kind kind, int arrayDepth,
+               @Nonnull Bound bound, @Nullable PsiTypeElement boundTypeElement,
+               @Nullable PsiJavaCodeReferenceElement referenceElement, @Nullable PsiIdentifier identifier) {
+    this.typeElement = checkNotNull(typeElement);
+    this.kind = checkNotNull(kind);
+    this.arrayDepth = arrayDepth;
+    this.bound = checkNotNull(bound);
+    this.boundTypeElement = boundTypeElement;
+    this.referenceElement = referenceElement;
+    this.identifier = identifier;
+  }
+
+  @Nonnull
+  public PsiTypeElement getTypeElement() {
+    return typeElement;
+  }
+
+  @Nonnull
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * @return the number of dimensions of the array, 0 if the type is not an array
+   */
+  public int getArrayDepth() {
+    return arrayDepth;
+  }
+
+  @Nonnull
+  public Bound getBound() {
+    return bound;
+  }
+
+  /**
+   * @return the PsiTypeElement of the bound of a wildcard type, {@code null} if the type is not a bounded wildcard
+   */
+  @Nullable
+  public PsiTypeElement getBoundTypeElement() {
+    return boundTypeElement;
+  }
+
+  /**
+   * @return the innermost component reference element of the type (ie. the reference to {@code String} in
+   * {@code String[]}), {@code null} for primitive types, void and wildcards
+   */
+  @Nullable
+  public PsiJavaCodeReferenceElement getReferenceElement() {
+    return referenceElement;
+  }
+
+  /**
+   * @return the identifier of {@link #getReferenceElement()}, {@code null} if there is none
+   */
+  @Nullable
+  public PsiIdentifier getIdentifier() {
+    return identifier;
+  }
+
+  public boolean isWildcard() {
+    return kind == Kind.WILDCARD;
+  }
+
+  public boolean isExtendsWildcard() {
+    return kind == Kind.WILDCARD && bound == Bound.EXTENDS;
+  }
+
+  public boolean isArray() {
+    return kind == Kind.ARRAY;
+  }
+
+  public boolean isVoid() {
+    return kind == Kind.VOID;
+  }
+
+  @Override
+  public String toString() {
+    return "PsiTypeShape{" + kind + ", arrayDepth=" + arrayDepth + ", bound=" + bound
+        + ", identifier=" + (identifier == null ? null : identifier.getText()) + "}";
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.CacheStatistics;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MapperCostTracker;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MetricsRegistry;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiParsingService;
+import fr.javatronic.damapping.processor.model.DASourceClass;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.ParameterizedCachedValue;
+import com.intellij.psi.util.ParameterizedCachedValueProvider;
+import org.jetbrains.annotations.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * CachedPsiParsingServiceImpl - Implementation of {@link PsiParsingService} which stores the {@link DASourceClass}
+ * parsed from a {@link PsiClass} in the user data of this PsiClass.
+ * <p>
+ * The cached value depends on the PsiClass itself and is therefor dropped as soon as the file of the class is
+ * modified. The cache key is shared by all instances of this class so that every consumer of the parsed
+ * {@link DASourceClass} (source generation, indexes, validation, ...) shares a single parsing per modification.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class CachedPsiParsingServiceImpl implements PsiParsingService {
+  private static final Key<ParameterizedCachedValue<DASourceClass, PsiClass>> DAMAPPING_SOURCE_CLASS_KEY = Key.create("DAMAPPING_SOURCE_CLASS");
+
+  private final PsiParsingService delegate;
+  private final CacheStatistics statistics;
+  @Nullable
+  private final MapperCostTracker mapperCostTracker;
+  private final DASourceClassCachedValueProvider cachedValueProvider = new DASourceClassCachedValueProvider();
+
+  public CachedPsiParsingServiceImpl(PsiParsingService delegate, CacheStatistics statistics) {
+    this(delegate, statistics, null);
+  }
+
+  /**
+   * @param mapperCostTracker if not {@code null}, the time spent parsing each class is recorded in this tracker
+   */
+  public CachedPsiParsingServiceImpl(PsiParsingService delegate, CacheStatistics statistics,
+                                     @Nullable MapperCostTracker mapperCostTracker) {
+    this.delegate = checkNotNull(delegate);
+    this.statistics = checkNotNull(statistics);
+    this.mapperCostTracker = mapperCostTracker;
+  }
+
+  @Override
+  public DASourceClass parse(PsiClass psiClass) {
+    statistics.request();
+    return CachedValuesManager.getManager(psiClass.getProject()).getParameterizedCachedValue(psiClass,
+        DAMAPPING_SOURCE_CLASS_KEY, cachedValueProvider, false, psiClass
+    );
+  }
+
+  private class DASourceClassCachedValueProvider implements ParameterizedCachedValueProvider<DASourceClass, PsiClass> {
+    @Nullable
+    @Override
+    public CachedValueProvider.Result<DASourceClass> compute(PsiClass param) {
+      statistics.miss();
+      MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+      long start = metricsRegistry.start(Operation.PARSE);
+      try {
+        return CachedValueProvider.Result.create(delegate.parse(param), param);
+      } finally {
+        long nanos = metricsRegistry.stop(Operation.PARSE, start);
+        if (nanos >= 0 && mapperCostTracker != null) {
+          mapperCostTracker.recordParse(StringUtil.notNullize(param.getQualifiedName()), nanos);
+        }
+      }
+    }
+  }
+}
@@ -16,6 +16,7 @@
 package fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl;
 
 import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiContext;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiTypeShape;
 import fr.javatronic.damapping.processor.model.DAName;
 
 import javax.annotation.Nonnull;
@@ -43,6 +44,9 @@ public interface DANameExtractor {
   @Nonnull
   DAName simpleName(PsiTypeElement psiTypeElement);
 
+  @Nonnull
+  DAName simpleName(PsiTypeShape psiTypeShape);
+
   @Nullable
   DAName simpleName(PsiJavaCodeReferenceElement referenceElement);
 
@@ -58,6 +62,9 @@ public interface DANameExtractor {
   @Nullable
   DAName qualifiedName(PsiTypeElement psiTypeElement, PsiContext psiContext);
 
+  @Nullable
+  DAName qualifiedName(PsiTypeShape psiTypeShape, PsiContext psiContext);
+
   @Nullable
   DAName qualifiedName(PsiAnnotation psiAnnotation, PsiContext psiContext);
 
@@ -17,6 +17,7 @@ package fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl;
 
 import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiContext;
 import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiTypeElementUtil;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiTypeShape;
 import fr.javatronic.damapping.processor.model.DAName;
 import fr.javatronic.damapping.processor.model.factory.DANameFactory;
 
@@ -78,20 +79,21 @@ public class DANameExtractorImpl implements DANameExtractor {
   @Nonnull
   @Override
   public DAName simpleName(PsiTypeElement psiTypeElement) {
-    Optional<PsiIdentifier> psiIdentifier = PsiTypeElementUtil.getPsiIdentifier(psiTypeElement);
-    if (psiIdentifier.isPresent()) {
+    return simpleName(PsiTypeElementUtil.classify(psiTypeElement));
+  }
+
+  @Nonnull
+  @Override
+  public DAName simpleName(PsiTypeShape psiTypeShape) {
+    PsiIdentifier psiIdentifier = psiTypeShape.getIdentifier();
+    if (psiIdentifier != null) {
       // TODO handle case or an array
-      return DANameFactory.simpleFromQualified(psiIdentifier.get().getText());
+      return DANameFactory.simpleFromQualified(psiIdentifier.getText());
     }
-    if (PsiTypeElementUtil.isWildcard(psiTypeElement)) {
+    if (psiTypeShape.isWildcard()) {
       return DANameFactory.wildcard();
     }
-    return DANameFactory.from(psiTypeElement.getText());
-//    PsiJavaCodeReferenceElement innermostComponentReferenceElement = psiTypeElement.getInnermostComponentReferenceElement();
-//    if (innermostComponentReferenceElement == null) { // psiTypeElement is a primitive type
-//      return DANameFactory.from(psiTypeElement.getText());
-//    }
-
+    return DANameFactory.from(psiTypeShape.getTypeElement().getText());
   }
 
   @Nullable
@@ -173,19 +175,24 @@ public class DANameExtractorImpl implements DANameExtractor {
   @Nullable
   @Override
   public DAName qualifiedName(PsiTypeElement psiTypeElement, PsiContext psiContext) {
-    if (PsiTypeElementUtil.isWildcard(psiTypeElement)) {
+    return qualifiedName(PsiTypeElementUtil.classify(psiTypeElement), psiContext);
+  }
+
+  @Nullable
+  @Override
+  public DAName qualifiedName(PsiTypeShape psiTypeShape, PsiContext psiContext) {
+    if (psiTypeShape.isWildcard()) {
       return DANameFactory.wildcard();
     }
-    if (PsiTypeElementUtil.isVoid(psiTypeElement)) {
+    if (psiTypeShape.isVoid()) {
       return DANameFactory.voidDAName();
     }
 
-    Optional<PsiIdentifier> psiIdentifier = PsiTypeElementUtil.getPsiIdentifier(psiTypeElement);
-    Optional<DAName> res = qualifiedName(psiIdentifier, psiContext);
+    Optional<DAName> res = qualifiedName(Optional.fromNullable(psiTypeShape.getIdentifier()), psiContext);
     if (res.isPresent()) {
       return res.get();
     }
-    return DANameFactory.from(psiContext.getPackageName().getName() + "." + psiTypeElement.getText());
+    return DANameFactory.from(psiContext.getPackageName().getName() + "." + psiTypeShape.getTypeElement().getText());
   }
 
   @Nonnull
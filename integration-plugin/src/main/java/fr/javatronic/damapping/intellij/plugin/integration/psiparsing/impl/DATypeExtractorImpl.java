@@ -17,18 +17,17 @@ package fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl;
 
 import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiContext;
 import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiTypeElementUtil;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiTypeShape;
 import fr.javatronic.damapping.processor.model.DAName;
 import fr.javatronic.damapping.processor.model.DAType;
 import fr.javatronic.damapping.processor.model.DATypeKind;
 import fr.javatronic.damapping.processor.model.factory.DANameFactory;
 
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import com.google.common.base.Function;
-import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.psi.PsiAnnotation;
@@ -36,10 +35,9 @@ import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiJavaCodeReferenceElement;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiReferenceParameterList;
 import com.intellij.psi.PsiTypeElement;
 
-import static com.google.common.collect.FluentIterable.from;
-
 /**
  * DATypeExtractorImpl -
  *
@@ -93,52 +91,54 @@ public class DATypeExtractorImpl implements DATypeExtractor {
   }
 
   private DAType extractDAType(@Nonnull PsiTypeElement typeElement, PsiContext psiContext) {
-    return DAType.builder(extractDATypeKind(typeElement), daNameExtractor.simpleName(typeElement))
-        .withQualifiedName(daNameExtractor.qualifiedName(typeElement, psiContext))
-        .withTypeArgs(extractTypeArgs(typeElement, psiContext))
-        .withExtendsBound(extractExtendsBound(typeElement, psiContext))
+    PsiTypeShape typeShape = PsiTypeElementUtil.classify(typeElement);
+    return DAType.builder(extractDATypeKind(typeShape), daNameExtractor.simpleName(typeShape))
+        .withQualifiedName(daNameExtractor.qualifiedName(typeShape, psiContext))
+        .withTypeArgs(extractTypeArgs(typeShape, psiContext))
+        .withExtendsBound(extractExtendsBound(typeShape, psiContext))
         .build();
   }
 
-  private DAType extractExtendsBound(PsiTypeElement typeElement, PsiContext psiContext) {
-    if (!PsiTypeElementUtil.isExtendsWildcard(typeElement)) {
+  private DAType extractExtendsBound(PsiTypeShape typeShape, PsiContext psiContext) {
+    if (!typeShape.isExtendsWildcard()) {
       return null;
     }
 
-    Optional<PsiTypeElement> extendsBoundTypeElement = from(Arrays.asList(typeElement.getChildren()))
-        .filter(PsiTypeElement.class)
-        .first();
-    if (extendsBoundTypeElement.isPresent()) {
-      return extractDAType(extendsBoundTypeElement.get(), psiContext);
+    PsiTypeElement extendsBoundTypeElement = typeShape.getBoundTypeElement();
+    if (extendsBoundTypeElement != null) {
+      return extractDAType(extendsBoundTypeElement, psiContext);
     }
     LOGGER.error("Can not find PsiTypeElement as the extends bound in the children array. This is very unlikely when extends keyword exists...");
     return null;
   }
 
-  private List<DAType> extractTypeArgs(PsiTypeElement typeElement, final PsiContext psiContext) {
-    if (PsiTypeElementUtil.isWildcard(typeElement) || PsiTypeElementUtil.isVoid(typeElement)) {
+  private List<DAType> extractTypeArgs(PsiTypeShape typeShape, PsiContext psiContext) {
+    if (typeShape.isWildcard() || typeShape.isVoid()) {
       return Collections.emptyList();
     }
 
-    PsiJavaCodeReferenceElement referenceElement = typeElement.getInnermostComponentReferenceElement();
+    PsiJavaCodeReferenceElement referenceElement = typeShape.getReferenceElement();
     if (referenceElement == null) {
       return Collections.emptyList();
     }
 
-    if (referenceElement.getParameterList() == null) {
+    PsiReferenceParameterList parameterList = referenceElement.getParameterList();
+    if (parameterList == null) {
       return Collections.emptyList();
     }
 
-    List<DAType> daTypes = from(Arrays.asList(referenceElement.getParameterList().getTypeParameterElements()))
-        .transform(new Function<PsiTypeElement, DAType>() {
-          @Nullable
-          @Override
-          public DAType apply(@Nullable PsiTypeElement psiTypeElement) {
-            return extractDAType(psiTypeElement, psiContext);
-          }
-        }
-        ).toImmutableList();
-    return daTypes;
+    return extractTypeArgs(parameterList.getTypeParameterElements(), psiContext);
+  }
+
+  private List<DAType> extractTypeArgs(PsiTypeElement[] typeParameterElements, @Nullable PsiContext psiContext) {
+    if (typeParameterElements.length == 0) {
+      return ImmutableList.of();
+    }
+    ImmutableList.Builder<DAType> builder = ImmutableList.builder();
+    for (PsiTypeElement typeParameterElement : typeParameterElements) {
+      builder.add(extractDAType(typeParameterElement, psiContext));
+    }
+    return builder.build();
   }
 
   @Override
@@ -151,28 +151,19 @@ public class DATypeExtractorImpl implements DATypeExtractor {
                  .build();
   }
 
-  private List<DAType> extractTypeArgs(PsiJavaCodeReferenceElement referenceElement, final @Nullable PsiContext psiContext) {
-    List<DAType> daTypes = from(Arrays.asList(referenceElement.getParameterList().getTypeParameterElements()))
-        .transform(new Function<PsiTypeElement, DAType>() {
-
-          @Nullable
-          @Override
-          public DAType apply(@Nullable PsiTypeElement psiTypeElement) {
-            return extractDAType(psiTypeElement, psiContext);
-          }
-        }
-        ).toImmutableList();
-    return daTypes;
+  private List<DAType> extractTypeArgs(PsiJavaCodeReferenceElement referenceElement, @Nullable PsiContext psiContext) {
+    return extractTypeArgs(referenceElement.getParameterList().getTypeParameterElements(), psiContext);
   }
 
-  private DATypeKind extractDATypeKind(PsiTypeElement psiTypeElement) {
-    if (PsiTypeElementUtil.isWildcard(psiTypeElement)) {
-      return DATypeKind.WILDCARD;
+  private DATypeKind extractDATypeKind(PsiTypeShape typeShape) {
+    switch (typeShape.getKind()) {
+      case WILDCARD:
+        return DATypeKind.WILDCARD;
+      case ARRAY:
+        return DATypeKind.ARRAY;
+      default:
+        return DATypeKind.DECLARED;
     }
-    if (PsiTypeElementUtil.isArray(psiTypeElement)) {
-      return DATypeKind.ARRAY;
-    }
-    return DATypeKind.DECLARED;
   }
 
   private DATypeKind extractDATypeKind(PsiJavaCodeReferenceElement referenceElement) {
@@ -182,12 +173,11 @@ public class DATypeExtractorImpl implements DATypeExtractor {
   @Override
   @Nonnull
   public DAType forParameter(PsiParameter psiParameter, PsiContext psiContext) {
-    Optional<PsiTypeElement> typeElement = from(Arrays.asList(psiParameter.getChildren())).filter(PsiTypeElement.class)
-        .first();
-    if (!typeElement.isPresent()) {
+    PsiTypeElement typeElement = psiParameter.getTypeElement();
+    if (typeElement == null) {
       throw new IllegalArgumentException("PsiParameter has no PsiTypeElement");
     }
-    return extractDAType(typeElement.get(), psiContext);
+    return extractDAType(typeElement, psiContext);
   }
 
   @Override
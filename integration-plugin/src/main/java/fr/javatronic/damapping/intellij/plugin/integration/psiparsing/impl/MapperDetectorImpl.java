@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl;
+
+import fr.javatronic.damapping.annotation.Mapper;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetection;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import com.google.common.base.Function;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiImportList;
+import com.intellij.psi.PsiImportStatement;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiModifierList;
+import com.intellij.psi.PsiReferenceList;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.ParameterizedCachedValue;
+import com.intellij.psi.util.ParameterizedCachedValueProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * MapperDetectorImpl - Implementation of {@link MapperDetector} which stores the detection result of a
+ * {@link PsiJavaFile} in the user data of this file.
+ *
+ * @author Sébastien Lesaint
+ */
+public class MapperDetectorImpl implements MapperDetector {
+  private static final Key<ParameterizedCachedValue<List<MapperDetection>, PsiJavaFile>> DAMAPPING_MAPPER_DETECTION_KEY = Key.create("DAMAPPING_MAPPER_DETECTION");
+
+  private static final String MAPPER_SIMPLE_NAME = Mapper.class.getSimpleName();
+  private static final String MAPPER_QUALIFIED_NAME = Mapper.class.getName();
+  private static final String MAPPER_PACKAGE_NAME = StringUtil.getPackageName(MAPPER_QUALIFIED_NAME);
+  private static final String FUNCTION_SIMPLE_NAME = Function.class.getSimpleName();
+  private static final String FUNCTION_QUALIFIED_NAME = Function.class.getName();
+  private static final String FUNCTION_PACKAGE_NAME = StringUtil.getPackageName(FUNCTION_QUALIFIED_NAME);
+
+  private final MapperDetectionCachedValueProvider cachedValueProvider = new MapperDetectionCachedValueProvider();
+
+  @NotNull
+  @Override
+  public List<MapperDetection> detect(@NotNull PsiJavaFile psiJavaFile) {
+    return CachedValuesManager.getManager(psiJavaFile.getProject()).getParameterizedCachedValue(psiJavaFile,
+        DAMAPPING_MAPPER_DETECTION_KEY, cachedValueProvider, false, psiJavaFile
+    );
+  }
+
+  @Override
+  public boolean isMapper(@NotNull PsiClass psiClass) {
+    PsiFile containingFile = psiClass.getContainingFile();
+    if (!(containingFile instanceof PsiJavaFile)) {
+      return false;
+    }
+    for (MapperDetection detection : detect((PsiJavaFile) containingFile)) {
+      if (detection.getPsiClass() == psiClass) {
+        return detection.isMapper();
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isAnnotedWithMapper(@NotNull PsiClass psiClass) {
+    PsiFile containingFile = psiClass.getContainingFile();
+    if (!(containingFile instanceof PsiJavaFile)) {
+      return false;
+    }
+    if (psiClass.getContainingClass() == null) {
+      for (MapperDetection detection : detect((PsiJavaFile) containingFile)) {
+        if (detection.getPsiClass() == psiClass) {
+          return detection.hasMapperAnnotation();
+        }
+      }
+      return false;
+    }
+
+    // inner classes are not part of the cached detections, they are rarely annoted with anything
+    PsiAnnotation mapperAnnotation = findMapperAnnotationByShortName(psiClass);
+    return mapperAnnotation != null
+        && mapperAnnotationReason(mapperAnnotation, new Imports(((PsiJavaFile) containingFile).getImportList())) != null;
+  }
+
+  @NotNull
+  private static List<MapperDetection> computeDetections(@NotNull PsiJavaFile psiJavaFile) {
+    PsiClass[] psiClasses = psiJavaFile.getClasses();
+    if (psiClasses.length == 0) {
+      return Collections.emptyList();
+    }
+
+    Imports imports = null;
+    List<MapperDetection> res = null;
+    for (PsiClass psiClass : psiClasses) {
+      PsiAnnotation mapperAnnotation = findMapperAnnotationByShortName(psiClass);
+      if (mapperAnnotation == null) {
+        continue;
+      }
+
+      // imports are only looked at when a class may be annoted with @Mapper, which is rarely the case
+      if (imports == null) {
+        imports = new Imports(psiJavaFile.getImportList());
+      }
+      EnumSet<MapperDetection.Reason> reasons = EnumSet.noneOf(MapperDetection.Reason.class);
+      MapperDetection.Reason annotationReason = mapperAnnotationReason(mapperAnnotation, imports);
+      if (annotationReason == null) {
+        continue;
+      }
+      reasons.add(annotationReason);
+      addFunctionReasons(psiClass, imports, reasons);
+
+      if (res == null) {
+        res = new ArrayList<MapperDetection>(psiClasses.length);
+      }
+      res.add(new MapperDetection(psiClass, reasons));
+    }
+    return res == null ? Collections.<MapperDetection>emptyList() : Collections.unmodifiableList(res);
+  }
+
+  @Nullable
+  private static PsiAnnotation findMapperAnnotationByShortName(@NotNull PsiClass psiClass) {
+    PsiModifierList modifierList = psiClass.getModifierList();
+    if (modifierList == null) {
+      return null;
+    }
+    for (PsiAnnotation psiAnnotation : modifierList.getAnnotations()) {
+      PsiJavaCodeReferenceElement referenceElement = psiAnnotation.getNameReferenceElement();
+      if (referenceElement != null && MAPPER_SIMPLE_NAME.equals(referenceElement.getReferenceName())) {
+        return psiAnnotation;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static MapperDetection.Reason mapperAnnotationReason(@NotNull PsiAnnotation mapperAnnotation,
+                                                               @NotNull Imports imports) {
+    PsiJavaCodeReferenceElement referenceElement = mapperAnnotation.getNameReferenceElement();
+    if (referenceElement == null) {
+      return null;
+    }
+    if (referenceElement.isQualified()) {
+      return MAPPER_QUALIFIED_NAME.equals(referenceElement.getText()) ? MapperDetection.Reason.MAPPER_ANNOTATION_QUALIFIED : null;
+    }
+    if (imports.mapperImported) {
+      return MapperDetection.Reason.MAPPER_ANNOTATION_IMPORT;
+    }
+    if (imports.mapperPackageImported) {
+      return MapperDetection.Reason.MAPPER_ANNOTATION_ON_DEMAND_IMPORT;
+    }
+    return null;
+  }
+
+  private static void addFunctionReasons(@NotNull PsiClass psiClass, @NotNull Imports imports,
+                                         @NotNull EnumSet<MapperDetection.Reason> reasons) {
+    if (imports.functionImported) {
+      reasons.add(MapperDetection.Reason.FUNCTION_IMPORT);
+    }
+
+    PsiReferenceList implementsList = psiClass.getImplementsList();
+    if (implementsList == null) {
+      return;
+    }
+    for (PsiJavaCodeReferenceElement referenceElement : implementsList.getReferenceElements()) {
+      if (!FUNCTION_SIMPLE_NAME.equals(referenceElement.getReferenceName())) {
+        continue;
+      }
+      if (referenceElement.isQualified()) {
+        if (isFunctionQualifier(referenceElement.getQualifier())) {
+          reasons.add(MapperDetection.Reason.FUNCTION_QUALIFIED);
+        }
+      }
+      else if (imports.functionPackageImported) {
+        reasons.add(MapperDetection.Reason.FUNCTION_ON_DEMAND_IMPORT);
+      }
+    }
+  }
+
+  private static boolean isFunctionQualifier(@Nullable PsiElement qualifier) {
+    return qualifier instanceof PsiJavaCodeReferenceElement
+        && FUNCTION_PACKAGE_NAME.equals(((PsiJavaCodeReferenceElement) qualifier).getText());
+  }
+
+  /**
+   * The imports of a file relevant to the detection of a class annoted with @Mapper, computed in a single pass over
+   * the import statements.
+   */
+  private static final class Imports {
+    private boolean mapperImported;
+    private boolean mapperPackageImported;
+    private boolean functionImported;
+    private boolean functionPackageImported;
+
+    private Imports(@Nullable PsiImportList psiImportList) {
+      if (psiImportList == null) {
+        return;
+      }
+      for (PsiImportStatement importStatement : psiImportList.getImportStatements()) {
+        String qualifiedName = importStatement.getQualifiedName();
+        if (qualifiedName == null) {
+          continue;
+        }
+        if (importStatement.isOnDemand()) {
+          mapperPackageImported |= MAPPER_PACKAGE_NAME.equals(qualifiedName);
+          functionPackageImported |= FUNCTION_PACKAGE_NAME.equals(qualifiedName);
+        }
+        else {
+          mapperImported |= MAPPER_QUALIFIED_NAME.equals(qualifiedName);
+          functionImported |= FUNCTION_QUALIFIED_NAME.equals(qualifiedName);
+        }
+      }
+    }
+  }
+
+  private static class MapperDetectionCachedValueProvider
+      implements ParameterizedCachedValueProvider<List<MapperDetection>, PsiJavaFile> {
+    @Nullable
+    @Override
+    public CachedValueProvider.Result<List<MapperDetection>> compute(PsiJavaFile param) {
+      return CachedValueProvider.Result.create(computeDetections(param), param);
+    }
+  }
+}
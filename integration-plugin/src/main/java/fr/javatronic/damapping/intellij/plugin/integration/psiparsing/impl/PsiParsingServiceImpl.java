@@ -40,7 +40,9 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
+import com.intellij.lang.ASTNode;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiAnnotation;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiEnumConstant;
@@ -51,6 +53,7 @@ import com.intellij.psi.PsiModifierList;
 import com.intellij.psi.PsiParameter;
 import com.intellij.psi.PsiParameterList;
 import com.intellij.psi.PsiReferenceList;
+import com.intellij.psi.impl.source.tree.CompositeElement;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.FluentIterable.from;
@@ -62,6 +65,10 @@ import static com.google.common.collect.FluentIterable.from;
  */
 public class PsiParsingServiceImpl implements PsiParsingService {
   private static final Logger LOGGER = Logger.getInstance(PsiParsingServiceImpl.class.getName());
+  private static final Key<CachedDAMethod> DAMAPPING_METHOD_KEY = Key.create("DAMAPPING_METHOD");
+  private static final Key<Object> DAMAPPING_IMPORT_LIST_TOKEN_KEY = Key.create("DAMAPPING_IMPORT_LIST_TOKEN");
+
+  private static final long NO_STAMP = -1;
 
   private final DANameExtractor daNameExtractor;
   private final DATypeExtractor daTypeExtractor;
@@ -170,6 +177,7 @@ public class PsiParsingServiceImpl implements PsiParsingService {
   }
 
   private List<DAMethod> extractMethods(PsiClass psiClass, final PsiContext psiContext) {
+    final ContextStamp contextStamp = ContextStamp.of(psiContext);
     List<DAMethod> daMethods = from(Arrays.asList(psiClass.getChildren()))
         .filter(PsiMethod.class)
         .transform(new Function<PsiMethod, DAMethod>() {
@@ -179,20 +187,7 @@ public class PsiParsingServiceImpl implements PsiParsingService {
             if (psiMethod == null) {
               return null;
             }
-            return daMethodBuilder(psiMethod)
-                .withName(DANameFactory.from(psiMethod.getName()))
-                .withAnnotations(extractAnnotations(psiMethod.getModifierList(), psiContext))
-                .withModifiers(daModifierExtractor.extractModifiers(psiMethod))
-                .withParameters(extractParameters(psiMethod, psiContext))
-                .withReturnType(daTypeExtractor.forMethod(psiMethod, psiContext))
-                .build();
-          }
-
-          private DAMethod.Builder daMethodBuilder(PsiMethod psiMethod) {
-            if (psiMethod.isConstructor()) {
-              return DAMethod.constructorBuilder();
-            }
-            return DAMethod.methodBuilder();
+            return extractMethod(psiMethod, psiContext, contextStamp);
           }
         }
         ).toImmutableList();
@@ -204,6 +199,56 @@ public class PsiParsingServiceImpl implements PsiParsingService {
     return daMethods;
   }
 
+  /**
+   * Returns the DAMethod of the specified PsiMethod from the cache stored in the user data of the AST node of the
+   * PsiMethod if neither the method nor the imports and the package of the file have changed since it was built,
+   * otherwise builds the DAMethod and stores it in this cache.
+   * <p>
+   * Qualified names are computed from the text of the file only (imports, java.lang and the package of the file, see
+   * {@link DANameExtractorImpl}), the DAMethod of a method therefore only depends on the method itself and on the
+   * {@link ContextStamp}. When a class annoted with @Mapper is modified, only the methods which have actually been
+   * modified are parsed again.
+   * </p>
+   */
+  private DAMethod extractMethod(PsiMethod psiMethod, PsiContext psiContext, ContextStamp contextStamp) {
+    ASTNode methodNode = psiMethod.getNode();
+    long methodStamp = modificationCount(methodNode);
+    CachedDAMethod cached = methodNode == null ? null : methodNode.getUserData(DAMAPPING_METHOD_KEY);
+    if (cached != null && cached.methodStamp == methodStamp && cached.contextStamp.equals(contextStamp)) {
+      return cached.daMethod;
+    }
+
+    DAMethod daMethod = daMethodBuilder(psiMethod)
+        .withName(DANameFactory.from(psiMethod.getName()))
+        .withAnnotations(extractAnnotations(psiMethod.getModifierList(), psiContext))
+        .withModifiers(daModifierExtractor.extractModifiers(psiMethod))
+        .withParameters(extractParameters(psiMethod, psiContext))
+        .withReturnType(daTypeExtractor.forMethod(psiMethod, psiContext))
+        .build();
+    if (methodNode != null && methodStamp != NO_STAMP) {
+      methodNode.putUserData(DAMAPPING_METHOD_KEY, new CachedDAMethod(methodStamp, contextStamp, daMethod));
+    }
+    return daMethod;
+  }
+
+  /**
+   * The modification count of a {@link CompositeElement} changes each time anything changes in its subtree, while
+   * the cache is stored in its user data and is dropped with it when the node is replaced.
+   */
+  private static long modificationCount(@Nullable ASTNode node) {
+    if (node instanceof CompositeElement) {
+      return ((CompositeElement) node).getModificationCount();
+    }
+    return NO_STAMP;
+  }
+
+  private static DAMethod.Builder daMethodBuilder(PsiMethod psiMethod) {
+    if (psiMethod.isConstructor()) {
+      return DAMethod.constructorBuilder();
+    }
+    return DAMethod.methodBuilder();
+  }
+
   private DAMethod instanceDefaultConstructor(PsiClass psiClass) {
     return DAMethod.constructorBuilder()
                    .withName(DANameFactory.from(psiClass.getName()))
@@ -235,6 +280,75 @@ public class PsiParsingServiceImpl implements PsiParsingService {
         ).toImmutableList();
   }
 
+  private static final class CachedDAMethod {
+    private final long methodStamp;
+    private final ContextStamp contextStamp;
+    private final DAMethod daMethod;
+
+    private CachedDAMethod(long methodStamp, ContextStamp contextStamp, DAMethod daMethod) {
+      this.methodStamp = methodStamp;
+      this.contextStamp = contextStamp;
+      this.daMethod = daMethod;
+    }
+  }
+
+  /**
+   * Stamp of the imports and of the package of a file, the only part of the file outside of a method the DAMethod of
+   * this method depends on.
+   * <p>
+   * The import list is identified by a token stored in the user data of its AST node rather than by the node itself,
+   * so that the cache does not keep a replaced AST alive, and its content by the modification count of the node.
+   * </p>
+   */
+  private static final class ContextStamp {
+    @Nullable
+    private final Object importListToken;
+    private final long importListStamp;
+    @Nonnull
+    private final String packageName;
+
+    private ContextStamp(@Nullable Object importListToken, long importListStamp, @Nonnull String packageName) {
+      this.importListToken = importListToken;
+      this.importListStamp = importListStamp;
+      this.packageName = packageName;
+    }
+
+    private static ContextStamp of(PsiContext psiContext) {
+      String packageName = psiContext.getPackageName().getName();
+      PsiImportList psiImportList = psiContext.getPsiImportList();
+      ASTNode importListNode = psiImportList == null ? null : psiImportList.getNode();
+      if (importListNode == null) {
+        return new ContextStamp(null, NO_STAMP, packageName);
+      }
+      Object token = importListNode.getUserData(DAMAPPING_IMPORT_LIST_TOKEN_KEY);
+      if (token == null) {
+        token = new Object();
+        importListNode.putUserData(DAMAPPING_IMPORT_LIST_TOKEN_KEY, token);
+      }
+      return new ContextStamp(token, modificationCount(importListNode), packageName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      ContextStamp that = (ContextStamp) o;
+      return importListToken == that.importListToken
+          && importListStamp == that.importListStamp
+          && packageName.equals(that.packageName);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * System.identityHashCode(importListToken) + (int) importListStamp) + packageName.hashCode();
+    }
+  }
+
   private static enum PsiEnumConstantDAEnumValue implements Function<PsiEnumConstant, DAEnumValue> {
     INSTANCE;
 
@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.toolwindow;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.CacheStatistics;
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.LatencyHistogram;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MapperCostTracker;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.MetricsRegistry;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.SlowOperationWatchdog;
+
+import java.awt.BorderLayout;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.ui.JBSplitter;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * DAMappingPerformancePanel - Content of the "DAMapping Performance" tool window.
+ * <p>
+ * The upper table ranks the classes annoted with @Mapper of the project by the time spent parsing them and
+ * generating their classes (data of {@link MapperCostTracker}), it is refreshed on demand. The lower table breaks
+ * the time spent by DAMapping down by {@link Operation} (data of {@link MetricsRegistry}), it is refreshed every
+ * {@link #LIVE_REFRESH_DELAY_MS} ms while the tool window is visible, together with the number of slow calls recorded
+ * by the {@link SlowOperationWatchdog} which can be copied to the clipboard as JSON.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingPerformancePanel extends SimpleToolWindowPanel implements Disposable {
+  private static final int LIVE_REFRESH_DELAY_MS = 2000;
+  private static final int MAX_MAPPER_COUNT = 100;
+
+  @NotNull
+  private final Project project;
+  @NotNull
+  private final ToolWindow toolWindow;
+  private final MapperCostTableModel mapperCostTableModel = new MapperCostTableModel();
+  private final StageTableModel stageTableModel = new StageTableModel();
+  private final JLabel cacheLabel = new JLabel();
+  private final Timer timer;
+
+  public DAMappingPerformancePanel(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+    super(true, true);
+    this.project = project;
+    this.toolWindow = toolWindow;
+
+    JBSplitter splitter = new JBSplitter(true, 0.6f);
+    splitter.setFirstComponent(new JBScrollPane(new JBTable(mapperCostTableModel)));
+    JPanel stagePanel = new JPanel(new BorderLayout());
+    stagePanel.add(new JBScrollPane(new JBTable(stageTableModel)), BorderLayout.CENTER);
+    stagePanel.add(cacheLabel, BorderLayout.SOUTH);
+    splitter.setSecondComponent(stagePanel);
+    setContent(splitter);
+    setToolbar(createToolbar());
+
+    refreshAll();
+    this.timer = new Timer(LIVE_REFRESH_DELAY_MS, new ActionListener() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        refreshStages();
+      }
+    });
+    timer.start();
+  }
+
+  @NotNull
+  private JComponent createToolbar() {
+    DefaultActionGroup group = new DefaultActionGroup();
+    group.add(new AnAction("Refresh", "Refresh the cost of the classes annoted with @Mapper",
+        AllIcons.Actions.Refresh) {
+      @Override
+      public void actionPerformed(AnActionEvent e) {
+        refreshAll();
+      }
+    });
+    group.add(new AnAction("Copy Slow Operations", "Copy the slow DAMapping calls to the clipboard as JSON",
+        AllIcons.Actions.Copy) {
+      @Override
+      public void actionPerformed(AnActionEvent e) {
+        String json = MetricsRegistry.getInstance().getWatchdog().toJson();
+        CopyPasteManager.getInstance().setContents(new StringSelection(json));
+      }
+    });
+    group.add(new AnAction("Reset", "Reset all DAMapping metrics", AllIcons.Actions.Cancel) {
+      @Override
+      public void actionPerformed(AnActionEvent e) {
+        MetricsRegistry.getInstance().reset();
+        MetricsRegistry.getInstance().getWatchdog().clear();
+        ParseAndGenerateManager.getInstance(project).getMapperCostTracker().clear();
+        refreshAll();
+      }
+    });
+    return ActionManager.getInstance().createActionToolbar("DAMappingPerformance", group, true).getComponent();
+  }
+
+  private void refreshAll() {
+    mapperCostTableModel.setRows(
+        ParseAndGenerateManager.getInstance(project).getMapperCostTracker().getMostExpensive(MAX_MAPPER_COUNT)
+    );
+    refreshStages();
+  }
+
+  private void refreshStages() {
+    if (project.isDisposed() || !toolWindow.isVisible()) {
+      return;
+    }
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    stageTableModel.setRows(metricsRegistry.snapshot());
+
+    SlowOperationWatchdog watchdog = metricsRegistry.getWatchdog();
+    StringBuilder builder = new StringBuilder("<html>");
+    builder.append(String.format("%d calls slower than %d ms", watchdog.getRecordCount(),
+        watchdog.getThresholdMillis()
+    )).append("<br>");
+    for (CacheStatistics statistics : metricsRegistry.getCacheStatistics()) {
+      builder.append(statistics.toString()).append("<br>");
+    }
+    cacheLabel.setText(builder.append("</html>").toString());
+  }
+
+  @Override
+  public void dispose() {
+    timer.stop();
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.1f", nanos / 1000000d);
+  }
+
+  private static String micros(long nanos) {
+    return String.valueOf(nanos / 1000);
+  }
+
+  private static class MapperCostTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {
+        "Mapper", "Total (ms)", "Generation (ms)", "Parse (ms)", "Generations", "Requests", "Cache hit ratio",
+        "Lookups"
+    };
+
+    private List<MapperCostTracker.MapperCost> rows = Collections.emptyList();
+
+    private void setRows(@NotNull List<MapperCostTracker.MapperCost> rows) {
+      this.rows = rows;
+      fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+      return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+      return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+      return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+      MapperCostTracker.MapperCost row = rows.get(rowIndex);
+      switch (columnIndex) {
+        case 0:
+          return row.getQualifiedName();
+        case 1:
+          return millis(row.getTotalNanos());
+        case 2:
+          return millis(row.getGenerationNanos());
+        case 3:
+          return millis(row.getParseNanos());
+        case 4:
+          return row.getGenerationCount();
+        case 5:
+          return row.getRequests();
+        case 6:
+          return String.format("%.1f%%", row.getCacheHitRate() * 100);
+        case 7:
+          return row.getLookups();
+        default:
+          throw new IllegalArgumentException("Unsupported column index " + columnIndex);
+      }
+    }
+  }
+
+  private static class StageTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {
+        "Operation", "Calls", "Total (ms)", "Share of stages", "Mean (us)", "p99 (us)", "Max (us)"
+    };
+
+    private List<Operation> operations = Collections.emptyList();
+    private List<LatencyHistogram.Snapshot> snapshots = Collections.emptyList();
+    private long totalStageNanos;
+
+    private void setRows(@NotNull Map<Operation, LatencyHistogram.Snapshot> snapshot) {
+      this.operations = new ArrayList<Operation>(snapshot.keySet());
+      this.snapshots = new ArrayList<LatencyHistogram.Snapshot>(snapshot.values());
+      long total = 0;
+      for (Map.Entry<Operation, LatencyHistogram.Snapshot> entry : snapshot.entrySet()) {
+        if (entry.getKey().getKind() == Operation.Kind.STAGE) {
+          total += entry.getValue().getTotalNanos();
+        }
+      }
+      this.totalStageNanos = total;
+      fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+      return operations.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+      return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+      return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+      Operation operation = operations.get(rowIndex);
+      LatencyHistogram.Snapshot snapshot = snapshots.get(rowIndex);
+      switch (columnIndex) {
+        case 0:
+          return operation.getDisplayName();
+        case 1:
+          return snapshot.getCount();
+        case 2:
+          return millis(snapshot.getTotalNanos());
+        case 3:
+          if (operation.getKind() != Operation.Kind.STAGE || totalStageNanos == 0) {
+            return "";
+          }
+          return String.format("%.1f%%", snapshot.getTotalNanos() * 100d / totalStageNanos);
+        case 4:
+          return micros(snapshot.getMeanNanos());
+        case 5:
+          return micros(snapshot.getPercentileNanos(0.99d));
+        case 6:
+          return micros(snapshot.getMaxNanos());
+        default:
+          throw new IllegalArgumentException("Unsupported column index " + columnIndex);
+      }
+    }
+  }
+}
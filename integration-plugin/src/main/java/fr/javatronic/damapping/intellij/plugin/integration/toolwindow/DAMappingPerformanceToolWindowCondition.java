@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.toolwindow;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.DAMappingSupportManager;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Condition;
+
+/**
+ * DAMappingPerformanceToolWindowCondition - Registers the "DAMapping Performance" tool window only in projects which
+ * have DAMapping in their classpath (see {@link DAMappingSupportManager#isActive()}).
+ * <p>
+ * The condition is evaluated when the project is opened: the tool window appears in a project to which DAMapping is
+ * added once the project is reopened.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingPerformanceToolWindowCondition implements Condition<Project> {
+  @Override
+  public boolean value(Project project) {
+    return DAMappingSupportManager.getInstance(project).isActive();
+  }
+}
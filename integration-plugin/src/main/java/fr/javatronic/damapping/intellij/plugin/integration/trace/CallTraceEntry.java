@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.trace;
+
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * CallTraceEntry - A call to a DAMapping extension point read from a trace file by {@link CallTraceReader}.
+ *
+ * @author Sébastien Lesaint
+ */
+public final class CallTraceEntry {
+  @NotNull
+  private final Operation operation;
+  @NotNull
+  private final ScopeKind scopeKind;
+  @NotNull
+  private final String argument;
+  private final long durationNanos;
+  private final long offsetNanos;
+  private final boolean dispatchThread;
+
+  CallTraceEntry(@NotNull Operation operation, @NotNull ScopeKind scopeKind, @NotNull String argument,
+                 long durationNanos, long offsetNanos, boolean dispatchThread) {
+    this.operation = operation;
+    this.scopeKind = scopeKind;
+    this.argument = argument;
+    this.durationNanos = durationNanos;
+    this.offsetNanos = offsetNanos;
+    this.dispatchThread = dispatchThread;
+  }
+
+  @NotNull
+  public Operation getOperation() {
+    return operation;
+  }
+
+  @NotNull
+  public ScopeKind getScopeKind() {
+    return scopeKind;
+  }
+
+  /**
+   * @return the qualified name of the class for {@link Operation#FIND_CLASSES}, the qualified name of the package
+   * for {@link Operation#GET_CLASSES} and {@link Operation#GET_CLASS_NAMES}, the simple name of the class for
+   * {@link Operation#GET_CLASSES_BY_NAME}
+   */
+  @NotNull
+  public String getArgument() {
+    return argument;
+  }
+
+  /**
+   * @return the duration of the call when it was recorded, 0 if it was not timed
+   */
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  /**
+   * @return the time elapsed between the start of the recording and the end of the call
+   */
+  public long getOffsetNanos() {
+    return offsetNanos;
+  }
+
+  public boolean isDispatchThread() {
+    return dispatchThread;
+  }
+
+  @Override
+  public String toString() {
+    return operation.getDisplayName() + "(" + argument + ", " + scopeKind + ") " + durationNanos + "ns";
+  }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * CallTraceFormat - Binary format of the trace files written by {@link CallTraceRecorder} and read by
+ * {@link CallTraceReader}.
+ * <pre>
+ *   header : int MAGIC, byte VERSION
+ *   record : byte operation ordinal, byte ScopeKind ordinal, byte flags,
+ *            varint argument reference, [UTF argument],
+ *            varlong duration (ns), varlong time since the previous record (ns)
+ * </pre>
+ * <p>
+ * Arguments (qualified names, package names, simple names) repeat a lot: the first occurrence of an argument is
+ * written in full (reference 0) and added to a table, following occurrences are written as their index in the table
+ * plus one. The table stops growing after {@value #MAX_STRING_TABLE_SIZE} entries, further new arguments are always
+ * written in full.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+final class CallTraceFormat {
+  static final int MAGIC = 0x44414D54; // "DAMT"
+  static final byte VERSION = 1;
+  static final int MAX_STRING_TABLE_SIZE = 1 << 16;
+  static final int FLAG_DISPATCH_THREAD = 1;
+
+  private CallTraceFormat() {
+    // prevents instantiation
+  }
+
+  static void writeVarLong(DataOutput out, long value) throws IOException {
+    long v = value;
+    while ((v & ~0x7FL) != 0) {
+      out.writeByte((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.writeByte((int) v);
+  }
+
+  static long readVarLong(DataInput in) throws IOException {
+    long res = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.readByte();
+      res |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return res;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.trace;
+
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * CallTraceReader - Reads the calls recorded by {@link CallTraceRecorder}, in the order they were recorded.
+ *
+ * @author Sébastien Lesaint
+ */
+public final class CallTraceReader implements Closeable {
+  private static final Operation[] OPERATIONS = Operation.values();
+  private static final ScopeKind[] SCOPE_KINDS = ScopeKind.values();
+
+  private final DataInputStream in;
+  private final List<String> stringTable = new ArrayList<String>();
+  private long offsetNanos;
+
+  public CallTraceReader(@NotNull InputStream inputStream) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(inputStream));
+    if (in.readInt() != CallTraceFormat.MAGIC) {
+      throw new IOException("Not a DAMapping call trace");
+    }
+    byte version = in.readByte();
+    if (version != CallTraceFormat.VERSION) {
+      throw new IOException("Unsupported DAMapping call trace version " + version);
+    }
+  }
+
+  @NotNull
+  public static List<CallTraceEntry> readAll(@NotNull File file) throws IOException {
+    CallTraceReader reader = new CallTraceReader(new FileInputStream(file));
+    try {
+      List<CallTraceEntry> res = new ArrayList<CallTraceEntry>();
+      for (CallTraceEntry entry = reader.next(); entry != null; entry = reader.next()) {
+        res.add(entry);
+      }
+      return res;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * @return the next call, {@code null} if the end of the trace is reached
+   */
+  @Nullable
+  public CallTraceEntry next() throws IOException {
+    int operation = in.read();
+    if (operation < 0) {
+      return null;
+    }
+    int scopeKind = in.readUnsignedByte();
+    if (operation >= OPERATIONS.length || scopeKind >= SCOPE_KINDS.length) {
+      throw new IOException("Malformed DAMapping call trace");
+    }
+    int flags = in.readUnsignedByte();
+    String argument = readArgument();
+    long durationNanos = CallTraceFormat.readVarLong(in);
+    offsetNanos += CallTraceFormat.readVarLong(in);
+    return new CallTraceEntry(OPERATIONS[operation], SCOPE_KINDS[scopeKind], argument, durationNanos, offsetNanos,
+        (flags & CallTraceFormat.FLAG_DISPATCH_THREAD) != 0
+    );
+  }
+
+  @NotNull
+  private String readArgument() throws IOException {
+    long reference = CallTraceFormat.readVarLong(in);
+    if (reference > 0) {
+      if (reference > stringTable.size()) {
+        throw new IOException("Malformed DAMapping call trace");
+      }
+      return stringTable.get((int) reference - 1);
+    }
+    String argument = in.readUTF();
+    if (stringTable.size() < CallTraceFormat.MAX_STRING_TABLE_SIZE) {
+      stringTable.add(argument);
+    }
+    return argument;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.trace;
+
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * CallTraceRecorder - Appends every call to a DAMapping extension point (operation, argument, kind of scope, duration)
+ * to a binary trace file, so that the calls actually made by IDEA during highlighting and completion can be replayed
+ * later by a benchmark (see {@link CallTraceReader}).
+ * <p>
+ * Recording is opt-in: it is enabled by setting the system property {@value #TRACE_FILE_PROPERTY} to the path of
+ * the trace file, which is overwritten. The file is written through a buffer, flushed every
+ * {@value #FLUSH_INTERVAL} records and when the JVM exits. Writing is synchronized: recording slows DAMapping down
+ * a little and is not meant to be enabled permanently.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class CallTraceRecorder implements Closeable {
+  private static final Logger LOGGER = Logger.getInstance(CallTraceRecorder.class.getName());
+
+  public static final String TRACE_FILE_PROPERTY = "damapping.trace.file";
+  private static final int FLUSH_INTERVAL = 256;
+
+  private final DataOutputStream out;
+  private final Map<String, Integer> stringTable = new HashMap<String, Integer>();
+  private long lastNanos = System.nanoTime();
+  private long recordCount;
+  private boolean closed;
+
+  public CallTraceRecorder(@NotNull OutputStream outputStream) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(outputStream));
+    out.writeInt(CallTraceFormat.MAGIC);
+    out.writeByte(CallTraceFormat.VERSION);
+  }
+
+  /**
+   * @return a recorder writing to the file specified by the system property {@value #TRACE_FILE_PROPERTY}, or
+   * {@code null} if the property is not set or the file can not be created
+   */
+  @Nullable
+  public static CallTraceRecorder fromSystemProperty() {
+    String path = System.getProperty(TRACE_FILE_PROPERTY);
+    if (path == null || path.isEmpty()) {
+      return null;
+    }
+    try {
+      final CallTraceRecorder recorder = new CallTraceRecorder(new FileOutputStream(new File(path)));
+      Runtime.getRuntime().addShutdownHook(new Thread("DAMapping call trace recorder shutdown") {
+        @Override
+        public void run() {
+          recorder.close();
+        }
+      });
+      LOGGER.info("Recording DAMapping calls to " + path);
+      return recorder;
+    } catch (IOException e) {
+      LOGGER.warn("Failed to create DAMapping call trace file " + path, e);
+      return null;
+    }
+  }
+
+  /**
+   * @param durationNanos the duration of the call, a negative value if the call was not timed
+   */
+  public synchronized void record(@NotNull Operation operation, @NotNull String argument, @NotNull ScopeKind scopeKind,
+                                  long durationNanos, boolean dispatchThread) {
+    if (closed) {
+      return;
+    }
+    long now = System.nanoTime();
+    try {
+      out.writeByte(operation.ordinal());
+      out.writeByte(scopeKind.ordinal());
+      out.writeByte(dispatchThread ? CallTraceFormat.FLAG_DISPATCH_THREAD : 0);
+      writeArgument(argument);
+      CallTraceFormat.writeVarLong(out, Math.max(0, durationNanos));
+      CallTraceFormat.writeVarLong(out, Math.max(0, now - lastNanos));
+      lastNanos = now;
+      recordCount++;
+      if (recordCount % FLUSH_INTERVAL == 0) {
+        out.flush();
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Failed to write DAMapping call trace, recording stops", e);
+      close();
+    }
+  }
+
+  private void writeArgument(@NotNull String argument) throws IOException {
+    Integer index = stringTable.get(argument);
+    if (index != null) {
+      CallTraceFormat.writeVarLong(out, index + 1);
+      return;
+    }
+    CallTraceFormat.writeVarLong(out, 0);
+    out.writeUTF(argument);
+    if (stringTable.size() < CallTraceFormat.MAX_STRING_TABLE_SIZE) {
+      stringTable.put(argument, stringTable.size());
+    }
+  }
+
+  public synchronized long getRecordCount() {
+    return recordCount;
+  }
+
+  public synchronized void flush() throws IOException {
+    if (!closed) {
+      out.flush();
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      out.close();
+    } catch (IOException e) {
+      LOGGER.warn("Failed to close DAMapping call trace", e);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.trace;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.ProjectScope;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * ScopeKind - Kind of the GlobalSearchScope of a call recorded by the {@link CallTraceRecorder}.
+ * <p>
+ * Scopes are not serializable: a trace only stores which of the scopes commonly used by IDEA was used, and the replay
+ * uses the equivalent scope of the replay project (see {@link #toScope(Project)}).
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public enum ScopeKind {
+  ALL,
+  PROJECT,
+  LIBRARIES,
+  EMPTY,
+  /** any other scope which includes libraries, typically the scope of a module with its dependencies */
+  OTHER_WITH_LIBRARIES,
+  /** any other scope without libraries, typically the scope of a module */
+  OTHER;
+
+  @NotNull
+  public static ScopeKind of(@NotNull GlobalSearchScope scope) {
+    if (scope == GlobalSearchScope.EMPTY_SCOPE) {
+      return EMPTY;
+    }
+    Project project = scope.getProject();
+    if (project != null) {
+      if (scope.equals(ProjectScope.getAllScope(project))) {
+        return ALL;
+      }
+      if (scope.equals(ProjectScope.getProjectScope(project))) {
+        return PROJECT;
+      }
+      if (scope.equals(ProjectScope.getLibrariesScope(project))) {
+        return LIBRARIES;
+      }
+    }
+    return scope.isSearchInLibraries() ? OTHER_WITH_LIBRARIES : OTHER;
+  }
+
+  /**
+   * The scope of the specified project equivalent to the current kind. Scopes of kind {@link #OTHER} and
+   * {@link #OTHER_WITH_LIBRARIES} are replayed with the scope of the first module of the project.
+   */
+  @NotNull
+  public GlobalSearchScope toScope(@NotNull Project project) {
+    switch (this) {
+      case ALL:
+        return ProjectScope.getAllScope(project);
+      case PROJECT:
+        return ProjectScope.getProjectScope(project);
+      case LIBRARIES:
+        return ProjectScope.getLibrariesScope(project);
+      case EMPTY:
+        return GlobalSearchScope.EMPTY_SCOPE;
+      case OTHER_WITH_LIBRARIES:
+      case OTHER:
+        Module[] modules = ModuleManager.getInstance(project).getModules();
+        if (modules.length == 0) {
+          return this == OTHER ? ProjectScope.getProjectScope(project) : ProjectScope.getAllScope(project);
+        }
+        return this == OTHER
+            ? GlobalSearchScope.moduleScope(modules[0])
+            : GlobalSearchScope.moduleWithDependenciesAndLibrariesScope(modules[0]);
+      default:
+        throw new IllegalStateException("Unsupported ScopeKind " + this);
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.index.AbstractMapperClassIndex;
+import fr.javatronic.damapping.intellij.plugin.integration.provider.DAMappingElementFinder;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiParsingService;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.PsiParsingServiceImpl;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectGenerator;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectSpec;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticSourceFile;
+import fr.javatronic.damapping.processor.model.DASourceClass;
+import fr.javatronic.damapping.processor.sourcegenerator.GeneratedFileDescriptor;
+import fr.javatronic.damapping.processor.sourcegenerator.GenerationContextComputer;
+import fr.javatronic.damapping.processor.sourcegenerator.GenerationContextComputerImpl;
+import fr.javatronic.damapping.processor.sourcegenerator.SourceGenerationService;
+import fr.javatronic.damapping.processor.sourcegenerator.SourceGenerationServiceImpl;
+import fr.javatronic.damapping.processor.sourcegenerator.SourceWriterDelegate;
+import fr.javatronic.damapping.processor.validator.DASourceClassValidator;
+import fr.javatronic.damapping.processor.validator.DASourceClassValidatorImpl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiPackage;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.intellij.util.ThrowableRunnable;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContentImpl;
+import com.intellij.util.indexing.IndexingDataKeys;
+
+/**
+ * DAMappingPerformanceTest - Performance tests of the plugin on a project generated by
+ * {@link SyntheticProjectGenerator}.
+ * <p>
+ * Each test asserts a time budget with {@link PlatformTestUtil#startPerformanceTest(String, int, ThrowableRunnable)}.
+ * Budgets are declared as CPU bound, so that they are scaled according to the speed of the machine running the test
+ * (see {@link com.intellij.testFramework.Timings}): a slowdown of the plugin fails the build, whatever the machine.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingPerformanceTest extends LightCodeInsightFixtureTestCase {
+  private static final SyntheticProjectSpec SPEC = SyntheticProjectSpec.builder()
+      .mappers(200)
+      .methodsPerMapper(3)
+      .genericDepth(2)
+      .imports(5)
+      .invalidRatio(0.1)
+      .build();
+
+  private final List<PsiClass> mapperClasses = new ArrayList<PsiClass>();
+  private final List<SyntheticSourceFile> sourceFiles = new ArrayList<SyntheticSourceFile>();
+  private final List<String> generatedQualifiedNames = new ArrayList<String>();
+  private final Set<String> packageNames = new LinkedHashSet<String>();
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass(SyntheticProjectGenerator.MAPPER_ANNOTATION_SOURCE);
+    ParseAndGenerateManager parseAndGenerateManager = ParseAndGenerateManager.getInstance(getProject());
+    for (SyntheticSourceFile file : SyntheticProjectGenerator.generate(SPEC)) {
+      PsiClass psiClass = myFixture.addClass(file.getText());
+      sourceFiles.add(file);
+      mapperClasses.add(psiClass);
+      packageNames.add(file.getQualifiedName().substring(0, file.getQualifiedName().lastIndexOf('.')));
+      if (file.isValid()) {
+        generatedQualifiedNames.addAll(parseAndGenerateManager.getGeneratedClassQualifiedNames(psiClass));
+      }
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    mapperClasses.clear();
+    sourceFiles.clear();
+    generatedQualifiedNames.clear();
+    packageNames.clear();
+    super.tearDown();
+  }
+
+  /**
+   * The DAMethod of each method is cached in its PSI and the mappers of the project have already been parsed by the
+   * setup: each run parses fresh copies of the source files of the mappers, so that the parsing is actually measured.
+   */
+  public void testParseAndGenerate() throws Exception {
+    final PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(getProject());
+    final PsiParsingService parsingService = new PsiParsingServiceImpl();
+    final DASourceClassValidator validator = new DASourceClassValidatorImpl();
+    final GenerationContextComputer generationContextComputer = new GenerationContextComputerImpl();
+    final SourceGenerationService sourceGenerationService = new SourceGenerationServiceImpl();
+    final StringBufferSourceWriterDelegate writerDelegate = new StringBufferSourceWriterDelegate();
+
+    PlatformTestUtil.startPerformanceTest("parse and generate " + mapperClasses.size() + " mappers", 3000,
+        new ThrowableRunnable() {
+          @Override
+          public void run() throws Throwable {
+            for (int i = 0; i < sourceFiles.size(); i++) {
+              PsiJavaFile copy = (PsiJavaFile) psiFileFactory.createFileFromText(
+                  mapperClasses.get(i).getName() + ".java", JavaFileType.INSTANCE, sourceFiles.get(i).getText()
+              );
+              DASourceClass daSourceClass = parsingService.parse(copy.getClasses()[0]);
+              if (sourceFiles.get(i).isValid()) {
+                validator.validate(daSourceClass);
+                sourceGenerationService.generateAll(generationContextComputer.compute(daSourceClass), writerDelegate);
+              }
+            }
+          }
+        }
+    ).cpuBound().assertTiming();
+
+    assertTrue(writerDelegate.generatedFileCount > 0);
+  }
+
+  public void testBulkFindClasses() throws Exception {
+    assertFalse(generatedQualifiedNames.isEmpty());
+    final DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+    final GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+
+    PlatformTestUtil.startPerformanceTest("findClasses of " + generatedQualifiedNames.size() + " classes", 2000,
+        new ThrowableRunnable() {
+          @Override
+          public void run() throws Throwable {
+            for (int i = 0; i < 20; i++) {
+              for (String qualifiedName : generatedQualifiedNames) {
+                assertEquals(1, finder.findClasses(qualifiedName, scope).length);
+                assertEquals(0, finder.findClasses(qualifiedName + "Missing", scope).length);
+              }
+            }
+          }
+        }
+    ).cpuBound().assertTiming();
+  }
+
+  public void testPackageListing() throws Exception {
+    final DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+    final GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    final List<PsiPackage> psiPackages = new ArrayList<PsiPackage>();
+    for (String packageName : packageNames) {
+      PsiPackage psiPackage = JavaPsiFacade.getInstance(getProject()).findPackage(packageName);
+      assertNotNull(packageName, psiPackage);
+      psiPackages.add(psiPackage);
+    }
+
+    PlatformTestUtil.startPerformanceTest("listing of " + psiPackages.size() + " packages", 2000,
+        new ThrowableRunnable() {
+          @Override
+          public void run() throws Throwable {
+            int classCount = 0;
+            for (int i = 0; i < 20; i++) {
+              for (PsiPackage psiPackage : psiPackages) {
+                classCount += finder.getClasses(psiPackage, scope).length;
+                finder.getClassNames(psiPackage, scope);
+              }
+            }
+            assertTrue(classCount > 0);
+          }
+        }
+    ).cpuBound().assertTiming();
+  }
+
+  public void testFullReindex() throws Exception {
+    final List<AbstractMapperClassIndex<?>> indexes = new ArrayList<AbstractMapperClassIndex<?>>();
+    FileBasedIndexExtension<?, ?>[] extensions = Extensions.getExtensions(FileBasedIndexExtension.EXTENSION_POINT_NAME);
+    for (FileBasedIndexExtension<?, ?> extension : extensions) {
+      if (extension instanceof AbstractMapperClassIndex) {
+        indexes.add((AbstractMapperClassIndex<?>) extension);
+      }
+    }
+    assertFalse(indexes.isEmpty());
+
+    PlatformTestUtil.startPerformanceTest("reindex of " + mapperClasses.size() + " files by " + indexes.size()
+        + " indexes", 5000,
+        new ThrowableRunnable() {
+          @Override
+          public void run() throws Throwable {
+            for (AbstractMapperClassIndex<?> index : indexes) {
+              for (PsiClass mapperClass : mapperClasses) {
+                index.getIndexer().map(fileContent(mapperClass));
+              }
+            }
+          }
+        }
+    ).cpuBound().assertTiming();
+  }
+
+  /**
+   * Each call creates a new FileContent, from which a new PsiFile is built, so that no value cached on the PSI of the
+   * project is used, as during an actual reindex.
+   */
+  private FileContentImpl fileContent(PsiClass psiClass) {
+    FileContentImpl fileContent = new FileContentImpl(psiClass.getContainingFile().getVirtualFile(),
+        psiClass.getContainingFile().getText().getBytes());
+    fileContent.putUserData(IndexingDataKeys.PROJECT, getProject());
+    return fileContent;
+  }
+
+  private static class StringBufferSourceWriterDelegate implements SourceWriterDelegate {
+    private int generatedFileCount = 0;
+
+    @Override
+    public void generateFile(@Nonnull GeneratedFileDescriptor descriptor) throws IOException {
+      BufferedWriter writer = new BufferedWriter(new StringWriter());
+      descriptor.getSourceGenerator().writeFile(writer);
+      generatedFileCount++;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * CacheStatisticsTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class CacheStatisticsTest {
+  @Test
+  public void hit_rate_is_zero_without_request() throws Exception {
+    CacheStatistics statistics = new CacheStatistics("test");
+    assertEquals(0, statistics.getHits());
+    assertEquals(0d, statistics.getHitRate(), 0d);
+  }
+
+  @Test
+  public void hits_are_requests_which_did_not_miss() throws Exception {
+    CacheStatistics statistics = new CacheStatistics("test");
+    statistics.request();
+    statistics.miss();
+    statistics.request();
+    statistics.request();
+    statistics.request();
+
+    assertEquals(4, statistics.getRequests());
+    assertEquals(1, statistics.getMisses());
+    assertEquals(3, statistics.getHits());
+    assertEquals(0.75d, statistics.getHitRate(), 0d);
+  }
+
+  @Test
+  public void reset_clears_counters() throws Exception {
+    CacheStatistics statistics = new CacheStatistics("test");
+    statistics.request();
+    statistics.miss();
+    statistics.evict(3);
+    statistics.reset();
+
+    assertEquals(0, statistics.getRequests());
+    assertEquals(0, statistics.getMisses());
+    assertEquals(0, statistics.getEvictions());
+  }
+
+  @Test
+  public void evictions_are_counted_separately() throws Exception {
+    CacheStatistics statistics = new CacheStatistics("test");
+    statistics.request();
+    statistics.evict(10);
+    statistics.evict(5);
+
+    assertEquals(15, statistics.getEvictions());
+    assertEquals(1, statistics.getHits());
+  }
+}
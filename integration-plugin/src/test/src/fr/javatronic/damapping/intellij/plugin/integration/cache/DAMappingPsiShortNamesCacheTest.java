@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import java.util.Arrays;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.containers.HashSet;
+
+/**
+ * DAMappingPsiShortNamesCacheTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingPsiShortNamesCacheTest extends LightCodeInsightFixtureTestCase {
+  private DAMappingPsiShortNamesCache cache;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    for (String name : new String[] {"Foo", "Bar"}) {
+      myFixture.addClass("package com.acme.test;\n" +
+          "\n" +
+          "import com.google.common.base.Function;\n" +
+          "import fr.javatronic.damapping.annotation.Mapper;\n" +
+          "\n" +
+          "@Mapper\n" +
+          "public enum " + name + " implements Function<String, Integer> {\n" +
+          "  INSTANCE;\n" +
+          "\n" +
+          "  public Integer apply(String s) {\n" +
+          "    return null;\n" +
+          "  }\n" +
+          "}\n"
+      );
+    }
+    cache = new DAMappingPsiShortNamesCache(getProject());
+  }
+
+  public void testGetAllClassNames() throws Exception {
+    HashSet<String> dest = new HashSet<String>();
+    cache.getAllClassNames(dest);
+    assertSameElements(dest, "FooMapper", "BarMapper");
+    assertSameElements(cache.getAllClassNames(), "FooMapper", "BarMapper");
+  }
+
+  public void testGetAllClassNamesReturnsACopy() throws Exception {
+    String[] names = cache.getAllClassNames();
+    assertNotSame(names, cache.getAllClassNames());
+
+    Arrays.fill(names, null);
+    assertSameElements(cache.getAllClassNames(), "FooMapper", "BarMapper");
+  }
+
+  public void testGetClassesByName() throws Exception {
+    PsiClass[] classes = cache.getClassesByName("FooMapper", GlobalSearchScope.allScope(getProject()));
+    assertEquals(1, classes.length);
+    assertEquals("com.acme.test.FooMapper", classes[0].getQualifiedName());
+  }
+
+  public void testGetClassesByNameOfUnknownName() throws Exception {
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    assertEmpty(cache.getClassesByName("NoSuchMapper", scope));
+    // once the table of names is built, unknown names are rejected without querying the index
+    assertSize(2, cache.getAllClassNames());
+    assertEmpty(cache.getClassesByName("NoSuchMapper", scope));
+    assertEmpty(cache.getClassesByName("Foo", scope));
+    assertEquals(1, cache.getClassesByName("BarMapper", scope).length);
+  }
+
+  public void testGeneratedMembers() throws Exception {
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    for (String methodName : cache.getAllMethodNames()) {
+      PsiMethod[] psiMethods = cache.getMethodsByName(methodName, scope);
+      assertTrue(methodName, psiMethods.length > 0);
+      assertEquals(1, cache.getMethodsByNameIfNotMoreThan(methodName, scope, 1).length);
+    }
+    for (String fieldName : cache.getAllFieldNames()) {
+      assertTrue(fieldName, cache.getFieldsByName(fieldName, scope).length > 0);
+    }
+
+    assertEmpty(cache.getMethodsByName("noSuchMethod", scope));
+    assertEmpty(cache.getFieldsByName("noSuchField", scope));
+    assertTrue(cache.processMethodsWithName("noSuchMethod", scope, new CommonProcessors.CollectProcessor<PsiMethod>()));
+  }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.index.MapperClassLocation;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.ProjectScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * GeneratedClassSnapshotTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class GeneratedClassSnapshotTest extends LightCodeInsightFixtureTestCase {
+  private static final List<String> GENERATED_NAMES = Collections.singletonList("com.acme.test.FooMapper");
+
+  private GeneratedClassSnapshot snapshot;
+  private VirtualFile sourceFile;
+  private MapperClassLocation mapperLocation;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    snapshot = new GeneratedClassSnapshot(getProject());
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    PsiClass mapperClass = myFixture.addClass("package com.acme.test;\n" +
+        "\n" +
+        "import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "\n" +
+        "@Mapper\n" +
+        "public enum Foo implements Function<String, Integer> {\n" +
+        "  INSTANCE;\n" +
+        "\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    sourceFile = mapperClass.getContainingFile().getVirtualFile();
+    mapperLocation = MapperClassLocation.of(mapperClass);
+  }
+
+  public void testLookups() throws Exception {
+    snapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    assertGeneratedClass(snapshot.findByQualifiedName("com.acme.test.FooMapper", scope));
+    assertGeneratedClass(snapshot.findBySimpleName("FooMapper", scope));
+    assertGeneratedClass(snapshot.findByPackageName("com.acme.test", scope));
+    assertSameElements(snapshot.getClassNames("com.acme.test", scope), "FooMapper");
+    assertSameElements(snapshot.getAllSimpleNames(), "FooMapper");
+
+    assertEmpty(snapshot.findByQualifiedName("com.acme.test.Foo", scope));
+    assertEmpty(snapshot.findByPackageName("com.acme", scope));
+  }
+
+  public void testLookupsAreFilteredOnScopeOfSourceFile() throws Exception {
+    snapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+
+    GlobalSearchScope librariesScope = ProjectScope.getLibrariesScope(getProject());
+    assertEmpty(snapshot.findBySimpleName("FooMapper", librariesScope));
+    assertEmpty(snapshot.getClassNames("com.acme.test", librariesScope));
+  }
+
+  public void testUpdateWithEmptyListRemovesClasses() throws Exception {
+    snapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+    snapshot.update(sourceFile, mapperLocation, Collections.<String>emptyList());
+
+    assertEmpty(snapshot.findBySimpleName("FooMapper", GlobalSearchScope.allScope(getProject())));
+    assertEmpty(snapshot.getAllSimpleNames());
+    assertEquals(0, snapshot.size());
+  }
+
+  public void testUpdateWithSameClassesKeepsEntries() throws Exception {
+    snapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+    snapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+
+    assertEquals(1, snapshot.size());
+    assertGeneratedClass(snapshot.findBySimpleName("FooMapper", GlobalSearchScope.allScope(getProject())));
+  }
+
+  public void testClassesOfTwoMappersOfTheSameFile() throws Exception {
+    MapperClassLocation otherLocation = new MapperClassLocation("com.acme.test.Bar", 0);
+    snapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+    snapshot.update(sourceFile, otherLocation, Collections.singletonList("com.acme.test.BarMapper"));
+
+    assertSameElements(snapshot.getAllSimpleNames(), "FooMapper", "BarMapper");
+
+    snapshot.update(sourceFile, otherLocation, Collections.<String>emptyList());
+    assertSameElements(snapshot.getAllSimpleNames(), "FooMapper");
+  }
+
+  public void testRemoveUnderDirectory() throws Exception {
+    snapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+    snapshot.removeUnder(sourceFile.getParent());
+
+    assertEquals(0, snapshot.size());
+    assertEmpty(snapshot.findByPackageName("com.acme.test", GlobalSearchScope.allScope(getProject())));
+    assertEmpty(snapshot.getAllSimpleNames());
+  }
+
+  public void testDeletedSourceFileIsRemoved() throws Exception {
+    final GeneratedClassSnapshot projectSnapshot = ParseAndGenerateManager.getInstance(getProject())
+                                                                          .getGeneratedClassSnapshot();
+    projectSnapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+
+    new WriteCommandAction.Simple(getProject()) {
+      @Override
+      protected void run() throws Throwable {
+        sourceFile.delete(this);
+      }
+    }.execute().throwException();
+
+    assertEmpty(projectSnapshot.findBySimpleName("FooMapper", GlobalSearchScope.allScope(getProject())));
+    assertFalse(projectSnapshot.getAllSimpleNames().contains("FooMapper"));
+  }
+
+  public void testRenamedSourceFileIsRemoved() throws Exception {
+    final GeneratedClassSnapshot projectSnapshot = ParseAndGenerateManager.getInstance(getProject())
+                                                                          .getGeneratedClassSnapshot();
+    projectSnapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+
+    new WriteCommandAction.Simple(getProject()) {
+      @Override
+      protected void run() throws Throwable {
+        sourceFile.rename(this, "Renamed.java");
+      }
+    }.execute().throwException();
+
+    assertFalse(projectSnapshot.getAllSimpleNames().contains("FooMapper"));
+  }
+
+  public void testMovedSourceFileIsRemoved() throws Exception {
+    final GeneratedClassSnapshot projectSnapshot = ParseAndGenerateManager.getInstance(getProject())
+                                                                          .getGeneratedClassSnapshot();
+    projectSnapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+
+    new WriteCommandAction.Simple(getProject()) {
+      @Override
+      protected void run() throws Throwable {
+        sourceFile.move(this, sourceFile.getParent().createChildDirectory(this, "moved"));
+      }
+    }.execute().throwException();
+
+    assertFalse(projectSnapshot.getAllSimpleNames().contains("FooMapper"));
+  }
+
+  public void testGeneratedClassesAreRecordedOnce() throws Exception {
+    ParseAndGenerateManager manager = ParseAndGenerateManager.getInstance(getProject());
+    GeneratedClassSnapshot projectSnapshot = manager.getGeneratedClassSnapshot();
+    PsiClass mapperClass = mapperLocation.findPsiClass(myFixture.getPsiManager().findFile(sourceFile));
+    assertNotNull(mapperClass);
+
+    manager.getGeneratedPsiClasses(mapperClass, GlobalSearchScope.allScope(getProject()));
+    assertSameElements(projectSnapshot.getAllSimpleNames(), "FooMapper");
+
+    // the cached value is not computed again, neither is the snapshot updated
+    projectSnapshot.clear();
+    manager.getGeneratedPsiClasses(mapperClass, GlobalSearchScope.allScope(getProject()));
+    assertEmpty(projectSnapshot.getAllSimpleNames());
+  }
+
+  public void testSaveAndLoad() throws Exception {
+    snapshot.update(sourceFile, mapperLocation, GENERATED_NAMES);
+    File file = FileUtil.createTempFile("damapping", ".snapshot");
+    try {
+      snapshot.save(file);
+
+      GeneratedClassSnapshot loaded = new GeneratedClassSnapshot(getProject());
+      assertTrue(loaded.load(file));
+      assertEquals(1, loaded.size());
+      assertSameElements(loaded.getAllSimpleNames(), "FooMapper");
+      assertGeneratedClass(loaded.findByQualifiedName("com.acme.test.FooMapper",
+          GlobalSearchScope.allScope(getProject())
+      ));
+    } finally {
+      FileUtil.delete(file);
+    }
+  }
+
+  public void testLoadMissingFile() throws Exception {
+    assertFalse(snapshot.load(new File(FileUtil.getTempDirectory(), "no-such-damapping.snapshot")));
+  }
+
+  private static void assertGeneratedClass(PsiClass[] psiClasses) {
+    assertEquals(1, psiClasses.length);
+    assertEquals("com.acme.test.FooMapper", psiClasses[0].getQualifiedName());
+  }
+}
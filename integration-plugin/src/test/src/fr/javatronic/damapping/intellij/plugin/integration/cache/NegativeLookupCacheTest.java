@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import fr.javatronic.damapping.intellij.plugin.integration.provider.DAMappingElementFinder;
+
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.apache.log4j.Logger;
+
+/**
+ * NegativeLookupCacheTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class NegativeLookupCacheTest extends LightCodeInsightFixtureTestCase {
+  private static final Logger LOG = Logger.getLogger(NegativeLookupCacheTest.class);
+
+  private final CountingModificationTracker modificationTracker = new CountingModificationTracker();
+
+  public void testPutMissing() throws Exception {
+    NegativeLookupCache cache = new NegativeLookupCache(modificationTracker, 10, new CacheStatistics("test"));
+
+    assertFalse(cache.isKnownMissing("java.lang.String"));
+    cache.putMissing("java.lang.String", cache.getModificationCount());
+    assertTrue(cache.isKnownMissing("java.lang.String"));
+    assertFalse(cache.isKnownMissing("java.lang.Integer"));
+
+    assertEquals(3, cache.getStatistics().getRequests());
+    assertEquals(1, cache.getStatistics().getHits());
+  }
+
+  public void testModificationClearsCache() throws Exception {
+    NegativeLookupCache cache = new NegativeLookupCache(modificationTracker, 10, new CacheStatistics("test"));
+
+    cache.putMissing("java.lang.String", cache.getModificationCount());
+    modificationTracker.count++;
+    assertFalse(cache.isKnownMissing("java.lang.String"));
+  }
+
+  public void testResultOfOutdatedLookupIsIgnored() throws Exception {
+    NegativeLookupCache cache = new NegativeLookupCache(modificationTracker, 10, new CacheStatistics("test"));
+
+    long modificationCount = cache.getModificationCount();
+    modificationTracker.count++;
+    cache.putMissing("java.lang.String", modificationCount);
+    assertFalse(cache.isKnownMissing("java.lang.String"));
+  }
+
+  public void testCacheIsBounded() throws Exception {
+    NegativeLookupCache cache = new NegativeLookupCache(modificationTracker, 10, new CacheStatistics("test"));
+
+    for (int i = 0; i < 25; i++) {
+      cache.putMissing("com.acme.Class" + i, cache.getModificationCount());
+      assertTrue(cache.size() <= 10);
+    }
+  }
+
+  public void testRepeatedMissesOfElementFinder() throws Exception {
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+
+    for (int i = 0; i < 100; i++) {
+      assertEmpty(finder.findClasses("java.lang.String", scope));
+      assertEmpty(finder.findClasses("java.util.List", scope));
+    }
+
+    CacheStatistics statistics = finder.getNegativeLookupStatistics();
+    LOG.info(statistics);
+    assertEquals(200, statistics.getRequests());
+    assertEquals(2, statistics.getMisses());
+  }
+
+  public void testMissesInScopesCreatedOnTheFlyAreCached() throws Exception {
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+
+    for (int i = 0; i < 100; i++) {
+      // a new scope instance on each lookup, as IDEA does
+      assertEmpty(finder.findClasses("java.lang.String", GlobalSearchScope.allScope(getProject())
+          .intersectWith(GlobalSearchScope.projectScope(getProject()))));
+    }
+
+    assertEquals(1, finder.getNegativeLookupStatistics().getMisses());
+  }
+
+  public void testGeneratedClassOutOfScopeIsNotRememberedAsMissing() throws Exception {
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    PsiClass foo = myFixture.addClass("package com.acme.test;\n" +
+        "\n" +
+        "import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "\n" +
+        "@Mapper\n" +
+        "public enum Foo implements Function<String, Integer> {\n" +
+        "  INSTANCE;\n" +
+        "\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+
+    GlobalSearchScope withoutFoo = GlobalSearchScope.projectScope(getProject()).intersectWith(
+        GlobalSearchScope.notScope(GlobalSearchScope.fileScope(foo.getContainingFile()))
+    );
+    assertEmpty(finder.findClasses("com.acme.test.FooMapper", withoutFoo));
+    assertEquals(1, finder.findClasses("com.acme.test.FooMapper", GlobalSearchScope.allScope(getProject())).length);
+  }
+
+  private static class CountingModificationTracker implements ModificationTracker {
+    private long count;
+
+    @Override
+    public long getModificationCount() {
+      return count;
+    }
+  }
+}
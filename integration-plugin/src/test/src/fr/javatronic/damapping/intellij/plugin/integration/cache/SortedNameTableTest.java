@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SortedNameTableTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class SortedNameTableTest {
+  private static final SortedNameTable TABLE = SortedNameTable.of(names("FooMapper", "BarMapper", "AcmeMapper"));
+
+  @Test
+  public void names_are_sorted() throws Exception {
+    assertArrayEquals(new String[] {"AcmeMapper", "BarMapper", "FooMapper"}, TABLE.toArray());
+    assertEquals(3, TABLE.size());
+  }
+
+  @Test
+  public void contains() throws Exception {
+    assertTrue(TABLE.contains("BarMapper"));
+    assertFalse(TABLE.contains("barMapper"));
+    assertFalse(TABLE.contains("Bar"));
+    assertFalse(SortedNameTable.EMPTY.contains("BarMapper"));
+  }
+
+  @Test
+  public void toArray_returns_a_copy() throws Exception {
+    String[] names = TABLE.toArray();
+    Arrays.fill(names, null);
+    assertArrayEquals(new String[] {"AcmeMapper", "BarMapper", "FooMapper"}, TABLE.toArray());
+  }
+
+  @Test
+  public void addAllTo() throws Exception {
+    List<String> dest = new ArrayList<String>();
+    TABLE.addAllTo(dest);
+    assertEquals(Arrays.asList("AcmeMapper", "BarMapper", "FooMapper"), dest);
+  }
+
+  @Test
+  public void withNames_returns_same_table_when_names_are_unchanged() throws Exception {
+    assertSame(TABLE, TABLE.withNames(names("AcmeMapper", "FooMapper", "BarMapper")));
+  }
+
+  @Test
+  public void withNames_merges_added_names_and_drops_removed_names() throws Exception {
+    SortedNameTable table = TABLE.withNames(names("ZooMapper", "FooMapper", "AcmeMapper", "BazMapper"));
+
+    assertNotSame(TABLE, table);
+    assertArrayEquals(new String[] {"AcmeMapper", "BazMapper", "FooMapper", "ZooMapper"}, table.toArray());
+    assertArrayEquals(new String[] {"AcmeMapper", "BarMapper", "FooMapper"}, TABLE.toArray());
+  }
+
+  @Test
+  public void withNames_of_no_name_is_empty() throws Exception {
+    assertEquals(0, TABLE.withNames(names()).size());
+  }
+
+  private static Set<String> names(String... names) {
+    return new HashSet<String>(Arrays.asList(names));
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.component.project;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.DAMappingPsiShortNamesCache;
+import fr.javatronic.damapping.intellij.plugin.integration.provider.DAMappingElementFinder;
+
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * DAMappingSupportManagerTest - Checks DAMapping extensions do nothing in a project which does not have DAMapping in
+ * its classpath and are activated as soon as DAMapping is added to it.
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingSupportManagerTest extends LightCodeInsightFixtureTestCase {
+  private static final String FOO_MAPPER_SOURCE = "package com.acme.test;\n" +
+      "\n" +
+      "import com.google.common.base.Function;\n" +
+      "import fr.javatronic.damapping.annotation.Mapper;\n" +
+      "\n" +
+      "@Mapper\n" +
+      "public enum Foo implements Function<String, Integer> {\n" +
+      "  INSTANCE;\n" +
+      "\n" +
+      "  public Integer apply(String s) {\n" +
+      "    return null;\n" +
+      "  }\n" +
+      "}\n";
+
+  public void testInactiveWithoutDAMapping() throws Exception {
+    myFixture.addClass(FOO_MAPPER_SOURCE);
+
+    DAMappingSupportManager supportManager = DAMappingSupportManager.getInstance(getProject());
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    assertFalse(supportManager.isActive());
+    assertFalse(supportManager.canContainMappers(scope));
+    assertEmpty(new DAMappingElementFinder(getProject()).findClasses("com.acme.test.FooMapper", scope));
+    assertEmpty(new DAMappingPsiShortNamesCache(getProject()).getAllClassNames());
+  }
+
+  public void testActivatedWhenDAMappingIsAdded() throws Exception {
+    DAMappingSupportManager supportManager = DAMappingSupportManager.getInstance(getProject());
+    assertFalse(supportManager.isActive());
+    long modificationCount = supportManager.getModificationCount();
+
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+
+    assertTrue(supportManager.getModificationCount() > modificationCount);
+    assertTrue(supportManager.isActive());
+    assertTrue(supportManager.canContainMappers(GlobalSearchScope.allScope(getProject())));
+  }
+
+  public void testMapperIndexedBeforeActivationIsFound() throws Exception {
+    myFixture.addClass(FOO_MAPPER_SOURCE);
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    assertEmpty(new DAMappingElementFinder(getProject()).findClasses("com.acme.test.FooMapper", scope));
+
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+
+    // indexing does not depend on the project being active, no rebuild of the indexes is required
+    assertEquals(1, new DAMappingElementFinder(getProject()).findClasses("com.acme.test.FooMapper", scope).length);
+  }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.component.project;
+
+import fr.javatronic.damapping.intellij.plugin.integration.provider.DAMappingElementFinder;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectGenerator;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectSpec;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticSourceFile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiReferenceList;
+import com.intellij.psi.PsiTypeElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.apache.log4j.Logger;
+
+/**
+ * ParseAndGenerateManagerStressTest - Stress test of {@link ParseAndGenerateManager} and
+ * {@link DAMappingElementFinder}: reader threads retrieve the generated classes of the classes annoted with @Mapper of
+ * a synthetic project, directly and through the finder, while the event dispatch thread keeps editing them in write
+ * actions.
+ * <p>
+ * Edits change the output type of the Function implemented by a class annoted with @Mapper. Inside a read action,
+ * the generated classes must always implement the Function with the output type currently declared by the source
+ * class: an other type means a stale generated class survived an edit. Any exception thrown by a reader fails the
+ * test, as does a reader which does not terminate (deadlock).
+ * </p>
+ * <p>
+ * The throughput of the readers (lookups per second) is logged for an increasing number of reader threads.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class ParseAndGenerateManagerStressTest extends LightCodeInsightFixtureTestCase {
+  private static final Logger LOG = Logger.getLogger(ParseAndGenerateManagerStressTest.class);
+
+  private static final SyntheticProjectSpec SPEC = SyntheticProjectSpec.builder()
+      .mappers(20)
+      .genericDepth(0)
+      .imports(0)
+      .build();
+  private static final String[] OUTPUT_TYPES = { "Integer", "Long", "Double", "Short", "Byte" };
+  private static final int[] THREAD_COUNTS = { 1, 2, 4, 8 };
+  private static final long PHASE_DURATION_MS = 2000;
+  private static final long TERMINATION_TIMEOUT_S = 30;
+
+  private final List<PsiJavaFile> mapperFiles = new ArrayList<PsiJavaFile>();
+  private final Queue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass(SyntheticProjectGenerator.MAPPER_ANNOTATION_SOURCE);
+    for (SyntheticSourceFile file : SyntheticProjectGenerator.generate(SPEC)) {
+      mapperFiles.add((PsiJavaFile) myFixture.addClass(file.getText()).getContainingFile());
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    mapperFiles.clear();
+    errors.clear();
+    super.tearDown();
+  }
+
+  public void testConcurrentLookupsAndEdits() throws Exception {
+    double singleThreadThroughput = 0;
+    for (int threadCount : THREAD_COUNTS) {
+      Phase phase = runPhase(threadCount);
+      double throughput = phase.lookups * 1000d / PHASE_DURATION_MS;
+      if (threadCount == 1) {
+        singleThreadThroughput = throughput;
+      }
+      LOG.info(String.format("%d reader thread(s): %d edits, %.0f lookups/s (%.2fx single thread)",
+          threadCount, phase.edits, throughput, throughput / singleThreadThroughput
+      ));
+      assertTrue("no lookup done by " + threadCount + " reader thread(s)", phase.lookups > 0);
+      assertTrue("no edit done with " + threadCount + " reader thread(s)", phase.edits > 0);
+    }
+  }
+
+  private Phase runPhase(int threadCount) throws Exception {
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicLong lookups = new AtomicLong();
+    final CountDownLatch started = new CountDownLatch(threadCount);
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      final long seed = i;
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          started.countDown();
+          Random random = new Random(seed);
+          while (!stop.get()) {
+            final PsiJavaFile mapperFile = mapperFiles.get(random.nextInt(mapperFiles.size()));
+            try {
+              ApplicationManager.getApplication().runReadAction(new Runnable() {
+                @Override
+                public void run() {
+                  checkGeneratedClasses(mapperFile);
+                }
+              });
+              lookups.incrementAndGet();
+            } catch (Throwable t) {
+              errors.add(t);
+              stop.set(true);
+            }
+          }
+        }
+      });
+    }
+    started.await();
+
+    // edits are done by the current thread, the event dispatch thread
+    Random random = new Random(threadCount);
+    long edits = 0;
+    long end = System.currentTimeMillis() + PHASE_DURATION_MS;
+    while (System.currentTimeMillis() < end && errors.isEmpty()) {
+      PsiJavaFile mapperFile = mapperFiles.get(random.nextInt(mapperFiles.size()));
+      editOutputType(mapperFile, OUTPUT_TYPES[random.nextInt(OUTPUT_TYPES.length)]);
+      // no stale generated class right after the edit
+      checkGeneratedClasses(mapperFile);
+      edits++;
+    }
+    stop.set(true);
+    executor.shutdown();
+    if (!executor.awaitTermination(TERMINATION_TIMEOUT_S, TimeUnit.SECONDS)) {
+      fail("Reader threads did not terminate, deadlock?\n" + dumpThreads());
+    }
+
+    if (!errors.isEmpty()) {
+      Throwable error = errors.peek();
+      LOG.error(errors.size() + " error(s) in reader threads", error);
+      throw new AssertionError(error);
+    }
+    return new Phase(lookups.get(), edits);
+  }
+
+  private void checkGeneratedClasses(PsiJavaFile mapperFile) {
+    PsiClass mapperClass = mapperFile.getClasses()[0];
+    String outputType = getFunctionOutputType(mapperClass.getImplementsList());
+    assertNotNull(mapperClass.getQualifiedName(), outputType);
+
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    List<PsiClass> generatedClasses = ParseAndGenerateManager.getInstance(getProject())
+                                                             .getGeneratedPsiClasses(mapperClass, scope);
+    assertFalse(mapperClass.getQualifiedName(), generatedClasses.isEmpty());
+    int checked = 0;
+    for (PsiClass generatedClass : generatedClasses) {
+      checked += checkNotStale(generatedClass, outputType);
+      PsiClass[] found = new DAMappingElementFinder(getProject()).findClasses(generatedClass.getQualifiedName(), scope);
+      assertEquals(generatedClass.getQualifiedName(), 1, found.length);
+      checked += checkNotStale(found[0], outputType);
+    }
+    assertTrue("no generated class of " + mapperClass.getQualifiedName() + " implements Function", checked > 0);
+  }
+
+  /**
+   * @return the number of Function references checked
+   */
+  private static int checkNotStale(PsiClass generatedClass, String outputType) {
+    int res = 0;
+    for (PsiReferenceList referenceList : new PsiReferenceList[] {
+        generatedClass.getExtendsList(), generatedClass.getImplementsList()
+    }) {
+      String generatedOutputType = getFunctionOutputType(referenceList);
+      if (generatedOutputType != null) {
+        assertTrue("stale generated class " + generatedClass.getQualifiedName() + ": output type "
+            + generatedOutputType + " instead of " + outputType, generatedOutputType.endsWith(outputType));
+        res++;
+      }
+    }
+    return res;
+  }
+
+  private static String getFunctionOutputType(PsiReferenceList referenceList) {
+    if (referenceList == null) {
+      return null;
+    }
+    for (PsiJavaCodeReferenceElement reference : referenceList.getReferenceElements()) {
+      if ("Function".equals(reference.getReferenceName()) && reference.getParameterList() != null) {
+        PsiTypeElement[] typeArguments = reference.getParameterList().getTypeParameterElements();
+        if (typeArguments.length == 2) {
+          return typeArguments[1].getText();
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Replaces the output type of the Function implemented by the class, in the implements clause and as the return
+   * type of the apply method.
+   */
+  private void editOutputType(PsiJavaFile mapperFile, String outputType) {
+    PsiClass mapperClass = mapperFile.getClasses()[0];
+    String currentOutputType = getFunctionOutputType(mapperClass.getImplementsList());
+    String text = mapperFile.getText();
+    final String newText = text
+        .replace(", " + currentOutputType + "> {", ", " + outputType + "> {")
+        .replace("public " + currentOutputType + " apply(", "public " + outputType + " apply(");
+
+    final PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+    final Document document = documentManager.getDocument(mapperFile);
+    assertNotNull(document);
+    new WriteCommandAction.Simple(getProject(), mapperFile) {
+      @Override
+      protected void run() throws Throwable {
+        document.setText(newText);
+        documentManager.commitDocument(document);
+      }
+    }.execute().throwException();
+  }
+
+  private static String dumpThreads() {
+    StringBuilder res = new StringBuilder();
+    for (ThreadInfo threadInfo : ManagementFactory.getThreadMXBean().dumpAllThreads(true, true)) {
+      res.append(threadInfo);
+    }
+    return res.toString();
+  }
+
+  private static final class Phase {
+    private final long lookups;
+    private final long edits;
+
+    private Phase(long lookups, long edits) {
+      this.lookups = lookups;
+      this.edits = edits;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.golden;
+
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.MapperDetectorImpl;
+
+import java.io.File;
+
+import com.intellij.core.CoreApplicationEnvironment;
+import com.intellij.core.JavaCoreApplicationEnvironment;
+import com.intellij.core.JavaCoreProjectEnvironment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.extensions.ExtensionsArea;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.augment.PsiAugmentProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * CoreParsingEnvironment - Minimal IntelliJ core environment (no IDE platform, no test fixture, no index) in which
+ * Java files are parsed into PSI, to run the DAMapping parsing pipeline much faster than from a
+ * {@link com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase}.
+ * <p>
+ * Only what the parsing pipeline relies on is registered: the {@link MapperDetector} application service and the
+ * {@link PsiAugmentProvider} extension point. References are not resolved against any library, DAMapping parsing
+ * only looks at the imports of the files. No plugin component is registered either: {@code project.getComponent(...)}
+ * returns {@code null} in this environment, the parsing pipeline must not rely on any DAMapping project component.
+ * </p>
+ * <p>
+ * The environment replaces the current {@link com.intellij.openapi.application.Application} until it is disposed,
+ * it must always be disposed with {@link #dispose()}.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class CoreParsingEnvironment {
+  private final Disposable disposable = new Disposable() {
+    @Override
+    public void dispose() {
+      // nothing to dispose, the core environments are registered as children of this Disposable
+    }
+  };
+  private final JavaCoreApplicationEnvironment applicationEnvironment;
+  private final JavaCoreProjectEnvironment projectEnvironment;
+
+  /**
+   * @param sourceRoot the directory of the files to parse, added to the classpath of the project so that the parsed
+   *                   files belong to a package
+   */
+  public CoreParsingEnvironment(@NotNull File sourceRoot) {
+    this.applicationEnvironment = new JavaCoreApplicationEnvironment(disposable);
+    ExtensionsArea rootArea = Extensions.getRootArea();
+    if (!rootArea.hasExtensionPoint(PsiAugmentProvider.EP_NAME.getName())) {
+      CoreApplicationEnvironment.registerExtensionPoint(rootArea, PsiAugmentProvider.EP_NAME, PsiAugmentProvider.class);
+    }
+    applicationEnvironment.registerApplicationService(MapperDetector.class, new MapperDetectorImpl());
+
+    this.projectEnvironment = new JavaCoreProjectEnvironment(disposable, applicationEnvironment);
+    VirtualFile root = applicationEnvironment.getLocalFileSystem().findFileByIoFile(sourceRoot);
+    if (root == null) {
+      throw new IllegalArgumentException("Source root " + sourceRoot + " does not exist");
+    }
+    projectEnvironment.addSourcesToClasspath(root);
+  }
+
+  @NotNull
+  public Project getProject() {
+    return projectEnvironment.getProject();
+  }
+
+  /**
+   * @return the PsiJavaFile of the specified file, {@code null} if the file does not exist or is not a Java file
+   */
+  @Nullable
+  public PsiJavaFile parse(@NotNull File javaFile) {
+    VirtualFile virtualFile = applicationEnvironment.getLocalFileSystem().findFileByIoFile(javaFile);
+    if (virtualFile == null) {
+      return null;
+    }
+    PsiFile psiFile = PsiManager.getInstance(getProject()).findFile(virtualFile);
+    return psiFile instanceof PsiJavaFile ? (PsiJavaFile) psiFile : null;
+  }
+
+  public void dispose() {
+    Disposer.dispose(disposable);
+  }
+}
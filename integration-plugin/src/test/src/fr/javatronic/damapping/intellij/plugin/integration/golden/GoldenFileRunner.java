@@ -0,0 +1,328 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.golden;
+
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.MapperDetector;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.PsiParsingService;
+import fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl.PsiParsingServiceImpl;
+import fr.javatronic.damapping.processor.model.DASourceClass;
+import fr.javatronic.damapping.processor.sourcegenerator.GeneratedFileDescriptor;
+import fr.javatronic.damapping.processor.sourcegenerator.GenerationContext;
+import fr.javatronic.damapping.processor.sourcegenerator.GenerationContextComputer;
+import fr.javatronic.damapping.processor.sourcegenerator.GenerationContextComputerImpl;
+import fr.javatronic.damapping.processor.sourcegenerator.SourceGenerationService;
+import fr.javatronic.damapping.processor.sourcegenerator.SourceGenerationServiceImpl;
+import fr.javatronic.damapping.processor.sourcegenerator.SourceWriterDelegate;
+import fr.javatronic.damapping.processor.validator.DASourceClassValidator;
+import fr.javatronic.damapping.processor.validator.DASourceClassValidatorImpl;
+import fr.javatronic.damapping.processor.validator.ValidationError;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import org.jetbrains.annotations.NotNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * GoldenFileRunner - Runs the parsing pipeline ({@link PsiParsingServiceImpl}) and the generation of the annotation
+ * processor on the classes annoted with @Mapper of a directory tree and compares each generated file with its golden
+ * file.
+ * <p>
+ * The golden file of a generated class is the file named after the simple name of the generated class with the
+ * {@link #GOLDEN_FILE_EXTENSION} extension, in the directory of the class annoted with @Mapper (eg.
+ * {@code FooMapper.java.tgt} next to {@code Foo.java}). Only the Java files of directories which contain at least one
+ * golden file are run, unless the runner records golden files: then every Java file is run and the golden files are
+ * (over)written with the generated sources.
+ * </p>
+ * <p>
+ * Java files are parsed in a {@link CoreParsingEnvironment} and processed in parallel, each one in a read action.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class GoldenFileRunner {
+  public static final String GOLDEN_FILE_EXTENSION = ".java.tgt";
+
+  private static final Pattern JAVA_FILE_PATTERN = Pattern.compile(".*\\.java");
+  private static final Pattern GOLDEN_FILE_PATTERN = Pattern.compile(".*\\.java\\.tgt");
+
+  private final int threadCount;
+  private final boolean record;
+
+  /**
+   * @param threadCount the number of Java files processed in parallel
+   * @param record      whether golden files are written instead of being compared with the generated files
+   */
+  public GoldenFileRunner(int threadCount, boolean record) {
+    checkArgument(threadCount > 0, "threadCount must be > 0");
+    this.threadCount = threadCount;
+    this.record = record;
+  }
+
+  @NotNull
+  public Report run(@NotNull File root) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    List<File> sources = findSources(root);
+    Report report = new Report(sources.size());
+
+    CoreParsingEnvironment environment = new CoreParsingEnvironment(root);
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>(sources.size());
+      for (File source : sources) {
+        futures.add(executor.submit(new SourceTask(environment, source, report)));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          report.failures.addAll(futures.get(i).get());
+        } catch (ExecutionException e) {
+          report.failures.add(sources.get(i) + ": " + e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      environment.dispose();
+    }
+    report.elapsedMillis = System.currentTimeMillis() - start;
+    return report;
+  }
+
+  @NotNull
+  private List<File> findSources(@NotNull File root) {
+    List<File> javaFiles = FileUtil.findFilesByMask(JAVA_FILE_PATTERN, root);
+    if (record) {
+      return javaFiles;
+    }
+    List<File> res = new ArrayList<File>(javaFiles.size());
+    for (File javaFile : javaFiles) {
+      File[] goldenFiles = javaFile.getParentFile().listFiles();
+      for (File file : goldenFiles == null ? new File[0] : goldenFiles) {
+        if (GOLDEN_FILE_PATTERN.matcher(file.getName()).matches()) {
+          res.add(javaFile);
+          break;
+        }
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Parses, validates and generates the classes annoted with @Mapper of a Java file, then compares (or records)
+   * the generated files.
+   */
+  private final class SourceTask implements Callable<List<String>> {
+    private final CoreParsingEnvironment environment;
+    private final File source;
+    private final Report report;
+    // services are created per task, nothing is shared between threads but the PSI
+    private final PsiParsingService parsingService = new PsiParsingServiceImpl();
+    private final DASourceClassValidator sourceClassValidator = new DASourceClassValidatorImpl();
+    private final GenerationContextComputer generationContextComputer = new GenerationContextComputerImpl();
+    private final SourceGenerationService sourceGenerationService = new SourceGenerationServiceImpl();
+
+    private SourceTask(CoreParsingEnvironment environment, File source, Report report) {
+      this.environment = environment;
+      this.source = source;
+      this.report = report;
+    }
+
+    @Override
+    public List<String> call() throws Exception {
+      Map<String, String> generatedFiles = ApplicationManager.getApplication().runReadAction(
+          new Computable<Map<String, String>>() {
+            @Override
+            public Map<String, String> compute() {
+              return generate();
+            }
+          }
+      );
+      if (generatedFiles == null) {
+        return Collections.singletonList(source + ": not a Java file");
+      }
+
+      List<String> res = new ArrayList<String>();
+      for (Map.Entry<String, String> generatedFile : generatedFiles.entrySet()) {
+        report.generatedFiles.incrementAndGet();
+        File goldenFile = new File(source.getParentFile(), generatedFile.getKey() + GOLDEN_FILE_EXTENSION);
+        if (record) {
+          FileUtil.writeToFile(goldenFile, generatedFile.getValue().getBytes("UTF-8"));
+        }
+        else if (!goldenFile.exists()) {
+          res.add(goldenFile + ": missing golden file");
+        }
+        else {
+          String expected = StringUtil.convertLineSeparators(FileUtil.loadFile(goldenFile, "UTF-8"));
+          String difference = firstDifference(expected, StringUtil.convertLineSeparators(generatedFile.getValue()));
+          if (difference != null) {
+            res.add(goldenFile + ": " + difference);
+          }
+        }
+      }
+      return res;
+    }
+
+    /**
+     * @return the source of the generated files by simple name of the generated class, {@code null} if the source is
+     * not a Java file
+     */
+    private Map<String, String> generate() {
+      PsiJavaFile psiJavaFile = environment.parse(source);
+      if (psiJavaFile == null) {
+        return null;
+      }
+
+      Map<String, String> res = new LinkedHashMap<String, String>();
+      MapperDetector mapperDetector = ServiceManager.getService(MapperDetector.class);
+      for (PsiClass psiClass : psiJavaFile.getClasses()) {
+        if (!mapperDetector.isMapper(psiClass)) {
+          continue;
+        }
+        report.mappers.incrementAndGet();
+
+        DASourceClass daSourceClass = parsingService.parse(psiClass);
+        try {
+          sourceClassValidator.validate(daSourceClass);
+        } catch (ValidationError validationError) {
+          // nothing is generated from an invalid class
+          report.invalidMappers.incrementAndGet();
+          continue;
+        }
+
+        GenerationContext generationContext = generationContextComputer.compute(daSourceClass);
+        for (String key : generationContext.getDescriptorKeys()) {
+          StringWriterDelegate delegate = new StringWriterDelegate();
+          try {
+            sourceGenerationService.generate(generationContext, key, delegate);
+          } catch (IOException e) {
+            throw new RuntimeException("Failed to generate " + key + " for " + psiClass.getQualifiedName(), e);
+          }
+          res.put(delegate.simpleName, delegate.source);
+        }
+      }
+      return res;
+    }
+  }
+
+  /**
+   * @return a description of the first line which differs, {@code null} if both texts are equal
+   */
+  static String firstDifference(@NotNull String expected, @NotNull String actual) {
+    if (expected.equals(actual)) {
+      return null;
+    }
+    String[] expectedLines = expected.split("\n", -1);
+    String[] actualLines = actual.split("\n", -1);
+    for (int i = 0; i < Math.min(expectedLines.length, actualLines.length); i++) {
+      if (!expectedLines[i].equals(actualLines[i])) {
+        return "line " + (i + 1) + ": expected <" + expectedLines[i] + "> but was <" + actualLines[i] + ">";
+      }
+    }
+    return "expected " + expectedLines.length + " lines but was " + actualLines.length;
+  }
+
+  private static class StringWriterDelegate implements SourceWriterDelegate {
+    private String simpleName;
+    private String source;
+
+    @Override
+    public void generateFile(@Nonnull GeneratedFileDescriptor descriptor) throws IOException {
+      StringWriter writer = new StringWriter();
+      BufferedWriter bufferedWriter = new BufferedWriter(writer);
+      try {
+        descriptor.getSourceGenerator().writeFile(bufferedWriter);
+      } finally {
+        bufferedWriter.close();
+      }
+      this.simpleName = descriptor.getType().getSimpleName().getName();
+      this.source = writer.toString();
+    }
+  }
+
+  /**
+   * Report - Result of a run of the {@link GoldenFileRunner}.
+   */
+  public static final class Report {
+    private final int sources;
+    private final AtomicInteger mappers = new AtomicInteger();
+    private final AtomicInteger invalidMappers = new AtomicInteger();
+    private final AtomicInteger generatedFiles = new AtomicInteger();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+    private long elapsedMillis;
+
+    private Report(int sources) {
+      this.sources = sources;
+    }
+
+    public int getSources() {
+      return sources;
+    }
+
+    public int getMappers() {
+      return mappers.get();
+    }
+
+    public int getInvalidMappers() {
+      return invalidMappers.get();
+    }
+
+    public int getGeneratedFiles() {
+      return generatedFiles.get();
+    }
+
+    /**
+     * @return the description of each generated file which does not match its golden file and of each Java file
+     * which could not be processed
+     */
+    @NotNull
+    public List<String> getFailures() {
+      return failures;
+    }
+
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d sources, %d mappers (%d invalid), %d generated files, %d failures in %d ms",
+          sources, getMappers(), getInvalidMappers(), getGeneratedFiles(), failures.size(), elapsedMillis
+      );
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.golden;
+
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectGenerator;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectSpec;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticSourceFile;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Collections;
+import java.util.List;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * GoldenFileRunnerTest -
+ * <p>
+ * {@link #golden_files_of_the_integration_tests_match} runs the golden files of the directory set with system property
+ * {@value #GOLDEN_DIR_PROPERTY} (default: {@value #DEFAULT_GOLDEN_DIR}, relative to the root of the maven project)
+ * and is skipped if this directory does not exist. Set system property {@value #RECORD_PROPERTY} to {@code true} to
+ * (over)write the golden files instead.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class GoldenFileRunnerTest {
+  private static final Logger LOG = Logger.getLogger(GoldenFileRunnerTest.class);
+
+  public static final String GOLDEN_DIR_PROPERTY = "damapping.golden.dir";
+  public static final String DEFAULT_GOLDEN_DIR = "integration-test";
+  public static final String RECORD_PROPERTY = "damapping.golden.record";
+  public static final String THREADS_PROPERTY = "damapping.golden.threads";
+
+  private static final SyntheticProjectSpec SPEC = SyntheticProjectSpec.builder()
+      .mappers(200)
+      .methodsPerMapper(3)
+      .genericDepth(2)
+      .imports(5)
+      .invalidRatio(0.1)
+      .build();
+
+  @Test
+  public void golden_files_of_the_integration_tests_match() throws Exception {
+    File root = new File(System.getProperty(GOLDEN_DIR_PROPERTY, DEFAULT_GOLDEN_DIR));
+    assumeTrue(root.isDirectory());
+
+    GoldenFileRunner.Report report = new GoldenFileRunner(threadCount(), Boolean.getBoolean(RECORD_PROPERTY))
+        .run(root);
+
+    LOG.info(report.toString());
+    assertEquals(Collections.<String>emptyList(), report.getFailures());
+  }
+
+  @Test
+  public void recorded_golden_files_match_until_one_is_modified_or_removed() throws Exception {
+    File root = FileUtil.createTempDirectory("damapping", "golden");
+    try {
+      List<SyntheticSourceFile> sourceFiles = SyntheticProjectGenerator.writeTo(SPEC, root);
+
+      GoldenFileRunner.Report recording = new GoldenFileRunner(threadCount(), true).run(root);
+      LOG.info("record: " + recording);
+      assertEquals(Collections.<String>emptyList(), recording.getFailures());
+      assertTrue(recording.getGeneratedFiles() >= 180);
+
+      GoldenFileRunner.Report report = new GoldenFileRunner(threadCount(), false).run(root);
+      LOG.info("compare: " + report);
+      assertEquals(Collections.<String>emptyList(), report.getFailures());
+      assertEquals(recording.getGeneratedFiles(), report.getGeneratedFiles());
+
+      File mapperDirectory = new File(root, sourceFiles.get(0).getPath()).getParentFile();
+      File[] goldenFiles = mapperDirectory.listFiles(new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+          return name.endsWith(GoldenFileRunner.GOLDEN_FILE_EXTENSION);
+        }
+      });
+      assertTrue(goldenFiles != null && goldenFiles.length >= 2);
+      FileUtil.writeToFile(goldenFiles[0], "package edited;\n");
+      FileUtil.delete(goldenFiles[1]);
+
+      List<String> failures = new GoldenFileRunner(threadCount(), false).run(root).getFailures();
+      assertEquals(failures.toString(), 2, failures.size());
+    } finally {
+      FileUtil.delete(root);
+    }
+  }
+
+  @Test
+  public void first_difference_is_null_for_equal_texts() throws Exception {
+    assertNull(GoldenFileRunner.firstDifference("a\nb\n", "a\nb\n"));
+  }
+
+  @Test
+  public void first_difference_reports_the_first_different_line() throws Exception {
+    assertEquals("line 2: expected <b> but was <c>", GoldenFileRunner.firstDifference("a\nb\nd", "a\nc\ne"));
+    assertEquals("expected 2 lines but was 3", GoldenFileRunner.firstDifference("a\nb", "a\nb\nc"));
+  }
+
+  private static int threadCount() {
+    return Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
+
+/**
+ * AbstractMapperClassIndexTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class AbstractMapperClassIndexTest extends LightCodeInsightFixtureTestCase {
+  private static final String TWO_MAPPERS_FILE = "package com.acme.test;\n" +
+      "\n" +
+      "import com.google.common.base.Function;\n" +
+      "import fr.javatronic.damapping.annotation.Mapper;\n" +
+      "\n" +
+      "@Mapper\n" +
+      "public enum Foo implements Function<String, Integer> {\n" +
+      "  INSTANCE;\n" +
+      "\n" +
+      "  public Integer apply(String s) {\n" +
+      "    return null;\n" +
+      "  }\n" +
+      "}\n" +
+      "\n" +
+      "@Mapper\n" +
+      "enum Bar implements Function<String, Integer> {\n" +
+      "  INSTANCE;\n" +
+      "\n" +
+      "  public Integer apply(String s) {\n" +
+      "    return null;\n" +
+      "  }\n" +
+      "}\n";
+
+  private PsiFile psiFile;
+  private GlobalSearchScope fileScope;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    psiFile = myFixture.configureByText("Foo.java", TWO_MAPPERS_FILE);
+    fileScope = GlobalSearchScope.fileScope(psiFile);
+  }
+
+  public void testPackageIndexKeepsSimpleNamesOfBothMappers() throws Exception {
+    List<List<String>> values = FileBasedIndex.getInstance()
+                                              .getValues(GeneratedClassPackageIndex.NAME, "com.acme.test", fileScope);
+
+    assertEquals(1, values.size());
+    assertSameElements(values.get(0), "FooMapper", "BarMapper");
+  }
+
+  public void testMethodIndexKeepsLocationsOfBothMappers() throws Exception {
+    assertKeysSharedByBothMappers(GeneratedMethodNameIndex.NAME);
+  }
+
+  public void testFieldIndexKeepsLocationsOfBothMappers() throws Exception {
+    assertKeysSharedByBothMappers(GeneratedFieldNameIndex.NAME);
+  }
+
+  /**
+   * Foo and Bar have the same shape, so every member name of the classes generated from one of them is also a member
+   * name of the classes generated from the other one: each key must be stored with the location of both classes.
+   */
+  private void assertKeysSharedByBothMappers(ID<String, List<MapperClassLocation>> indexId) {
+    FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+    Collection<String> keys = fileBasedIndex.getAllKeys(indexId, getProject());
+    for (String key : keys) {
+      List<List<MapperClassLocation>> values = fileBasedIndex.getValues(indexId, key, fileScope);
+      if (values.isEmpty()) {
+        continue;
+      }
+
+      assertEquals(key, 1, values.size());
+      List<String> qualifiedNames = new ArrayList<String>();
+      for (MapperClassLocation location : values.get(0)) {
+        qualifiedNames.add(location.getQualifiedName());
+      }
+      assertSameElements(qualifiedNames, "com.acme.test.Foo", "com.acme.test.Bar");
+
+      List<PsiClass> mapperClasses = AbstractMapperClassLocationIndex.findMapperClasses(
+          indexId, key, getProject(), fileScope
+      );
+      assertEquals(key, 2, mapperClasses.size());
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import java.util.Arrays;
+import java.util.Collections;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * GeneratedMemberNamesTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class GeneratedMemberNamesTest {
+  private static final String CLASS_SOURCE = "package com.acme.test;\n" +
+      "\n" +
+      "import javax.annotation.Generated;\n" +
+      "\n" +
+      "@Generated(\"fr.javatronic.damapping.processor.impl.javaxparsing.DAMappingAnnotationProcessor\")\n" +
+      "public class FooMapperImpl implements FooMapper, Bar<String, Integer> {\n" +
+      "  private static final Map<String, List<String>> CACHE = new HashMap<String, List<String>>(), other;\n" +
+      "  private final Function<String, Integer> function = compute(1, 2);\n" +
+      "  // not a field;\n" +
+      "  private int[] ints = {1, 2};\n" +
+      "\n" +
+      "  public FooMapperImpl(String a) throws IOException, IllegalStateException {\n" +
+      "    this.a = a;\n" +
+      "  }\n" +
+      "\n" +
+      "  @Override\n" +
+      "  @SuppressWarnings(\"unchecked\")\n" +
+      "  public <T> Integer apply(@Nullable String s) {\n" +
+      "    int local = foo(s);\n" +
+      "    return local;\n" +
+      "  }\n" +
+      "\n" +
+      "  public static class Inner implements Bar, Baz {\n" +
+      "    private int innerField;\n" +
+      "\n" +
+      "    void innerMethod() {\n" +
+      "    }\n" +
+      "  }\n" +
+      "}\n";
+  private static final String INTERFACE_SOURCE = "package com.acme.test;\n" +
+      "\n" +
+      "public interface BarMapperFactory {\n" +
+      "  int CONSTANT = 1;\n" +
+      "\n" +
+      "  BarMapper instanceByName(String name) throws IOException, IllegalStateException;\n" +
+      "}\n";
+  private static final String ENUM_SOURCE = "package com.acme.test;\n" +
+      "\n" +
+      "public enum BazMapperImpl implements BazMapper {\n" +
+      "  @Deprecated INSTANCE(1, 2), OTHER {\n" +
+      "    void body() {\n" +
+      "    }\n" +
+      "  },\n" +
+      "  LAST;\n" +
+      "\n" +
+      "  private final int value;\n" +
+      "\n" +
+      "  BazMapperImpl(int value, int other) {\n" +
+      "  }\n" +
+      "\n" +
+      "  public Integer apply(String s) {\n" +
+      "    return null;\n" +
+      "  }\n" +
+      "}\n";
+
+  @Test
+  public void members_of_top_level_class_are_extracted() throws Exception {
+    GeneratedMemberNames names = GeneratedMemberNames.of(Collections.singletonList(CLASS_SOURCE));
+
+    assertEquals(ImmutableSet.of("apply"), names.getMethodNames());
+    assertEquals(ImmutableSet.of("CACHE", "other", "function", "ints"), names.getFieldNames());
+  }
+
+  @Test
+  public void throws_clause_and_constants_of_interface() throws Exception {
+    GeneratedMemberNames names = GeneratedMemberNames.of(Collections.singletonList(INTERFACE_SOURCE));
+
+    assertEquals(ImmutableSet.of("instanceByName"), names.getMethodNames());
+    assertEquals(ImmutableSet.of("CONSTANT"), names.getFieldNames());
+  }
+
+  @Test
+  public void enum_constants_are_fields() throws Exception {
+    GeneratedMemberNames names = GeneratedMemberNames.of(Collections.singletonList(ENUM_SOURCE));
+
+    assertEquals(ImmutableSet.of("apply"), names.getMethodNames());
+    assertEquals(ImmutableSet.of("INSTANCE", "OTHER", "LAST", "value"), names.getFieldNames());
+  }
+
+  @Test
+  public void names_of_all_sources_are_merged() throws Exception {
+    GeneratedMemberNames names = GeneratedMemberNames.of(Arrays.asList(CLASS_SOURCE, INTERFACE_SOURCE));
+
+    assertEquals(ImmutableSet.of("apply", "instanceByName"), names.getMethodNames());
+  }
+
+  @Test
+  public void no_source() throws Exception {
+    assertSame(GeneratedMemberNames.EMPTY, GeneratedMemberNames.of(Collections.<String>emptyList()));
+  }
+}
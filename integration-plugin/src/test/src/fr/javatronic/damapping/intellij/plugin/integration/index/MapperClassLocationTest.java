@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.index;
+
+import fr.javatronic.damapping.intellij.plugin.integration.provider.DAMappingElementFinder;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * MapperClassLocationTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class MapperClassLocationTest extends LightCodeInsightFixtureTestCase {
+  private static final String MULTI_CLASS_FILE = "package com.acme.test;\n" +
+      "\n" +
+      "import com.google.common.base.Function;\n" +
+      "import fr.javatronic.damapping.annotation.Mapper;\n" +
+      "\n" +
+      "public class Helper {\n" +
+      "}\n" +
+      "\n" +
+      "@Mapper\n" +
+      "enum Bar implements Function<String, Integer> {\n" +
+      "  INSTANCE;\n" +
+      "\n" +
+      "  public Integer apply(String s) {\n" +
+      "    return null;\n" +
+      "  }\n" +
+      "}\n";
+
+  public void testFindPsiClass() throws Exception {
+    PsiJavaFile psiFile = (PsiJavaFile) myFixture.configureByText("Helper.java", MULTI_CLASS_FILE);
+    PsiClass bar = psiFile.getClasses()[1];
+
+    MapperClassLocation location = MapperClassLocation.of(bar);
+    assertNotNull(location);
+    assertEquals("com.acme.test.Bar", location.getQualifiedName());
+    assertSame(bar, location.findPsiClass(psiFile));
+  }
+
+  public void testFindPsiClassWithOutdatedOffset() throws Exception {
+    PsiFile psiFile = myFixture.configureByText("Helper.java", MULTI_CLASS_FILE);
+
+    PsiClass psiClass = new MapperClassLocation("com.acme.test.Bar", 0).findPsiClass(psiFile);
+    assertNotNull(psiClass);
+    assertEquals("com.acme.test.Bar", psiClass.getQualifiedName());
+    assertNull(new MapperClassLocation("com.acme.test.Foo", 0).findPsiClass(psiFile));
+  }
+
+  public void testFindGeneratedClassOfSecondClassOfFile() throws Exception {
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    myFixture.configureByText("Helper.java", MULTI_CLASS_FILE);
+
+    PsiClass psiClass = new DAMappingElementFinder(getProject())
+        .findClass("com.acme.test.BarMapper", GlobalSearchScope.allScope(getProject()));
+    assertNotNull(psiClass);
+  }
+}
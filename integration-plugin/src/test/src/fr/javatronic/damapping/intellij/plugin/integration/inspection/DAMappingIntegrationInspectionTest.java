@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.inspection;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * DAMappingIntegrationInspectionTest - Unit test of {@link DAMappingIntegrationInspection} and of the files it visits
+ * in batch mode.
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingIntegrationInspectionTest extends LightCodeInsightFixtureTestCase {
+  private static final String MISSING_MAPPER_FACTORY_METHOD = "Class annoted with @Mapper without a no-argument "
+      + "constructor must have a constructor or a static method annoted with @MapperFactoryMethod";
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    myFixture.addClass("package com.google.common.base;\n" +
+        "public interface Function<F, T> {\n" +
+        "  T apply(F input);\n" +
+        "}\n"
+    );
+    myFixture.enableInspections(DAMappingIntegrationInspection.class);
+  }
+
+  public void testValidMapper() throws Exception {
+    configure("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public enum A implements Function<String, Integer> {\n" +
+        "  INSTANCE;\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    assertEmpty(getDAMappingProblems());
+  }
+
+  public void testMissingFunction() throws Exception {
+    configure("import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A {}\n"
+    );
+    assertEquals(1, getDAMappingProblems().size());
+    assertEquals("Class annoted with @Mapper must implement Guava's Function interface",
+        getDAMappingProblems().get(0)
+    );
+  }
+
+  public void testInnerClass() throws Exception {
+    configure("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "public class A {\n" +
+        "  @Mapper\n" +
+        "  public static class B implements Function<String, Integer> {\n" +
+        "    public Integer apply(String s) {\n" +
+        "      return null;\n" +
+        "    }\n" +
+        "  }\n" +
+        "}\n"
+    );
+    assertEquals(1, getDAMappingProblems().size());
+    assertEquals("Inner class can not be annoted with @Mapper", getDAMappingProblems().get(0));
+  }
+
+  public void testEnumWithSeveralValues() throws Exception {
+    configure("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public enum A implements Function<String, Integer> {\n" +
+        "  ONE, TWO, THREE;\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    assertEquals(2, getDAMappingProblems().size());
+    assertEquals("Enum annoted with @Mapper must have only one value", getDAMappingProblems().get(0));
+  }
+
+  public void testMissingMapperFactoryMethod() throws Exception {
+    addMapperFactoryMethodAnnotation();
+    configure("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A implements Function<String, Integer> {\n" +
+        "  public A(String s) {}\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    assertTrue(getDAMappingProblems().contains(MISSING_MAPPER_FACTORY_METHOD));
+  }
+
+  public void testAnnotedMapperFactoryMethod() throws Exception {
+    addMapperFactoryMethodAnnotation();
+    configure("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "import fr.javatronic.damapping.annotation.MapperFactoryMethod;\n" +
+        "@Mapper\n" +
+        "public class A implements Function<String, Integer> {\n" +
+        "  @MapperFactoryMethod\n" +
+        "  public A(String s) {}\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    assertFalse(getDAMappingProblems().contains(MISSING_MAPPER_FACTORY_METHOD));
+  }
+
+  public void testMapperFactoryMethodIsNotCheckedWithoutTheAnnotationInClasspath() throws Exception {
+    configure("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A implements Function<String, Integer> {\n" +
+        "  public A(String s) {}\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    assertFalse(getDAMappingProblems().contains(MISSING_MAPPER_FACTORY_METHOD));
+  }
+
+  public void testValidationResultIsCached() throws Exception {
+    PsiJavaFile psiJavaFile = configure("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A implements Function<String, Integer> {\n" +
+        "  private A(String s) {}\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    PsiClass psiClass = psiJavaFile.getClasses()[0];
+    ParseAndGenerateManager parseAndGenerateManager = ParseAndGenerateManager.getInstance(getProject());
+    assertSame(parseAndGenerateManager.getValidationError(psiClass),
+        parseAndGenerateManager.getValidationError(psiClass)
+    );
+  }
+
+  public void testBatchModeOnlyVisitsMapperFiles() throws Exception {
+    PsiClass mapper = myFixture.addClass("package com.acme.test;\n" +
+        "import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public enum Foo implements Function<String, Integer> {\n" +
+        "  INSTANCE;\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    );
+    PsiClass notAMapper = myFixture.addClass("package com.acme.test;\n" +
+        "public class Bar {}\n"
+    );
+
+    MapperFiles mapperFiles = MapperFiles.getInstance(getProject());
+    assertTrue(mapperFiles.contains(mapper.getContainingFile().getVirtualFile()));
+    assertFalse(mapperFiles.contains(notAMapper.getContainingFile().getVirtualFile()));
+    assertSame(mapperFiles, MapperFiles.getInstance(getProject()));
+  }
+
+  private void addMapperFactoryMethodAnnotation() {
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface MapperFactoryMethod {}\n"
+    );
+  }
+
+  private PsiJavaFile configure(String source) {
+    PsiFile psiFile = myFixture.configureByText("A.java", "package com.acme.test;\n\n" + source);
+    return (PsiJavaFile) psiFile;
+  }
+
+  private List<String> getDAMappingProblems() {
+    List<String> res = new ArrayList<String>();
+    for (HighlightInfo highlightInfo : myFixture.doHighlighting()) {
+      String description = highlightInfo.getDescription();
+      if (description != null && description.contains("@Mapper")) {
+        res.add(description);
+      }
+    }
+    return res;
+  }
+}
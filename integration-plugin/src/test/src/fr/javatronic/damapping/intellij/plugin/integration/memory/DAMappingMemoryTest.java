@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.memory;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.DAMappingPsiShortNamesCache;
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+import fr.javatronic.damapping.intellij.plugin.integration.provider.DAMappingElementFinder;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectGenerator;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectSpec;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticSourceFile;
+import fr.javatronic.damapping.processor.model.DASourceClass;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import com.google.common.base.Predicate;
+
+import com.intellij.lang.Language;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.components.ComponentManager;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementFinder;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.apache.log4j.Logger;
+
+/**
+ * DAMappingMemoryTest - Measures the heap retained per class annoted with @Mapper once all the generated classes of a
+ * synthetic project are resolved, and checks this memory is released once the classes annoted with @Mapper are
+ * removed from the project.
+ * <p>
+ * Sizes are computed by {@link ObjectSizer} and logged, they are only measured when the test JVM is started with
+ * ObjectSizer as a java agent. The release check always runs. Closing the project can not be tested: the project
+ * of a light fixture is shared by all the tests.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingMemoryTest extends LightCodeInsightFixtureTestCase {
+  private static final Logger LOG = Logger.getLogger(DAMappingMemoryTest.class);
+
+  private static final SyntheticProjectSpec SPEC = SyntheticProjectSpec.builder()
+      .mappers(100)
+      .methodsPerMapper(3)
+      .genericDepth(2)
+      .build();
+  private static final int GC_ATTEMPTS = 10;
+
+  /**
+   * Objects shared with the IDE and the source files of the project, which are not retained by DAMapping.
+   */
+  private static final Predicate<Object> SHARED_OBJECTS = new Predicate<Object>() {
+    @Override
+    public boolean apply(Object o) {
+      return o instanceof ComponentManager || o instanceof PsiManager || o instanceof VirtualFile
+          || o instanceof Language || o instanceof FileType || o instanceof IElementType
+          || (o instanceof PsiElement && ((PsiElement) o).isPhysical());
+    }
+  };
+
+  /**
+   * Same as {@link #SHARED_OBJECTS} plus all the PSI, to measure the caches which are not PSI themselves.
+   */
+  private static final Predicate<Object> SHARED_OBJECTS_AND_PSI = new Predicate<Object>() {
+    @Override
+    public boolean apply(Object o) {
+      return o instanceof PsiElement || SHARED_OBJECTS.apply(o);
+    }
+  };
+
+  private final List<PsiClass> mapperClasses = new ArrayList<PsiClass>();
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass(SyntheticProjectGenerator.MAPPER_ANNOTATION_SOURCE);
+    for (SyntheticSourceFile file : SyntheticProjectGenerator.generate(SPEC)) {
+      if (file.isValid()) {
+        mapperClasses.add(myFixture.addClass(file.getText()));
+      }
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    mapperClasses.clear();
+    super.tearDown();
+  }
+
+  public void testRetainedSizePerMapper() throws Exception {
+    if (!ObjectSizer.isAvailable()) {
+      LOG.warn("ObjectSizer is not loaded as a java agent, sizes are not measured");
+      return;
+    }
+
+    Set<PsiFile> generatedFiles = resolveAllGeneratedClasses();
+    List<DASourceClass> sourceClasses = parseAll();
+
+    ObjectSizer.GraphSize psiSize = new ObjectSizer(SHARED_OBJECTS).sizeOf(generatedFiles);
+    ObjectSizer.GraphSize modelSize = new ObjectSizer(SHARED_OBJECTS).sizeOf(sourceClasses);
+    ObjectSizer.GraphSize cacheSize = new ObjectSizer(SHARED_OBJECTS_AND_PSI).sizeOf(indexSideCaches());
+
+    int mapperCount = mapperClasses.size();
+    LOG.info(String.format("%d mappers, %d generated files", mapperCount, generatedFiles.size()));
+    LOG.info(String.format("generated PSI: %s, %d bytes per mapper", psiSize, psiSize.getBytes() / mapperCount));
+    LOG.info(String.format("parsed models: %s, %d bytes per mapper", modelSize, modelSize.getBytes() / mapperCount));
+    LOG.info(String.format("index-side caches: %s, %d bytes per mapper",
+        cacheSize, cacheSize.getBytes() / mapperCount
+    ));
+
+    assertTrue(psiSize.getBytes() > 0);
+    assertTrue(modelSize.getBytes() > 0);
+  }
+
+  public void testMemoryIsReleasedWhenMappersAreRemoved() throws Exception {
+    List<WeakReference<Object>> references = new ArrayList<WeakReference<Object>>();
+    for (PsiFile generatedFile : resolveAllGeneratedClasses()) {
+      references.add(new WeakReference<Object>(generatedFile));
+    }
+    for (DASourceClass sourceClass : parseAll()) {
+      references.add(new WeakReference<Object>(sourceClass));
+    }
+    assertFalse(references.isEmpty());
+
+    final List<PsiFile> sourceFiles = new ArrayList<PsiFile>(mapperClasses.size());
+    for (PsiClass mapperClass : mapperClasses) {
+      sourceFiles.add(mapperClass.getContainingFile());
+    }
+    mapperClasses.clear();
+    new WriteCommandAction.Simple(getProject()) {
+      @Override
+      protected void run() throws Throwable {
+        for (PsiFile sourceFile : sourceFiles) {
+          sourceFile.delete();
+        }
+      }
+    }.execute().throwException();
+    sourceFiles.clear();
+
+    assertEquals("objects still reachable after the mappers have been removed", 0, gcUntilCleared(references));
+  }
+
+  private Set<PsiFile> resolveAllGeneratedClasses() {
+    ParseAndGenerateManager manager = ParseAndGenerateManager.getInstance(getProject());
+    DAMappingElementFinder finder = getElementFinder();
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    Set<PsiFile> res = new LinkedHashSet<PsiFile>();
+    for (PsiClass mapperClass : mapperClasses) {
+      for (PsiClass generatedClass : manager.getGeneratedPsiClasses(mapperClass, scope)) {
+        res.add(generatedClass.getContainingFile());
+        assertNotNull(finder.findClass(generatedClass.getQualifiedName(), scope));
+        finder.findClass(generatedClass.getQualifiedName() + "Missing", scope);
+      }
+    }
+    DAMappingPsiShortNamesCache.getInstance(getProject()).getAllClassNames();
+    return res;
+  }
+
+  private List<DASourceClass> parseAll() {
+    ParseAndGenerateManager manager = ParseAndGenerateManager.getInstance(getProject());
+    List<DASourceClass> res = new ArrayList<DASourceClass>(mapperClasses.size());
+    for (PsiClass mapperClass : mapperClasses) {
+      res.add(manager.getParsingService().parse(mapperClass));
+    }
+    return res;
+  }
+
+  private List<Object> indexSideCaches() {
+    List<Object> res = new ArrayList<Object>();
+    res.add(ParseAndGenerateManager.getInstance(getProject()).getGeneratedClassSnapshot());
+    res.add(getElementFinder());
+    res.add(DAMappingPsiShortNamesCache.getInstance(getProject()));
+    return res;
+  }
+
+  private DAMappingElementFinder getElementFinder() {
+    for (PsiElementFinder finder : Extensions.getExtensions(PsiElementFinder.EP_NAME, getProject())) {
+      if (finder instanceof DAMappingElementFinder) {
+        return (DAMappingElementFinder) finder;
+      }
+    }
+    throw new IllegalStateException("DAMappingElementFinder is not registered");
+  }
+
+  /**
+   * @return the number of references which have not been cleared
+   */
+  private static int gcUntilCleared(List<WeakReference<Object>> references) {
+    int remaining = references.size();
+    for (int i = 0; i < GC_ATTEMPTS && remaining > 0; i++) {
+      System.gc();
+      // allocating forces the collection of soft references holding the PSI
+      List<long[]> garbage = new ArrayList<long[]>();
+      try {
+        for (int j = 0; j < 1000; j++) {
+          garbage.add(new long[100000]);
+        }
+      } catch (OutOfMemoryError e) {
+        // expected
+      }
+      garbage.clear();
+      remaining = 0;
+      for (WeakReference<Object> reference : references) {
+        if (reference.get() != null) {
+          remaining++;
+        }
+      }
+    }
+    return remaining;
+  }
+}
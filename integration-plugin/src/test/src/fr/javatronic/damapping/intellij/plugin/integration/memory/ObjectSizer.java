@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.memory;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.google.common.base.Predicate;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * ObjectSizer - Computes the size of the graph of objects reachable from a set of roots, with the shallow size of
+ * each object given by {@link Instrumentation#getObjectSize(Object)}.
+ * <p>
+ * The {@link Instrumentation} instance is provided by the JVM when this class is loaded as a java agent: the test JVM
+ * must be started with {@code -javaagent:object-sizer.jar}, a jar made of the classes of this package and of the
+ * manifest {@code object-sizer/MANIFEST.MF} of the test resources. {@link #isAvailable()} returns {@code false}
+ * otherwise.
+ * </p>
+ * <p>
+ * Objects shared with the rest of the IDE (project, PSI manager, virtual files, ...) must not be counted: the walk
+ * does not go through objects matching the boundary predicate, nor through classes, class loaders and threads.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class ObjectSizer {
+  private static volatile Instrumentation instrumentation;
+
+  private final Predicate<Object> boundary;
+  private final Map<Class<?>, List<Field>> fieldsCache = new HashMap<Class<?>, List<Field>>();
+
+  public ObjectSizer(Predicate<Object> boundary) {
+    this.boundary = boundary;
+  }
+
+  public static void premain(String args, Instrumentation inst) {
+    instrumentation = inst;
+  }
+
+  public static void agentmain(String args, Instrumentation inst) {
+    instrumentation = inst;
+  }
+
+  public static boolean isAvailable() {
+    return instrumentation != null;
+  }
+
+  /**
+   * Objects reachable from several roots are counted once.
+   */
+  public GraphSize sizeOf(Collection<?> roots) {
+    checkState(isAvailable(), "ObjectSizer must be loaded as a java agent");
+    Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    LinkedList<Object> stack = new LinkedList<Object>(roots);
+    long bytes = 0;
+    int objects = 0;
+    while (!stack.isEmpty()) {
+      Object o = stack.removeFirst();
+      if (o == null || isExcluded(o) || !visited.add(o)) {
+        continue;
+      }
+      bytes += instrumentation.getObjectSize(o);
+      objects++;
+      pushReferences(o, stack);
+    }
+    return new GraphSize(bytes, objects);
+  }
+
+  private boolean isExcluded(Object o) {
+    return o instanceof Class || o instanceof ClassLoader || o instanceof Thread || boundary.apply(o);
+  }
+
+  private void pushReferences(Object o, LinkedList<Object> stack) {
+    Class<?> clazz = o.getClass();
+    if (clazz.isArray()) {
+      if (!clazz.getComponentType().isPrimitive()) {
+        for (int i = 0; i < Array.getLength(o); i++) {
+          stack.addFirst(Array.get(o, i));
+        }
+      }
+      return;
+    }
+    for (Field field : referenceFields(clazz)) {
+      try {
+        stack.addFirst(field.get(o));
+      } catch (IllegalAccessException e) {
+        // field made accessible in referenceFields, can not happen
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private List<Field> referenceFields(Class<?> clazz) {
+    List<Field> res = fieldsCache.get(clazz);
+    if (res != null) {
+      return res;
+    }
+    res = new ArrayList<Field>();
+    for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive() && makeAccessible(field)) {
+          res.add(field);
+        }
+      }
+    }
+    fieldsCache.put(clazz, res);
+    return res;
+  }
+
+  /**
+   * Fields of JDK classes can not be made accessible by default on Java 9 and later: the test JVM must then be
+   * started with {@code --add-opens} options for the JDK packages to walk through, fields which remain inaccessible
+   * are ignored.
+   */
+  private static boolean makeAccessible(Field field) {
+    try {
+      field.setAccessible(true);
+      return true;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * GraphSize - Size of a graph of objects: the sum of the shallow sizes of the objects and their number.
+   */
+  public static final class GraphSize {
+    private final long bytes;
+    private final int objectCount;
+
+    private GraphSize(long bytes, int objectCount) {
+      this.bytes = bytes;
+      this.objectCount = objectCount;
+    }
+
+    public long getBytes() {
+      return bytes;
+    }
+
+    public int getObjectCount() {
+      return objectCount;
+    }
+
+    @Override
+    public String toString() {
+      return bytes + " bytes in " + objectCount + " objects";
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * LatencyHistogramTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class LatencyHistogramTest {
+  @Test
+  public void empty_histogram_has_zero_values() throws Exception {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getMeanNanos());
+    assertEquals(0, snapshot.getPercentileNanos(0.99d));
+  }
+
+  @Test
+  public void bucket_of_duration_is_its_bit_length() throws Exception {
+    assertEquals(0, LatencyHistogram.bucketOf(0));
+    assertEquals(1, LatencyHistogram.bucketOf(1));
+    assertEquals(2, LatencyHistogram.bucketOf(2));
+    assertEquals(2, LatencyHistogram.bucketOf(3));
+    assertEquals(11, LatencyHistogram.bucketOf(1024));
+    assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void snapshot_computes_count_total_mean_and_max() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(100);
+    histogram.record(300);
+    histogram.record(-5);
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(3, snapshot.getCount());
+    assertEquals(400, snapshot.getTotalNanos());
+    assertEquals(133, snapshot.getMeanNanos());
+    assertEquals(300, snapshot.getMaxNanos());
+  }
+
+  @Test
+  public void percentile_is_upper_bound_of_bucket_capped_by_max() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 99; i++) {
+      histogram.record(1000);
+    }
+    histogram.record(1000000);
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1023, snapshot.getPercentileNanos(0.5d));
+    assertEquals(1023, snapshot.getPercentileNanos(0.99d));
+    assertEquals(1000000, snapshot.getPercentileNanos(1d));
+  }
+
+  @Test
+  public void reset_clears_histogram() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(100);
+    histogram.reset();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.snapshot().getMaxNanos());
+  }
+}
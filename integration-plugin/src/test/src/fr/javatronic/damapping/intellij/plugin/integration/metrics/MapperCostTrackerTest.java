@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * MapperCostTrackerTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class MapperCostTrackerTest {
+  @Test
+  public void most_expensive_mappers_come_first() throws Exception {
+    MapperCostTracker tracker = new MapperCostTracker();
+    tracker.recordParse("com.acme.Cheap", 10);
+    tracker.recordParse("com.acme.Expensive", 100);
+    tracker.recordGeneration("com.acme.Expensive", 1000);
+    tracker.recordParse("com.acme.Medium", 500);
+
+    List<MapperCostTracker.MapperCost> costs = tracker.getMostExpensive(2);
+    assertEquals(2, costs.size());
+    assertEquals("com.acme.Expensive", costs.get(0).getQualifiedName());
+    assertEquals(1100, costs.get(0).getTotalNanos());
+    assertEquals("com.acme.Medium", costs.get(1).getQualifiedName());
+  }
+
+  @Test
+  public void cache_hit_rate_is_computed_from_requests_and_generations() throws Exception {
+    MapperCostTracker tracker = new MapperCostTracker();
+    for (int i = 0; i < 4; i++) {
+      tracker.recordGenerationRequest("com.acme.Foo");
+    }
+    tracker.recordGeneration("com.acme.Foo", 50);
+    tracker.recordLookup("com.acme.Foo");
+
+    MapperCostTracker.MapperCost cost = tracker.getMostExpensive(10).get(0);
+    assertEquals(4, cost.getRequests());
+    assertEquals(1, cost.getGenerationCount());
+    assertEquals(0.75d, cost.getCacheHitRate(), 0d);
+    assertEquals(1, cost.getLookups());
+  }
+
+  @Test
+  public void clear_drops_all_mappers() throws Exception {
+    MapperCostTracker tracker = new MapperCostTracker();
+    tracker.recordLookup("com.acme.Foo");
+    tracker.clear();
+
+    assertEquals(0, tracker.size());
+    assertEquals(0, tracker.getMostExpensive(10).size());
+  }
+}
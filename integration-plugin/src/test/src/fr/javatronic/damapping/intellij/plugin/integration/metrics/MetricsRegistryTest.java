@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.CacheStatistics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MetricsRegistryTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class MetricsRegistryTest {
+  @Test
+  public void stop_records_duration_of_operation() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    long start = registry.start(Operation.PARSE);
+    registry.stop(Operation.PARSE, start);
+
+    assertEquals(1, registry.getHistogram(Operation.PARSE).getCount());
+    assertEquals(0, registry.getHistogram(Operation.GENERATE).getCount());
+    assertEquals(1, registry.snapshot().get(Operation.PARSE).getCount());
+  }
+
+  @Test
+  public void nothing_is_recorded_when_disabled() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.setEnabled(false);
+    long start = registry.start(Operation.PARSE);
+    registry.setEnabled(true);
+    registry.stop(Operation.PARSE, start);
+
+    assertEquals(0, registry.getHistogram(Operation.PARSE).getCount());
+  }
+
+  @Test
+  public void reset_clears_histograms_and_registered_caches() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    CacheStatistics statistics = new CacheStatistics("test");
+    registry.register(statistics);
+    statistics.request();
+    registry.stop(Operation.VALIDATE, registry.start(Operation.VALIDATE));
+
+    registry.reset();
+
+    assertEquals(0, registry.getHistogram(Operation.VALIDATE).getCount());
+    assertEquals(0, statistics.getRequests());
+    assertTrue(registry.getCacheStatistics().contains(statistics));
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.metrics;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SlowOperationWatchdogTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class SlowOperationWatchdogTest {
+  @Test
+  public void call_exceeding_threshold_is_recorded_with_stage_timings() throws Exception {
+    SlowOperationWatchdog watchdog = new SlowOperationWatchdog(10, 1);
+    watchdog.operationStarted(Operation.FIND_CLASSES);
+    watchdog.operationStarted(Operation.PARSE);
+    watchdog.operationEnded(Operation.PARSE, 300);
+    watchdog.mapperProcessed("com.acme.Foo");
+    watchdog.operationStarted(Operation.GENERATE);
+    watchdog.operationEnded(Operation.GENERATE, 700);
+    watchdog.operationEnded(Operation.FIND_CLASSES, 2000000);
+
+    List<SlowOperationRecord> records = watchdog.getRecords();
+    assertEquals(1, records.size());
+    SlowOperationRecord record = records.get(0);
+    assertEquals(Operation.FIND_CLASSES, record.getExtensionPoint());
+    assertEquals(2000000, record.getDurationNanos());
+    assertEquals("com.acme.Foo", record.getMapperQualifiedName());
+    assertEquals(Thread.currentThread().getName(), record.getThreadName());
+    assertFalse(record.isDispatchThread());
+    assertEquals(Long.valueOf(300), record.getOperationNanos().get(Operation.PARSE));
+    assertEquals(Long.valueOf(700), record.getOperationNanos().get(Operation.GENERATE));
+  }
+
+  @Test
+  public void fast_call_is_not_recorded() throws Exception {
+    SlowOperationWatchdog watchdog = new SlowOperationWatchdog(10, 1);
+    watchdog.operationStarted(Operation.GET_CLASSES);
+    watchdog.operationEnded(Operation.GET_CLASSES, 1000);
+
+    assertEquals(0, watchdog.getRecordCount());
+  }
+
+  @Test
+  public void only_outermost_extension_point_is_recorded() throws Exception {
+    SlowOperationWatchdog watchdog = new SlowOperationWatchdog(10, 0);
+    watchdog.operationStarted(Operation.FIND_CLASSES);
+    watchdog.operationStarted(Operation.INDEXER);
+    watchdog.operationEnded(Operation.INDEXER, 50);
+    watchdog.operationEnded(Operation.FIND_CLASSES, 100);
+
+    List<SlowOperationRecord> records = watchdog.getRecords();
+    assertEquals(1, records.size());
+    assertEquals(Operation.FIND_CLASSES, records.get(0).getExtensionPoint());
+    assertEquals(Long.valueOf(50), records.get(0).getOperationNanos().get(Operation.INDEXER));
+    assertNull(records.get(0).getMapperQualifiedName());
+  }
+
+  @Test
+  public void ring_buffer_keeps_most_recent_records() throws Exception {
+    SlowOperationWatchdog watchdog = new SlowOperationWatchdog(3, 0);
+    for (int i = 1; i <= 5; i++) {
+      watchdog.operationStarted(Operation.GET_CLASSES_BY_NAME);
+      watchdog.operationEnded(Operation.GET_CLASSES_BY_NAME, i);
+    }
+
+    List<SlowOperationRecord> records = watchdog.getRecords();
+    assertEquals(5, watchdog.getRecordCount());
+    assertEquals(3, records.size());
+    assertEquals(3, records.get(0).getDurationNanos());
+    assertEquals(5, records.get(2).getDurationNanos());
+  }
+
+  @Test
+  public void records_are_exported_as_json() throws Exception {
+    SlowOperationWatchdog watchdog = new SlowOperationWatchdog(3, 0);
+    watchdog.operationStarted(Operation.FIND_CLASSES);
+    watchdog.mapperProcessed("com.acme.\"Foo\"");
+    watchdog.operationEnded(Operation.FIND_CLASSES, 42);
+
+    String json = watchdog.toJson();
+    assertTrue(json, json.startsWith("[{\"timestamp\":"));
+    assertTrue(json, json.contains("\"extensionPoint\":\"ElementFinder.findClasses\""));
+    assertTrue(json, json.contains("\"durationNanos\":42"));
+    assertTrue(json, json.contains("\"mapper\":\"com.acme.\\\"Foo\\\"\""));
+    assertTrue(json, json.contains("\"edt\":false"));
+    assertTrue(json, json.endsWith("\"operationNanos\":{}}]"));
+  }
+
+  @Test
+  public void clear_drops_records() throws Exception {
+    SlowOperationWatchdog watchdog = new SlowOperationWatchdog(3, 0);
+    watchdog.operationStarted(Operation.FIND_CLASSES);
+    watchdog.operationEnded(Operation.FIND_CLASSES, 42);
+    watchdog.clear();
+
+    assertEquals(0, watchdog.getRecordCount());
+    assertEquals("[]", watchdog.toJson());
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.provider;
+
+import fr.javatronic.damapping.intellij.plugin.integration.cache.CacheStatistics;
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.ParseAndGenerateManager;
+
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiPackage;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * DAMappingElementFinderPackageTest - Checks the names of the classes generated in a package are listed without
+ * generating any PsiClass and that only the requested class is generated.
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingElementFinderPackageTest extends LightCodeInsightFixtureTestCase {
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    for (String name : new String[] {"Foo", "Bar"}) {
+      myFixture.addClass("package com.acme.test;\n" +
+          "\n" +
+          "import com.google.common.base.Function;\n" +
+          "import fr.javatronic.damapping.annotation.Mapper;\n" +
+          "\n" +
+          "@Mapper\n" +
+          "public enum " + name + " implements Function<String, Integer> {\n" +
+          "  INSTANCE;\n" +
+          "\n" +
+          "  public Integer apply(String s) {\n" +
+          "    return null;\n" +
+          "  }\n" +
+          "}\n"
+      );
+    }
+  }
+
+  public void testGetClassNamesDoesNotGeneratePsiClasses() throws Exception {
+    CacheStatistics generationStatistics = ParseAndGenerateManager.getInstance(getProject())
+                                                                  .getGenerationCacheStatistics();
+    generationStatistics.reset();
+
+    DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+    assertSameElements(finder.getClassNames(getPackage("com.acme.test"), scope()), "FooMapper", "BarMapper");
+    assertEmpty(finder.getClassNames(getPackage("com.acme"), scope()));
+
+    assertEquals(0, generationStatistics.getRequests());
+  }
+
+  public void testGetClassesByNameGeneratesOnlyRequestedClass() throws Exception {
+    CacheStatistics generationStatistics = ParseAndGenerateManager.getInstance(getProject())
+                                                                  .getGenerationCacheStatistics();
+    generationStatistics.reset();
+
+    DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+    PsiClass[] classes = finder.getClasses("FooMapper", getPackage("com.acme.test"), scope());
+    assertEquals(1, classes.length);
+    assertEquals("com.acme.test.FooMapper", classes[0].getQualifiedName());
+
+    assertEquals(1, generationStatistics.getMisses());
+  }
+
+  private PsiPackage getPackage(String qualifiedName) {
+    PsiPackage res = JavaPsiFacade.getInstance(getProject()).findPackage(qualifiedName);
+    assertNotNull(res);
+    return res;
+  }
+
+  private GlobalSearchScope scope() {
+    return GlobalSearchScope.allScope(getProject());
+  }
+}
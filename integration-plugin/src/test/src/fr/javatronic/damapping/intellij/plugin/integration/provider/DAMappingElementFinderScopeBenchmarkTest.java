@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.provider;
+
+import fr.javatronic.damapping.intellij.plugin.integration.component.project.DAMappingSupportManager;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectGenerator;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticProjectSpec;
+import fr.javatronic.damapping.intellij.plugin.integration.synthetic.SyntheticSourceFile;
+
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.ProjectScope;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.apache.log4j.Logger;
+
+/**
+ * DAMappingElementFinderScopeBenchmarkTest - Measures the cost of lookups in {@link DAMappingElementFinder} for a mix
+ * of scopes which can contain classes annoted with @Mapper and scopes which can not (libraries, JDK).
+ *
+ * @author Sébastien Lesaint
+ */
+public class DAMappingElementFinderScopeBenchmarkTest extends LightCodeInsightFixtureTestCase {
+  private static final Logger LOG = Logger.getLogger(DAMappingElementFinderScopeBenchmarkTest.class);
+
+  private static final int ITERATIONS = 10000;
+  private static final SyntheticProjectSpec SPEC = SyntheticProjectSpec.builder().mappers(100).build();
+  private static final String[] QUALIFIED_NAMES = {
+      "java.lang.String", "java.util.List", "com.acme.synthetic.p0.Synthetic00000",
+      "com.acme.synthetic.p1.Synthetic00050Mapper", "org.junit.Assert"
+  };
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass(SyntheticProjectGenerator.MAPPER_ANNOTATION_SOURCE);
+    for (SyntheticSourceFile file : SyntheticProjectGenerator.generate(SPEC)) {
+      myFixture.addClass(file.getText());
+    }
+  }
+
+  public void testScopeFiltering() throws Exception {
+    DAMappingSupportManager supportManager = DAMappingSupportManager.getInstance(getProject());
+    assertTrue(supportManager.canContainMappers(GlobalSearchScope.projectScope(getProject())));
+    assertTrue(supportManager.canContainMappers(GlobalSearchScope.allScope(getProject())));
+    assertFalse(supportManager.canContainMappers(ProjectScope.getLibrariesScope(getProject())));
+    assertFalse(supportManager.canContainMappers(GlobalSearchScope.EMPTY_SCOPE));
+
+    DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+    assertNull(finder.findClass(QUALIFIED_NAMES[3], ProjectScope.getLibrariesScope(getProject())));
+  }
+
+  public void testMixedScopeLookups() throws Exception {
+    DAMappingElementFinder finder = new DAMappingElementFinder(getProject());
+    GlobalSearchScope[] scopes = {
+        GlobalSearchScope.projectScope(getProject()),
+        GlobalSearchScope.allScope(getProject()),
+        ProjectScope.getLibrariesScope(getProject()),
+        GlobalSearchScope.moduleWithDependenciesAndLibrariesScope(myModule)
+    };
+
+    // warmup
+    lookup(finder, scopes, ITERATIONS / 10);
+
+    long start = System.nanoTime();
+    int lookups = lookup(finder, scopes, ITERATIONS);
+    long nanos = System.nanoTime() - start;
+    LOG.info(String.format("%d mixed scope lookups in %d ms, %d ns per lookup",
+        lookups, nanos / 1000000, nanos / lookups
+    ));
+
+    GlobalSearchScope librariesScope = ProjectScope.getLibrariesScope(getProject());
+    start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      for (String qualifiedName : QUALIFIED_NAMES) {
+        finder.findClasses(qualifiedName, librariesScope);
+      }
+    }
+    nanos = System.nanoTime() - start;
+    LOG.info(String.format("library scope lookups: %d ns per lookup", nanos / (ITERATIONS * QUALIFIED_NAMES.length)));
+  }
+
+  private static int lookup(DAMappingElementFinder finder, GlobalSearchScope[] scopes, int iterations) {
+    int lookups = 0;
+    for (int i = 0; i < iterations; i++) {
+      GlobalSearchScope scope = scopes[i % scopes.length];
+      for (String qualifiedName : QUALIFIED_NAMES) {
+        finder.findClasses(qualifiedName, scope);
+        lookups++;
+      }
+    }
+    return lookups;
+  }
+}
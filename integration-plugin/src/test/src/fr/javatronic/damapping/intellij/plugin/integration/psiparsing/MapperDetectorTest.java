@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * MapperDetectorTest - Unit test of the detection of classes annoted with @Mapper by {@link MapperDetector}.
+ *
+ * @author Sébastien Lesaint
+ */
+public class MapperDetectorTest extends LightCodeInsightFixtureTestCase {
+
+  public void testSingleImports() throws Exception {
+    assertReasons("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A implements Function<String, Integer> {}\n",
+        EnumSet.of(MapperDetection.Reason.MAPPER_ANNOTATION_IMPORT, MapperDetection.Reason.FUNCTION_IMPORT)
+    );
+  }
+
+  public void testOnDemandImports() throws Exception {
+    assertReasons("import com.google.common.base.*;\n" +
+        "import fr.javatronic.damapping.annotation.*;\n" +
+        "@Mapper\n" +
+        "public class A implements Function<String, Integer> {}\n",
+        EnumSet.of(MapperDetection.Reason.MAPPER_ANNOTATION_ON_DEMAND_IMPORT,
+            MapperDetection.Reason.FUNCTION_ON_DEMAND_IMPORT
+        )
+    );
+  }
+
+  public void testQualifiedNames() throws Exception {
+    assertReasons("@fr.javatronic.damapping.annotation.Mapper\n" +
+        "public class A implements com.google.common.base.Function<String, Integer> {}\n",
+        EnumSet.of(MapperDetection.Reason.MAPPER_ANNOTATION_QUALIFIED, MapperDetection.Reason.FUNCTION_QUALIFIED)
+    );
+  }
+
+  public void testMapperAnnotationWithoutFunction() throws Exception {
+    PsiJavaFile psiJavaFile = configure("import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A {}\n"
+    );
+    List<MapperDetection> detections = getMapperDetector().detect(psiJavaFile);
+    assertEquals(1, detections.size());
+    assertTrue(detections.get(0).hasMapperAnnotation());
+    assertFalse(detections.get(0).isMapper());
+    assertFalse(getMapperDetector().isMapper(psiJavaFile.getClasses()[0]));
+  }
+
+  public void testAnnotedWithMapper() throws Exception {
+    PsiJavaFile psiJavaFile = configure("import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A {\n" +
+        "  @Mapper\n" +
+        "  public static class B {}\n" +
+        "  public static class C {}\n" +
+        "}\n"
+    );
+    PsiClass psiClass = psiJavaFile.getClasses()[0];
+    assertTrue(getMapperDetector().isAnnotedWithMapper(psiClass));
+    assertTrue(getMapperDetector().isAnnotedWithMapper(psiClass.getInnerClasses()[0]));
+    assertFalse(getMapperDetector().isAnnotedWithMapper(psiClass.getInnerClasses()[1]));
+    assertFalse(getMapperDetector().isMapper(psiClass));
+  }
+
+  public void testOtherMapperAnnotationIsIgnored() throws Exception {
+    PsiJavaFile psiJavaFile = configure("import com.google.common.base.Function;\n" +
+        "import com.acme.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A implements Function<String, Integer> {}\n"
+    );
+    assertTrue(getMapperDetector().detect(psiJavaFile).isEmpty());
+  }
+
+  public void testNoAnnotation() throws Exception {
+    PsiJavaFile psiJavaFile = configure("import com.google.common.base.Function;\n" +
+        "public class A implements Function<String, Integer> {}\n"
+    );
+    assertTrue(getMapperDetector().detect(psiJavaFile).isEmpty());
+  }
+
+  public void testDetectionIsCachedUntilFileIsModified() throws Exception {
+    PsiJavaFile psiJavaFile = configure("import com.google.common.base.Function;\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "@Mapper\n" +
+        "public class A implements Function<String, Integer> {}\n"
+    );
+    List<MapperDetection> detections = getMapperDetector().detect(psiJavaFile);
+    assertSame(detections, getMapperDetector().detect(psiJavaFile));
+  }
+
+  private void assertReasons(String source, EnumSet<MapperDetection.Reason> expected) {
+    PsiJavaFile psiJavaFile = configure(source);
+    List<MapperDetection> detections = getMapperDetector().detect(psiJavaFile);
+    assertEquals(1, detections.size());
+    assertEquals(expected, detections.get(0).getReasons());
+    assertTrue(detections.get(0).isMapper());
+    assertTrue(getMapperDetector().isMapper(psiJavaFile.getClasses()[0]));
+  }
+
+  private PsiJavaFile configure(String source) {
+    return (PsiJavaFile) myFixture.configureByText("A.java", "package com.acme.test;\n\n" + source);
+  }
+
+  private static MapperDetector getMapperDetector() {
+    return ServiceManager.getService(MapperDetector.class);
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiTypeElement;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * PsiTypeElementUtilTest - Unit test of {@link PsiTypeElementUtil#classify(PsiTypeElement)}.
+ *
+ * @author Sébastien Lesaint
+ */
+public class PsiTypeElementUtilTest extends LightCodeInsightFixtureTestCase {
+
+  public void testVarargsAreClassifiedAsArray() throws Exception {
+    PsiTypeShape shape = PsiTypeElementUtil.classify(getParameterTypeElement("String... values"));
+
+    assertEquals(PsiTypeShape.Kind.ARRAY, shape.getKind());
+    assertEquals(1, shape.getArrayDepth());
+    assertTrue(PsiTypeElementUtil.isArray(getParameterTypeElement("String... values")));
+  }
+
+  public void testArrayOfVarargsIsClassifiedAsArray() throws Exception {
+    PsiTypeShape shape = PsiTypeElementUtil.classify(getParameterTypeElement("String[]... values"));
+
+    assertEquals(PsiTypeShape.Kind.ARRAY, shape.getKind());
+    assertEquals(2, shape.getArrayDepth());
+  }
+
+  private PsiTypeElement getParameterTypeElement(String parameter) {
+    PsiClass psiClass = myFixture.addClass("package com.acme.test;\n" +
+        "public class A {\n" +
+        "  public void method(" + parameter + ") {}\n" +
+        "}\n"
+    );
+    PsiParameter psiParameter = psiClass.getMethods()[0].getParameterList().getParameters()[0];
+    return psiParameter.getTypeElement();
+  }
+}
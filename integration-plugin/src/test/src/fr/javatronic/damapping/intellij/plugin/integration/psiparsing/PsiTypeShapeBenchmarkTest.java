@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiTypeElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.apache.log4j.Logger;
+
+/**
+ * PsiTypeShapeBenchmarkTest - Micro-benchmark comparing {@link PsiTypeElementUtil#classify(PsiTypeElement)} to the
+ * former text based implementation of {@code isWildcard}, {@code isArray}, {@code isVoid} and
+ * {@code isExtendsWildcard}, which are called one after the other on every PsiTypeElement by DATypeExtractorImpl.
+ * <p>
+ * Time and allocated bytes per classified PsiTypeElement are logged. The test checks that both implementations agree
+ * and, when the JVM can measure the bytes allocated by the current thread, that classify allocates less than the text
+ * based implementation (which creates an array of children on every call). Time is not asserted, it is too dependent
+ * on the machine running the test.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public class PsiTypeShapeBenchmarkTest extends LightCodeInsightFixtureTestCase {
+  private static final Logger LOG = Logger.getLogger(PsiTypeShapeBenchmarkTest.class);
+
+  private static final int WARMUP_ITERATIONS = 2000;
+  private static final int ITERATIONS = 20000;
+
+  private static final String SOURCE = "package fr.javatronic.damapping.test;\n" +
+      "\n" +
+      "import java.util.List;\n" +
+      "import java.util.Map;\n" +
+      "import java.util.Set;\n" +
+      "\n" +
+      "public class Types {\n" +
+      "  public void voidMethod(int primitive, String declared, String[] array, int[] primitiveArray) {}\n" +
+      "  public List<String> generic(List<? extends Number> extendsWildcard, List<? super Integer> superWildcard, List<?> wildcard) { return null; }\n" +
+      "  public Map<String, List<Set<? extends CharSequence>>> deepGenerics(Map<String, Integer>[] genericArray) { return null; }\n" +
+      "  public java.util.Collection<java.lang.String> qualified(java.util.List<? extends java.lang.Number> list) { return null; }\n" +
+      "}\n";
+
+  public void testClassifyVersusTextBasedClassification() throws Exception {
+    PsiFile psiFile = myFixture.configureByText("Types.java", SOURCE);
+    Collection<PsiTypeElement> typeElements = PsiTreeUtil.collectElementsOfType(psiFile, PsiTypeElement.class);
+    PsiTypeElement[] elements = typeElements.toArray(new PsiTypeElement[typeElements.size()]);
+
+    for (PsiTypeElement element : elements) {
+      PsiTypeShape shape = PsiTypeElementUtil.classify(element);
+      assertEquals(element.getText(), LegacyPsiTypeElementUtil.isWildcard(element), shape.isWildcard());
+      assertEquals(element.getText(), LegacyPsiTypeElementUtil.isVoid(element), shape.isVoid());
+      assertEquals(element.getText(), LegacyPsiTypeElementUtil.isExtendsWildcard(element), shape.isExtendsWildcard());
+      if (LegacyPsiTypeElementUtil.isArray(element)) {
+        assertTrue(element.getText(), shape.isArray());
+      }
+    }
+
+    run(elements, new LegacyClassifier(), WARMUP_ITERATIONS);
+    run(elements, new ShapeClassifier(), WARMUP_ITERATIONS);
+
+    Measure legacy = run(elements, new LegacyClassifier(), ITERATIONS);
+    Measure shape = run(elements, new ShapeClassifier(), ITERATIONS);
+
+    long classifiedElements = (long) ITERATIONS * elements.length;
+    LOG.info(String.format("text based classification: %d ns and %d bytes per PsiTypeElement",
+        legacy.nanos / classifiedElements, legacy.allocatedBytes / classifiedElements
+    ));
+    LOG.info(String.format("PsiTypeShape classification: %d ns and %d bytes per PsiTypeElement",
+        shape.nanos / classifiedElements, shape.allocatedBytes / classifiedElements
+    ));
+    if (legacy.allocatedBytes > 0) {
+      assertTrue(String.format("PsiTypeShape classification allocated %d bytes, text based classification %d bytes",
+          shape.allocatedBytes, legacy.allocatedBytes
+      ), shape.allocatedBytes < legacy.allocatedBytes);
+    }
+  }
+
+  private static Measure run(PsiTypeElement[] elements, Classifier classifier, int iterations) {
+    long startBytes = allocatedBytes();
+    long start = System.nanoTime();
+    int blackhole = 0;
+    for (int i = 0; i < iterations; i++) {
+      for (PsiTypeElement element : elements) {
+        blackhole += classifier.classify(element);
+      }
+    }
+    long nanos = System.nanoTime() - start;
+    long bytes = allocatedBytes() - startBytes;
+    assertTrue(blackhole >= 0);
+    return new Measure(nanos, bytes);
+  }
+
+  /**
+   * Allocated bytes of the current thread, 0 when the JVM does not support it.
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  private static final class Measure {
+    private final long nanos;
+    private final long allocatedBytes;
+
+    private Measure(long nanos, long allocatedBytes) {
+      this.nanos = nanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+
+  private static interface Classifier {
+    int classify(PsiTypeElement element);
+  }
+
+  /**
+   * Mimics the calls made by DATypeExtractorImpl before PsiTypeShape was introduced.
+   */
+  private static class LegacyClassifier implements Classifier {
+    @Override
+    public int classify(PsiTypeElement element) {
+      int res = 0;
+      if (LegacyPsiTypeElementUtil.isWildcard(element)) {
+        res += 1;
+      }
+      if (LegacyPsiTypeElementUtil.isArray(element)) {
+        res += 2;
+      }
+      if (LegacyPsiTypeElementUtil.isExtendsWildcard(element)) {
+        res += 4;
+      }
+      if (LegacyPsiTypeElementUtil.isWildcard(element) || LegacyPsiTypeElementUtil.isVoid(element)) {
+        res += 8;
+      }
+      return res;
+    }
+  }
+
+  private static class ShapeClassifier implements Classifier {
+    @Override
+    public int classify(PsiTypeElement element) {
+      PsiTypeShape shape = PsiTypeElementUtil.classify(element);
+      return shape.getKind().ordinal() + shape.getArrayDepth() + shape.getBound().ordinal();
+    }
+  }
+
+  /**
+   * Copy of the text based implementation of PsiTypeElementUtil prior to the introduction of PsiTypeShape.
+   */
+  private static final class LegacyPsiTypeElementUtil {
+    static boolean isVoid(PsiTypeElement psiTypeElement) {
+      PsiElement[] children = psiTypeElement.getChildren();
+      return children.length >= 1 && "void".equals(children[0].getText());
+    }
+
+    static boolean isWildcard(PsiTypeElement psiTypeElement) {
+      PsiElement[] children = psiTypeElement.getChildren();
+      return children.length >= 1 && "?".equals(children[0].getText());
+    }
+
+    static boolean isExtendsWildcard(PsiTypeElement psiTypeElement) {
+      return isWildcard(psiTypeElement)
+          && psiTypeElement.getChildren().length >= 3
+          && "extends".equals(psiTypeElement.getChildren()[2].getText());
+    }
+
+    static boolean isArray(PsiTypeElement psiTypeElement) {
+      PsiElement[] children = psiTypeElement.getChildren();
+      if (children.length == 3) {
+        return isArray(children, 0);
+      }
+      if (children.length == 4) {
+        return isArray(children, 1);
+      }
+      return false;
+    }
+
+    private static boolean isArray(PsiElement[] children, int offset) {
+      return "[".equals(children[offset + 1].getText())
+          && "]".equals(children[offset + 2].getText());
+    }
+  }
+}
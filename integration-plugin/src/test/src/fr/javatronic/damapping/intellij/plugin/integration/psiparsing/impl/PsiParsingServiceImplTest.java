@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.psiparsing.impl;
+
+import fr.javatronic.damapping.processor.model.DAMethod;
+
+import java.util.List;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * PsiParsingServiceImplTest - Unit test of the cache of the DAMethod of each PsiMethod in
+ * {@link PsiParsingServiceImpl}.
+ *
+ * @author Sébastien Lesaint
+ */
+public class PsiParsingServiceImplTest extends LightCodeInsightFixtureTestCase {
+  private final PsiParsingServiceImpl psiParsingService = new PsiParsingServiceImpl();
+  private PsiJavaFile psiFile;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myFixture.addClass("package fr.javatronic.damapping.annotation;\n" +
+        "public @interface Mapper {}\n"
+    );
+    psiFile = (PsiJavaFile) myFixture.addClass("package com.acme.test;\n" +
+        "\n" +
+        "import fr.javatronic.damapping.annotation.Mapper;\n" +
+        "\n" +
+        "@Mapper\n" +
+        "public class A {\n" +
+        "  public A(String s) {}\n" +
+        "  public Integer apply(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "  public Integer other(String s) {\n" +
+        "    return null;\n" +
+        "  }\n" +
+        "}\n"
+    ).getContainingFile();
+  }
+
+  public void testMethodsAreNotParsedAgainWhenClassIsNotModified() throws Exception {
+    List<DAMethod> before = parseMethods();
+    List<DAMethod> after = parseMethods();
+
+    assertEquals(before.size(), after.size());
+    for (int i = 0; i < before.size(); i++) {
+      assertSame(before.get(i), after.get(i));
+    }
+  }
+
+  public void testOnlyModifiedMethodIsParsedAgain() throws Exception {
+    List<DAMethod> before = parseMethods();
+
+    replaceInFile("public Integer apply(String s)", "public Long apply(String s)");
+
+    List<DAMethod> after = parseMethods();
+    assertEquals(3, after.size());
+    assertSame(before.get(0), after.get(0));
+    assertNotSame(before.get(1), after.get(1));
+    assertEquals("Long", after.get(1).getReturnType().getSimpleName().getName());
+    assertSame(before.get(2), after.get(2));
+  }
+
+  public void testAllMethodsAreParsedAgainWhenImportsChange() throws Exception {
+    List<DAMethod> before = parseMethods();
+
+    replaceInFile("import fr.javatronic.damapping.annotation.Mapper;\n",
+        "import fr.javatronic.damapping.annotation.Mapper;\nimport java.util.List;\n"
+    );
+
+    List<DAMethod> after = parseMethods();
+    for (int i = 0; i < before.size(); i++) {
+      assertNotSame(before.get(i), after.get(i));
+    }
+  }
+
+  private List<DAMethod> parseMethods() {
+    return psiParsingService.parse(psiFile.getClasses()[0]).getMethods();
+  }
+
+  private void replaceInFile(final String oldText, final String newText) {
+    final int start = psiFile.getText().indexOf(oldText);
+    assertTrue(start >= 0);
+    final PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+    final Document document = documentManager.getDocument(psiFile);
+    assertNotNull(document);
+    new WriteCommandAction.Simple(getProject(), psiFile) {
+      @Override
+      protected void run() throws Throwable {
+        // only the replaced text is reparsed, as when typing in the editor
+        document.replaceString(start, start + oldText.length(), newText);
+        documentManager.commitDocument(document);
+      }
+    }.execute().throwException();
+  }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.synthetic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.intellij.openapi.util.io.FileUtil;
+
+/**
+ * SyntheticProjectGenerator - Deterministic generator of projects made of classes annoted with @Mapper, to measure how
+ * the plugin scales with the size of the project.
+ * <p>
+ * Each mapper is generated from its own random generator, seeded from {@link SyntheticProjectSpec#getSeed()} and the
+ * index of the mapper: the mappers of a project are the first mappers of any bigger project generated with the same
+ * values, which makes measures made on projects of different sizes comparable.
+ * </p>
+ * <p>
+ * Valid mappers are either an enum, a class with a public constructor without arguments or a class with a public
+ * constructor with arguments (for which a MapperFactory is generated). Invalid mappers either do not implement
+ * Guava's Function interface or are an enum with two values.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class SyntheticProjectGenerator {
+  public static final String MAPPER_ANNOTATION_SOURCE = "package fr.javatronic.damapping.annotation;\n" +
+      "public @interface Mapper {}\n";
+
+  public static enum Shape {
+    ENUM(true),
+    CONSTRUCTOR(true),
+    CONSTRUCTOR_WITH_PARAMETER(true),
+    MISSING_FUNCTION(false),
+    ENUM_WITH_TWO_VALUES(false);
+
+    private final boolean valid;
+
+    Shape(boolean valid) {
+      this.valid = valid;
+    }
+
+    public boolean isValid() {
+      return valid;
+    }
+  }
+
+  private static final Shape[] VALID_SHAPES = { Shape.ENUM, Shape.CONSTRUCTOR, Shape.CONSTRUCTOR_WITH_PARAMETER };
+  private static final Shape[] INVALID_SHAPES = { Shape.MISSING_FUNCTION, Shape.ENUM_WITH_TWO_VALUES };
+
+  private static final String[] JAVA_LANG_TYPES = { "String", "Integer", "Long" };
+
+  private static final ImportedType[] IMPORT_POOL = {
+      new ImportedType("java.util.List", 1),
+      new ImportedType("java.util.Set", 1),
+      new ImportedType("java.util.Collection", 1),
+      new ImportedType("java.util.Map", 2),
+      new ImportedType("java.util.SortedSet", 1),
+      new ImportedType("java.util.Queue", 1),
+      new ImportedType("java.util.Deque", 1),
+      new ImportedType("java.util.SortedMap", 2),
+      new ImportedType("com.google.common.base.Optional", 1),
+      new ImportedType("java.math.BigDecimal", 0),
+      new ImportedType("java.math.BigInteger", 0),
+      new ImportedType("java.util.Date", 0),
+      new ImportedType("java.util.UUID", 0),
+      new ImportedType("java.util.Locale", 0),
+      new ImportedType("java.util.Currency", 0),
+      new ImportedType("java.net.URI", 0),
+      new ImportedType("java.net.URL", 0),
+      new ImportedType("java.io.File", 0),
+      new ImportedType("java.util.regex.Pattern", 0),
+      new ImportedType("java.nio.charset.Charset", 0),
+      new ImportedType("java.util.concurrent.TimeUnit", 0),
+      new ImportedType("java.sql.Timestamp", 0),
+      new ImportedType("java.text.DateFormat", 0),
+      new ImportedType("java.util.TimeZone", 0)
+  };
+
+  public static final int MAX_IMPORT_COUNT = IMPORT_POOL.length;
+
+  private SyntheticProjectGenerator() {
+    // prevents instantiation
+  }
+
+  public static List<SyntheticSourceFile> generate(SyntheticProjectSpec spec) {
+    List<SyntheticSourceFile> res = new ArrayList<SyntheticSourceFile>(spec.getMapperCount());
+    for (int i = 0; i < spec.getMapperCount(); i++) {
+      res.add(generate(spec, i));
+    }
+    return res;
+  }
+
+  /**
+   * Writes the files of the project generated from the specified spec to the specified source root.
+   *
+   * @return the generated files
+   */
+  public static List<SyntheticSourceFile> writeTo(SyntheticProjectSpec spec, File sourceRoot) throws IOException {
+    List<SyntheticSourceFile> files = generate(spec);
+    for (SyntheticSourceFile file : files) {
+      FileUtil.writeToFile(new File(sourceRoot, file.getPath()), file.getText());
+    }
+    return files;
+  }
+
+  /**
+   * The invalid mappers are evenly spread: mapper {@code index} is invalid if the number of invalid mappers among the
+   * first {@code index + 1} mappers is greater than among the first {@code index} ones.
+   */
+  static boolean isInvalid(SyntheticProjectSpec spec, int index) {
+    return (int) ((index + 1) * spec.getInvalidRatio()) > (int) (index * spec.getInvalidRatio());
+  }
+
+  static String packageName(SyntheticProjectSpec spec, int index) {
+    int group = index / spec.getMappersPerPackage();
+    switch (spec.getPackageLayout()) {
+      case FLAT:
+        return SyntheticProjectSpec.ROOT_PACKAGE;
+      case PACKAGES:
+        return SyntheticProjectSpec.ROOT_PACKAGE + ".p" + group;
+      case NESTED:
+        return SyntheticProjectSpec.ROOT_PACKAGE + ".n" + (group / 100) + ".n" + (group / 10 % 10) + ".n" + (group % 10);
+      default:
+        throw new IllegalArgumentException("Unsupported package layout " + spec.getPackageLayout());
+    }
+  }
+
+  static String simpleName(int index) {
+    return String.format("Synthetic%05d", index);
+  }
+
+  private static SyntheticSourceFile generate(SyntheticProjectSpec spec, int index) {
+    Random random = new Random(spec.getSeed() ^ (index * 0x9E3779B97F4A7C15L));
+    Shape shape = isInvalid(spec, index)
+        ? INVALID_SHAPES[random.nextInt(INVALID_SHAPES.length)]
+        : VALID_SHAPES[random.nextInt(VALID_SHAPES.length)];
+
+    String packageName = packageName(spec, index);
+    String simpleName = simpleName(index);
+    TypeGenerator typeGenerator = new TypeGenerator(random, pickImports(random, spec.getImportCount()));
+    String inputType = typeGenerator.type(spec.getGenericDepth());
+    String outputType = typeGenerator.type(spec.getGenericDepth());
+
+    StringBuilder text = new StringBuilder(512);
+    text.append("package ").append(packageName).append(";\n\n");
+    text.append("import com.google.common.base.Function;\n");
+    text.append("import fr.javatronic.damapping.annotation.Mapper;\n");
+    for (ImportedType importedType : typeGenerator.imports) {
+      text.append("import ").append(importedType.qualifiedName).append(";\n");
+    }
+    text.append("\n@Mapper\n");
+    boolean isEnum = shape == Shape.ENUM || shape == Shape.ENUM_WITH_TWO_VALUES;
+    text.append("public ").append(isEnum ? "enum " : "class ").append(simpleName);
+    if (shape != Shape.MISSING_FUNCTION) {
+      text.append(" implements Function<").append(inputType).append(", ").append(outputType).append(">");
+    }
+    text.append(" {\n");
+    switch (shape) {
+      case ENUM:
+        text.append("  INSTANCE;\n\n");
+        break;
+      case ENUM_WITH_TWO_VALUES:
+        text.append("  INSTANCE, OTHER;\n\n");
+        break;
+      case CONSTRUCTOR_WITH_PARAMETER:
+        text.append("  private final String prefix;\n\n");
+        text.append("  public ").append(simpleName).append("(String prefix) {\n");
+        text.append("    this.prefix = prefix;\n");
+        text.append("  }\n\n");
+        break;
+      default:
+        break;
+    }
+    text.append("  public ").append(outputType).append(" apply(").append(inputType).append(" input) {\n");
+    text.append("    return null;\n");
+    text.append("  }\n");
+    for (int i = 1; i < spec.getMethodsPerMapper(); i++) {
+      text.append("\n  private ").append(typeGenerator.type(spec.getGenericDepth())).append(" helper").append(i)
+          .append("(").append(typeGenerator.type(spec.getGenericDepth())).append(" value, int index) {\n");
+      text.append("    return null;\n");
+      text.append("  }\n");
+    }
+    text.append("}\n");
+
+    String qualifiedName = packageName + "." + simpleName;
+    return new SyntheticSourceFile(qualifiedName, qualifiedName.replace('.', '/') + ".java", text.toString(), shape);
+  }
+
+  private static List<ImportedType> pickImports(Random random, int importCount) {
+    List<ImportedType> pool = new ArrayList<ImportedType>(IMPORT_POOL.length);
+    Collections.addAll(pool, IMPORT_POOL);
+    Collections.shuffle(pool, random);
+    List<ImportedType> res = new ArrayList<ImportedType>(pool.subList(0, importCount));
+    Collections.sort(res);
+    return res;
+  }
+
+  private static final class TypeGenerator {
+    private final Random random;
+    private final List<ImportedType> imports;
+    private final List<String> leaves = new ArrayList<String>();
+    private final List<ImportedType> containers = new ArrayList<ImportedType>();
+
+    private TypeGenerator(Random random, List<ImportedType> imports) {
+      this.random = random;
+      this.imports = imports;
+      Collections.addAll(leaves, JAVA_LANG_TYPES);
+      for (ImportedType importedType : imports) {
+        if (importedType.typeArgumentCount == 0) {
+          leaves.add(importedType.simpleName);
+        }
+        else {
+          containers.add(importedType);
+        }
+      }
+    }
+
+    /**
+     * Types with type arguments which are not imported are referenced by their qualified name ({@code java.util.List}),
+     * so that the generic depth does not depend on the imports.
+     */
+    private String type(int genericDepth) {
+      if (genericDepth == 0) {
+        return leaves.get(random.nextInt(leaves.size()));
+      }
+      String container = containers.isEmpty() ? "java.util.List" : null;
+      int typeArgumentCount = 1;
+      if (container == null) {
+        ImportedType importedType = containers.get(random.nextInt(containers.size()));
+        container = importedType.simpleName;
+        typeArgumentCount = importedType.typeArgumentCount;
+      }
+      if (typeArgumentCount == 2) {
+        return container + "<" + type(0) + ", " + type(genericDepth - 1) + ">";
+      }
+      return container + "<" + type(genericDepth - 1) + ">";
+    }
+  }
+
+  private static final class ImportedType implements Comparable<ImportedType> {
+    private final String qualifiedName;
+    private final String simpleName;
+    private final int typeArgumentCount;
+
+    private ImportedType(String qualifiedName, int typeArgumentCount) {
+      this.qualifiedName = qualifiedName;
+      this.simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+      this.typeArgumentCount = typeArgumentCount;
+    }
+
+    @Override
+    public int compareTo(ImportedType o) {
+      return qualifiedName.compareTo(o.qualifiedName);
+    }
+  }
+}
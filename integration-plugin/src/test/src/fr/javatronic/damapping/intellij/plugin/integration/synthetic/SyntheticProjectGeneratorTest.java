@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.synthetic;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SyntheticProjectGeneratorTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class SyntheticProjectGeneratorTest {
+  @Test
+  public void generation_is_deterministic() throws Exception {
+    SyntheticProjectSpec spec = SyntheticProjectSpec.builder().mappers(50).genericDepth(3).imports(8).seed(7).build();
+    List<SyntheticSourceFile> first = SyntheticProjectGenerator.generate(spec);
+    List<SyntheticSourceFile> second = SyntheticProjectGenerator.generate(spec);
+
+    assertEquals(50, first.size());
+    for (int i = 0; i < first.size(); i++) {
+      assertEquals(first.get(i).getPath(), second.get(i).getPath());
+      assertEquals(first.get(i).getText(), second.get(i).getText());
+    }
+  }
+
+  @Test
+  public void smaller_project_is_a_prefix_of_bigger_project() throws Exception {
+    SyntheticProjectSpec small = SyntheticProjectSpec.builder().mappers(10).invalidRatio(0.3).build();
+    List<SyntheticSourceFile> smallFiles = SyntheticProjectGenerator.generate(small);
+    List<SyntheticSourceFile> bigFiles = SyntheticProjectGenerator.generate(small.toBuilder().mappers(100).build());
+
+    for (int i = 0; i < smallFiles.size(); i++) {
+      assertEquals(smallFiles.get(i).getText(), bigFiles.get(i).getText());
+    }
+  }
+
+  @Test
+  public void invalid_ratio_is_honored() throws Exception {
+    SyntheticProjectSpec spec = SyntheticProjectSpec.builder().mappers(1000).invalidRatio(0.25).build();
+    int invalid = 0;
+    for (SyntheticSourceFile file : SyntheticProjectGenerator.generate(spec)) {
+      if (!file.isValid()) {
+        invalid++;
+        assertTrue(file.getShape() == SyntheticProjectGenerator.Shape.MISSING_FUNCTION
+            || file.getText().contains("INSTANCE, OTHER;"));
+      }
+    }
+    assertEquals(250, invalid);
+  }
+
+  @Test
+  public void no_invalid_mapper_by_default() throws Exception {
+    for (SyntheticSourceFile file : SyntheticProjectGenerator.generate(SyntheticProjectSpec.builder().build())) {
+      assertTrue(file.isValid());
+      assertTrue(file.getText().contains(" implements Function<"));
+    }
+  }
+
+  @Test
+  public void methods_generic_depth_and_imports_are_honored() throws Exception {
+    SyntheticProjectSpec spec = SyntheticProjectSpec.builder()
+        .mappers(1).methodsPerMapper(4).genericDepth(3).imports(5).build();
+    String text = SyntheticProjectGenerator.generate(spec).get(0).getText();
+
+    assertEquals(4, count(text, "return null;"));
+    assertEquals(2 + 5, count(text, "import "));
+    // apply method declares 2 types of depth 3
+    String applyLine = text.substring(text.indexOf("public ", text.indexOf("{\n")), text.indexOf(" input) {"));
+    assertTrue(applyLine, count(applyLine, "<") >= 6);
+  }
+
+  @Test
+  public void package_layouts() throws Exception {
+    SyntheticProjectSpec.Builder builder = SyntheticProjectSpec.builder().mappers(1000);
+
+    assertEquals(1, packages(builder.packageLayout(SyntheticProjectSpec.PackageLayout.FLAT, 10).build()).size());
+    Set<String> packages = packages(builder.packageLayout(SyntheticProjectSpec.PackageLayout.PACKAGES, 10).build());
+    assertEquals(100, packages.size());
+    assertTrue(packages.contains("com.acme.synthetic.p99"));
+    packages = packages(builder.packageLayout(SyntheticProjectSpec.PackageLayout.NESTED, 10).build());
+    assertEquals(100, packages.size());
+    assertTrue(packages.contains("com.acme.synthetic.n0.n9.n9"));
+    assertFalse(packages.contains("com.acme.synthetic.n1.n0.n0"));
+  }
+
+  private static Set<String> packages(SyntheticProjectSpec spec) {
+    Set<String> res = new HashSet<String>();
+    for (SyntheticSourceFile file : SyntheticProjectGenerator.generate(spec)) {
+      res.add(file.getQualifiedName().substring(0, file.getQualifiedName().lastIndexOf('.')));
+      assertEquals(file.getQualifiedName().replace('.', '/') + ".java", file.getPath());
+    }
+    return res;
+  }
+
+  private static int count(String text, String token) {
+    int res = 0;
+    for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+      res++;
+    }
+    return res;
+  }
+}
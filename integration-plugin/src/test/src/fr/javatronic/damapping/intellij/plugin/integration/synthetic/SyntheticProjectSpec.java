@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.synthetic;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * SyntheticProjectSpec - Immutable description of the project generated by {@link SyntheticProjectGenerator}.
+ * <p>
+ * Two specs with the same values always produce the exact same files.
+ * </p>
+ *
+ * @author Sébastien Lesaint
+ */
+public final class SyntheticProjectSpec {
+  public static enum PackageLayout {
+    /** all mappers are in the same package */
+    FLAT,
+    /** mappers are split in sibling packages of {@link #getMappersPerPackage()} mappers */
+    PACKAGES,
+    /** mappers are split in packages of {@link #getMappersPerPackage()} mappers, three levels deep */
+    NESTED
+  }
+
+  public static final String ROOT_PACKAGE = "com.acme.synthetic";
+
+  private final int mapperCount;
+  private final int methodsPerMapper;
+  private final int genericDepth;
+  private final int importCount;
+  private final double invalidRatio;
+  private final PackageLayout packageLayout;
+  private final int mappersPerPackage;
+  private final long seed;
+
+  private SyntheticProjectSpec(Builder builder) {
+    this.mapperCount = builder.mapperCount;
+    this.methodsPerMapper = builder.methodsPerMapper;
+    this.genericDepth = builder.genericDepth;
+    this.importCount = builder.importCount;
+    this.invalidRatio = builder.invalidRatio;
+    this.packageLayout = builder.packageLayout;
+    this.mappersPerPackage = builder.mappersPerPackage;
+    this.seed = builder.seed;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return a Builder initialized with the values of the current spec
+   */
+  public Builder toBuilder() {
+    return new Builder()
+        .mappers(mapperCount)
+        .methodsPerMapper(methodsPerMapper)
+        .genericDepth(genericDepth)
+        .imports(importCount)
+        .invalidRatio(invalidRatio)
+        .packageLayout(packageLayout, mappersPerPackage)
+        .seed(seed);
+  }
+
+  public int getMapperCount() {
+    return mapperCount;
+  }
+
+  /**
+   * @return the number of methods of each mapper, including the {@code apply} method
+   */
+  public int getMethodsPerMapper() {
+    return methodsPerMapper;
+  }
+
+  /**
+   * @return the number of nested type arguments of the input and output types of the mappers, 0 for non generic types
+   */
+  public int getGenericDepth() {
+    return genericDepth;
+  }
+
+  /**
+   * @return the number of imports of each mapper, in addition to the imports of {@code Function} and {@code Mapper}
+   */
+  public int getImportCount() {
+    return importCount;
+  }
+
+  /**
+   * @return the share, between 0 and 1, of the mappers which do not pass validation
+   */
+  public double getInvalidRatio() {
+    return invalidRatio;
+  }
+
+  public PackageLayout getPackageLayout() {
+    return packageLayout;
+  }
+
+  public int getMappersPerPackage() {
+    return mappersPerPackage;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  @Override
+  public String toString() {
+    return "SyntheticProjectSpec{mappers=" + mapperCount + ", methodsPerMapper=" + methodsPerMapper
+        + ", genericDepth=" + genericDepth + ", imports=" + importCount + ", invalidRatio=" + invalidRatio
+        + ", packageLayout=" + packageLayout + ", mappersPerPackage=" + mappersPerPackage + ", seed=" + seed + "}";
+  }
+
+  public static final class Builder {
+    private int mapperCount = 100;
+    private int methodsPerMapper = 1;
+    private int genericDepth = 1;
+    private int importCount = 3;
+    private double invalidRatio = 0d;
+    private PackageLayout packageLayout = PackageLayout.PACKAGES;
+    private int mappersPerPackage = 50;
+    private long seed = 0L;
+
+    private Builder() {
+      // use SyntheticProjectSpec.builder()
+    }
+
+    public Builder mappers(int mapperCount) {
+      checkArgument(mapperCount >= 0, "mapperCount can not be negative");
+      this.mapperCount = mapperCount;
+      return this;
+    }
+
+    public Builder methodsPerMapper(int methodsPerMapper) {
+      checkArgument(methodsPerMapper >= 1, "a mapper has at least one method");
+      this.methodsPerMapper = methodsPerMapper;
+      return this;
+    }
+
+    public Builder genericDepth(int genericDepth) {
+      checkArgument(genericDepth >= 0, "genericDepth can not be negative");
+      this.genericDepth = genericDepth;
+      return this;
+    }
+
+    public Builder imports(int importCount) {
+      checkArgument(importCount >= 0 && importCount <= SyntheticProjectGenerator.MAX_IMPORT_COUNT,
+          "importCount must be between 0 and " + SyntheticProjectGenerator.MAX_IMPORT_COUNT);
+      this.importCount = importCount;
+      return this;
+    }
+
+    public Builder invalidRatio(double invalidRatio) {
+      checkArgument(invalidRatio >= 0d && invalidRatio <= 1d, "invalidRatio must be between 0 and 1");
+      this.invalidRatio = invalidRatio;
+      return this;
+    }
+
+    public Builder packageLayout(PackageLayout packageLayout, int mappersPerPackage) {
+      checkArgument(mappersPerPackage >= 1, "mappersPerPackage must be at least 1");
+      this.packageLayout = checkNotNull(packageLayout);
+      this.mappersPerPackage = mappersPerPackage;
+      return this;
+    }
+
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    public SyntheticProjectSpec build() {
+      return new SyntheticProjectSpec(this);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.synthetic;
+
+/**
+ * SyntheticSourceFile - A source file generated by {@link SyntheticProjectGenerator}, which declares a single class
+ * annoted with @Mapper.
+ *
+ * @author Sébastien Lesaint
+ */
+public final class SyntheticSourceFile {
+  private final String qualifiedName;
+  private final String path;
+  private final String text;
+  private final SyntheticProjectGenerator.Shape shape;
+
+  SyntheticSourceFile(String qualifiedName, String path, String text, SyntheticProjectGenerator.Shape shape) {
+    this.qualifiedName = qualifiedName;
+    this.path = path;
+    this.text = text;
+    this.shape = shape;
+  }
+
+  /**
+   * @return the qualified name of the class annoted with @Mapper
+   */
+  public String getQualifiedName() {
+    return qualifiedName;
+  }
+
+  /**
+   * @return the path of the file relative to the source root, ie. {@code com/acme/synthetic/p0/Synthetic00000.java}
+   */
+  public String getPath() {
+    return path;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  public SyntheticProjectGenerator.Shape getShape() {
+    return shape;
+  }
+
+  public boolean isValid() {
+    return shape.isValid();
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2013 Sébastien Lesaint (http://www.javatronic.fr/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.javatronic.damapping.intellij.plugin.integration.trace;
+
+import fr.javatronic.damapping.intellij.plugin.integration.metrics.Operation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * CallTraceRecorderTest -
+ *
+ * @author Sébastien Lesaint
+ */
+public class CallTraceRecorderTest {
+  @Test
+  public void recorded_calls_are_read_back_in_order() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CallTraceRecorder recorder = new CallTraceRecorder(bytes);
+    recorder.record(Operation.FIND_CLASSES, "com.acme.FooMapper", ScopeKind.ALL, 1500, true);
+    recorder.record(Operation.GET_CLASSES, "com.acme", ScopeKind.PROJECT, 0, false);
+    recorder.record(Operation.GET_CLASSES_BY_NAME, "FooMapper", ScopeKind.OTHER_WITH_LIBRARIES, 300000000000L, false);
+    recorder.record(Operation.FIND_CLASSES, "com.acme.FooMapper", ScopeKind.LIBRARIES, -1, false);
+    recorder.close();
+    assertEquals(4, recorder.getRecordCount());
+
+    CallTraceReader reader = new CallTraceReader(new ByteArrayInputStream(bytes.toByteArray()));
+    CallTraceEntry first = reader.next();
+    assertEquals(Operation.FIND_CLASSES, first.getOperation());
+    assertEquals("com.acme.FooMapper", first.getArgument());
+    assertEquals(ScopeKind.ALL, first.getScopeKind());
+    assertEquals(1500, first.getDurationNanos());
+    assertTrue(first.isDispatchThread());
+
+    CallTraceEntry second = reader.next();
+    assertEquals(Operation.GET_CLASSES, second.getOperation());
+    assertEquals("com.acme", second.getArgument());
+    assertFalse(second.isDispatchThread());
+    assertTrue(second.getOffsetNanos() >= first.getOffsetNanos());
+
+    CallTraceEntry third = reader.next();
+    assertEquals(ScopeKind.OTHER_WITH_LIBRARIES, third.getScopeKind());
+    assertEquals(300000000000L, third.getDurationNanos());
+
+    CallTraceEntry fourth = reader.next();
+    assertEquals("com.acme.FooMapper", fourth.getArgument());
+    assertEquals(ScopeKind.LIBRARIES, fourth.getScopeKind());
+    assertEquals(0, fourth.getDurationNanos());
+
+    assertNull(reader.next());
+  }
+
+  @Test
+  public void repeated_arguments_are_written_once() throws Exception {
+    ByteArrayOutputStream once = new ByteArrayOutputStream();
+    CallTraceRecorder recorder = new CallTraceRecorder(once);
+    recorder.record(Operation.FIND_CLASSES, "com.acme.some.very.long.package.FooMapper", ScopeKind.ALL, 10, false);
+    recorder.close();
+
+    ByteArrayOutputStream twice = new ByteArrayOutputStream();
+    recorder = new CallTraceRecorder(twice);
+    recorder.record(Operation.FIND_CLASSES, "com.acme.some.very.long.package.FooMapper", ScopeKind.ALL, 10, false);
+    recorder.record(Operation.FIND_CLASSES, "com.acme.some.very.long.package.FooMapper", ScopeKind.ALL, 10, false);
+    recorder.close();
+
+    assertTrue(twice.size() - once.size() < 10);
+  }
+
+  @Test
+  public void calls_recorded_after_close_are_ignored() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CallTraceRecorder recorder = new CallTraceRecorder(bytes);
+    recorder.close();
+    recorder.record(Operation.FIND_CLASSES, "com.acme.FooMapper", ScopeKind.ALL, 10, false);
+
+    assertEquals(0, recorder.getRecordCount());
+    assertNull(new CallTraceReader(new ByteArrayInputStream(bytes.toByteArray())).next());
+  }
+
+  @Test(expected = IOException.class)
+  public void reader_rejects_other_files() throws Exception {
+    new CallTraceReader(new ByteArrayInputStream("not a trace".getBytes("UTF-8")));
+  }
+}